@@ -0,0 +1,73 @@
+package io.stock.sync.benchmark;
+
+import io.stock.sync.service.CsvVendorClient;
+import io.stock.sync.service.CsvVendorClient.ParserMode;
+import io.stock.sync.service.dto.VendorProduct;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Full read of a CSV vendor file, in both parser modes. Score is files per second; divide
+ * {@code gc.alloc.rate.norm} (with {@code -prof gc}) by {@code rows} for bytes allocated per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CsvVendorClientBenchmark {
+
+    @Param({"10000", "1000000"})
+    int rows;
+
+    @Param({"COMMONS", "MAPPED"})
+    ParserMode parser;
+
+    private Path file;
+    private CsvVendorClient client;
+
+    @Setup(Level.Trial)
+    public void writeFeed() throws IOException {
+        file = Files.createTempFile("bench-feed", ".csv");
+        Feeds.writeCsv(file, rows);
+        client = new CsvVendorClient("BENCH", file.toString(), null, parser);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFeed() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long stream(Blackhole bh) {
+        long n = 0;
+        try (Stream<VendorProduct> products = client.stream()) {
+            Iterator<VendorProduct> it = products.iterator();
+            while (it.hasNext()) {
+                bh.consume(it.next());
+                n++;
+            }
+        }
+        return n;
+    }
+}
@@ -0,0 +1,78 @@
+package io.stock.sync.benchmark;
+
+import io.stock.sync.service.dto.VendorProduct;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Deterministic synthetic vendor feeds. Row {@code i} always has the same sku and name; its
+ * quantity depends on {@code round}, so two rounds of the same feed differ in every row's quantity
+ * while never dropping to zero (no stock-out events to skew write timings).
+ */
+final class Feeds {
+
+    private Feeds() {}
+
+    static VendorProduct product(String vendor, int i, int round) {
+        return new VendorProduct(sku(i), name(i), quantity(i, round), vendor);
+    }
+
+    static List<VendorProduct> products(String vendor, int rows, int round) {
+        List<VendorProduct> list = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) list.add(product(vendor, i, round));
+        return list;
+    }
+
+    /** {@code sku,name,stockQuantity} with a header row, as CSV vendors deliver it. */
+    static void writeCsv(Path file, int rows) throws IOException {
+        try (Writer w = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8), 1 << 16)) {
+            w.write("sku,name,stockQuantity\n");
+            for (int i = 0; i < rows; i++) {
+                String name = name(i);
+                // every 16th name needs quoting, like real feeds with commas in product names
+                if (i % 16 == 0) name = "\"" + name + ", boxed\"";
+                w.write(sku(i) + "," + name + "," + quantity(i, 0) + "\n");
+            }
+        }
+    }
+
+    /** JSON array of {@code {sku,name,stockQuantity}}, optionally gzip-compressed. */
+    static byte[] json(int rows, boolean gzip) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(rows * 64);
+        try (OutputStream out = gzip ? new GZIPOutputStream(bytes, 1 << 16) : bytes;
+             Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16)) {
+            w.write('[');
+            for (int i = 0; i < rows; i++) {
+                if (i > 0) w.write(',');
+                w.write("{\"sku\":\"" + sku(i) + "\",\"name\":\"" + name(i)
+                        + "\",\"stockQuantity\":" + quantity(i, 0) + "}");
+            }
+            w.write(']');
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String sku(int i) {
+        return "SKU-" + i;
+    }
+
+    private static String name(int i) {
+        return "Product " + Integer.toHexString(i * 0x9E3779B1) + " size " + (i % 13);
+    }
+
+    private static int quantity(int i, int round) {
+        return 1 + new SplittableRandom(i * 31L + round).nextInt(500);
+    }
+}
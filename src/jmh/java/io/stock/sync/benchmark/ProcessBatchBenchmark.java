@@ -0,0 +1,100 @@
+package io.stock.sync.benchmark;
+
+import io.stock.sync.Application;
+import io.stock.sync.service.StockSnapshotCache;
+import io.stock.sync.service.SyncService;
+import io.stock.sync.service.dto.VendorProduct;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SyncService#processBatch} against the in-memory H2 database, with the full application
+ * context (snapshot cache, history, outbox) but no schedulers. One invocation ingests one batch:
+ * <ul>
+ *   <li>{@code INSERT} — every row is new (the vendor's rows are deleted before each invocation)</li>
+ *   <li>{@code UPDATE} — every row's quantity changes</li>
+ *   <li>{@code UNCHANGED} — the same batch again, the no-op path most syncs take</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ProcessBatchBenchmark {
+
+    private static final String VENDOR = "BENCH";
+
+    public enum Change { INSERT, UPDATE, UNCHANGED }
+
+    @Param({"10000", "100000"})
+    int rows;
+
+    @Param({"INSERT", "UPDATE", "UNCHANGED"})
+    Change change;
+
+    private ConfigurableApplicationContext context;
+    private SyncService syncService;
+    private StockSnapshotCache snapshotCache;
+    private JdbcTemplate jdbcTemplate;
+    private List<List<VendorProduct>> rounds;
+    private int round;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                        "sync.enabled=false",
+                        "outbox.enabled=false",
+                        "history.compaction-enabled=false",
+                        "logging.level.root=WARN")
+                .run();
+        syncService = context.getBean(SyncService.class);
+        snapshotCache = context.getBean(StockSnapshotCache.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        rounds = List.of(Feeds.products(VENDOR, rows, 0), Feeds.products(VENDOR, rows, 1));
+        syncService.processBatch(rounds.get(0));
+    }
+
+    @Setup(Level.Invocation)
+    public void prepare() {
+        if (change == Change.INSERT) {
+            jdbcTemplate.update("DELETE FROM products WHERE vendor = ?", VENDOR);
+            snapshotCache.invalidate(VENDOR);
+        }
+        // raw history rows would otherwise pile up across invocations
+        jdbcTemplate.update("DELETE FROM stock_changes WHERE vendor = ?", VENDOR);
+        if (change == Change.UPDATE) round ^= 1;
+    }
+
+    @Benchmark
+    public void processBatch() {
+        syncService.processBatch(rounds.get(round));
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+}
@@ -0,0 +1,76 @@
+package io.stock.sync.benchmark;
+
+import io.stock.sync.service.RestVendorClient;
+import io.stock.sync.service.dto.VendorProduct;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Streaming deserialization of a REST vendor payload through {@link RestVendorClient}. The
+ * response is served from memory, so the score is decoding (gunzip) plus JSON parsing only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RestPayloadBenchmark {
+
+    @Param({"10000", "1000000"})
+    int rows;
+
+    @Param({"false", "true"})
+    boolean gzip;
+
+    private RestVendorClient client;
+
+    @Setup(Level.Trial)
+    public void buildPayload() throws IOException {
+        byte[] body = Feeds.json(rows, gzip);
+        RestTemplate restTemplate = new RestTemplate((uri, method) -> {
+            MockClientHttpRequest request = new MockClientHttpRequest(method, uri);
+            MockClientHttpResponse response = new MockClientHttpResponse(body, HttpStatus.OK);
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            if (gzip) response.getHeaders().set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            request.setResponse(response);
+            return request;
+        });
+        client = new RestVendorClient("BENCH", "http://bench.invalid/products", restTemplate);
+    }
+
+    @Benchmark
+    public long stream(Blackhole bh) {
+        long n = 0;
+        try (Stream<VendorProduct> products = client.stream()) {
+            Iterator<VendorProduct> it = products.iterator();
+            while (it.hasNext()) {
+                bh.consume(it.next());
+                n++;
+            }
+        }
+        return n;
+    }
+}
@@ -0,0 +1,56 @@
+package io.stock.sync.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Guards {@code /admin/**}: a request needs {@code Authorization: Bearer <token>} whose SHA-256 is
+ * {@code admin.token-sha256}, compared like the vendors' push tokens. Without a configured hash
+ * the admin API refuses every request.
+ */
+@Configuration
+public class AdminAuthConfig implements WebMvcConfigurer {
+
+    private static final Logger log = LoggerFactory.getLogger(AdminAuthConfig.class);
+
+    private final String tokenSha256;   // lower-case hex; null = admin API disabled
+
+    public AdminAuthConfig(@Value("${admin.token-sha256:}") String tokenSha256) {
+        this.tokenSha256 = tokenSha256.isBlank() ? null : tokenSha256.trim().toLowerCase();
+        if (this.tokenSha256 == null) log.warn("admin.token-sha256 is not set, /admin/** refuses every request");
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                if (!accepts(request.getHeader(HttpHeaders.AUTHORIZATION))) {
+                    throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid or missing admin token");
+                }
+                return true;
+            }
+        }).addPathPatterns("/admin/**");
+    }
+
+    boolean accepts(String authorization) {
+        String token = authorization != null && authorization.regionMatches(true, 0, "Bearer ", 0, 7)
+                ? authorization.substring(7).trim() : null;
+        if (tokenSha256 == null || token == null) return false;
+        return MessageDigest.isEqual(tokenSha256.getBytes(StandardCharsets.US_ASCII),
+                PersistentVendorRegistry.sha256Hex(token).getBytes(StandardCharsets.US_ASCII));
+    }
+}
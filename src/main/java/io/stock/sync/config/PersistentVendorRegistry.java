@@ -0,0 +1,325 @@
+package io.stock.sync.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.stock.sync.config.VendorsProperties.VendorSpec;
+import io.stock.sync.model.VendorConfig;
+import io.stock.sync.repository.VendorConfigRepository;
+import io.stock.sync.service.StockSnapshotCache;
+import io.stock.sync.service.VendorClient;
+import io.stock.sync.service.VendorRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+/**
+ * Vendor registry backed by the {@code vendor_configs} table, which is seeded from
+ * {@code vendors.*} in {@code application.yml} on first startup and edited at runtime through
+ * {@code /admin/vendors}.
+ *
+ * <p>{@link #refresh()} re-reads the table (every {@code vendors.registry.refresh-interval}, and
+ * right after a change made through this node) and rebuilds the client of every vendor whose
+ * version changed; the other vendors keep their client, and with it their connection pool and
+ * conditional-request / incremental state. Listeners get a {@link Changed} event, so a new or
+ * edited vendor is picked up by its next sync without a restart. A client that was replaced or
+ * removed is only closed once its vendor is no longer syncing (see {@link #closeRetired}). A row
+ * that cannot be turned into a client is logged and leaves the vendor's previous client in place.
+ *
+ * <p>It also holds the vendors' push tokens (as SHA-256 hashes) for {@code /ingest}. They are
+ * stored beside the spec and change without a version bump, so issuing or revoking one never
+ * rebuilds the vendor's client.
+ */
+@Component
+@EnableConfigurationProperties(VendorsProperties.class)
+public class PersistentVendorRegistry implements VendorRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(PersistentVendorRegistry.class);
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /** Published after a refresh that added, rebuilt or removed clients. */
+    public record Changed(Set<String> vendors) {}
+
+    /** A stored vendor, as shown by the admin API. */
+    public record Definition(long version, OffsetDateTime updatedAt, boolean active, VendorSpec spec) {}
+
+    private record Entry(long version, VendorSpec spec, VendorClient client, AutoCloseable resources) {}
+
+    private final VendorConfigRepository repository;
+    private final VendorClientFactory factory;
+    private final VendorsProperties configured;
+    private final StockSnapshotCache snapshotCache;
+    private final ApplicationEventPublisher events;
+    private final ObjectMapper objectMapper;
+
+    private volatile Map<String, Entry> entries = Map.of();
+    private volatile Map<String, String> pushTokens = Map.of();   // active vendor -> token hash
+    private final List<Entry> retired = new ArrayList<>();   // guarded by this
+
+    public PersistentVendorRegistry(VendorConfigRepository repository,
+                                    VendorClientFactory factory,
+                                    VendorsProperties configured,
+                                    StockSnapshotCache snapshotCache,
+                                    ApplicationEventPublisher events,
+                                    ObjectMapper objectMapper) {
+        this.repository = repository;
+        this.factory = factory;
+        this.configured = configured;
+        this.snapshotCache = snapshotCache;
+        this.events = events;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    void init() {
+        seed();
+        refresh();
+    }
+
+    @Override
+    public List<VendorClient> clients() {
+        return entries.values().stream().map(Entry::client).filter(Objects::nonNull).toList();   // push-only vendors have none
+    }
+
+    /** True if the vendor is active and {@code token} is its push token. */
+    public boolean acceptsPush(String vendor, String token) {
+        String hash = pushTokens.get(vendor);
+        if (hash == null || token == null) return false;
+        return MessageDigest.isEqual(hash.getBytes(StandardCharsets.US_ASCII),
+                sha256Hex(token).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Issues a new push token for the vendor, replacing any previous one. Only its hash is stored,
+     * so the returned token cannot be shown again. Empty if the vendor does not exist.
+     */
+    public Optional<String> issuePushToken(String vendor) {
+        byte[] random = new byte[32];
+        RANDOM.nextBytes(random);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(random);
+        return updatePushToken(vendor, sha256Hex(token)) ? Optional.of(token) : Optional.empty();
+    }
+
+    /** False if the vendor does not exist. */
+    public boolean revokePushToken(String vendor) {
+        return updatePushToken(vendor, null);
+    }
+
+    /** Spec the vendor's current client was built from, if the vendor is active. */
+    public Optional<VendorSpec> spec(String vendor) {
+        return Optional.ofNullable(entries.get(vendor)).map(Entry::spec);
+    }
+
+    /** Specs of all active vendors. */
+    public List<VendorSpec> specs() {
+        return entries.values().stream().map(Entry::spec).toList();
+    }
+
+    public List<Definition> definitions() {
+        return repository.findAllByOrderByNameAsc().stream().map(this::definition).toList();
+    }
+
+    public Optional<Definition> definition(String vendor) {
+        return repository.findById(vendor).map(this::definition);
+    }
+
+    /**
+     * Creates or replaces the vendor's configuration and applies it on this node right away.
+     * Throws {@link IllegalArgumentException} if the spec is invalid.
+     */
+    public Definition put(String vendor, VendorSpec spec) {
+        spec.setName(vendor);
+        factory.validate(spec);
+        VendorConfig row = repository.findById(vendor)
+                .orElseGet(() -> new VendorConfig(vendor, spec.isEnabled(), null, null));
+        // tokens are managed separately; a spec only sets one if it carries a hash
+        if (spec.getPushTokenSha256() != null) row.setPushTokenSha256(spec.getPushTokenSha256());
+        row.setEnabled(spec.isEnabled());
+        row.setSpec(write(spec));
+        row.setUpdatedAt(OffsetDateTime.now());
+        row = repository.save(row);
+        log.info("Vendor {} saved (version {}, {})", vendor, row.getVersion(), spec.isEnabled() ? "enabled" : "disabled");
+        refresh();
+        return definition(row);
+    }
+
+    /** False if the vendor does not exist. */
+    public boolean setEnabled(String vendor, boolean enabled) {
+        Optional<VendorConfig> found = repository.findById(vendor);
+        if (found.isEmpty()) return false;
+        VendorConfig row = found.get();
+        if (row.isEnabled() != enabled) {
+            row.setEnabled(enabled);
+            row.setUpdatedAt(OffsetDateTime.now());
+            repository.save(row);
+            log.info("Vendor {} {}", vendor, enabled ? "enabled" : "disabled");
+            refresh();
+        }
+        return true;
+    }
+
+    /** False if the vendor does not exist. Its products and stock-out history are kept. */
+    public boolean delete(String vendor) {
+        if (!repository.existsById(vendor)) return false;
+        repository.deleteById(vendor);
+        log.info("Vendor {} deleted", vendor);
+        refresh();
+        return true;
+    }
+
+    private boolean updatePushToken(String vendor, String hash) {
+        if (repository.updatePushToken(vendor, hash) == 0) return false;
+        log.info("Push token of vendor {} {}", vendor, hash != null ? "issued" : "revoked");
+        refresh();
+        return true;
+    }
+
+    /** Applies the current table contents. Returns the vendors whose client was added, rebuilt or removed. */
+    public synchronized Set<String> refresh() {
+        Map<String, Entry> current = entries;
+        Map<String, Entry> next = new LinkedHashMap<>();
+        Map<String, String> tokens = new HashMap<>();
+        Set<String> changed = new TreeSet<>();
+        for (VendorConfig row : repository.findAllByOrderByNameAsc()) {
+            if (!row.isEnabled()) continue;
+            if (row.getPushTokenSha256() != null) tokens.put(row.getName(), row.getPushTokenSha256());
+            Entry entry = current.get(row.getName());
+            if (entry != null && entry.version() == row.getVersion()) {
+                next.put(row.getName(), entry);
+                continue;
+            }
+            try {
+                VendorSpec spec = read(row);
+                VendorClientFactory.Built built = factory.create(spec);
+                next.put(row.getName(), new Entry(row.getVersion(), spec, built.client(), built.resources()));
+                changed.add(row.getName());
+            } catch (RuntimeException e) {
+                log.error("Cannot build a client for vendor {} (version {}), {}: {}", row.getName(), row.getVersion(),
+                        entry != null ? "keeping the previous one" : "not syncing it", e.getMessage());
+                if (entry != null) next.put(row.getName(), entry);
+            }
+        }
+        for (Map.Entry<String, Entry> old : current.entrySet()) {
+            Entry replacement = next.get(old.getKey());
+            if (replacement == old.getValue()) continue;
+            retired.add(old.getValue());
+            if (replacement == null) {
+                changed.add(old.getKey());
+                snapshotCache.invalidate(old.getKey());
+            }
+        }
+        entries = next;
+        pushTokens = tokens;
+        if (!changed.isEmpty()) {
+            log.info("Vendor registry: {} active, changed {}", next.keySet(), changed);
+            events.publishEvent(new Changed(changed));
+        }
+        return changed;
+    }
+
+    /** Closes replaced or removed clients whose vendor {@code busy} says is no longer syncing. */
+    public synchronized void closeRetired(Predicate<String> busy) {
+        retired.removeIf(e -> {
+            if (busy.test(e.spec().getName())) return false;
+            close(e);
+            return true;
+        });
+    }
+
+    @PreDestroy
+    synchronized void shutdown() {
+        retired.forEach(PersistentVendorRegistry::close);
+        retired.clear();
+        entries.values().forEach(PersistentVendorRegistry::close);
+        entries = Map.of();
+    }
+
+    /** Inserts the vendors declared in {@code application.yml} that are not in the table yet. */
+    private void seed() {
+        for (VendorSpec spec : configured.all()) {
+            try {
+                factory.validate(spec);
+            } catch (IllegalArgumentException e) {
+                log.error("Ignoring configured vendor {}: {}", spec.getName(), e.getMessage());
+                continue;
+            }
+            if (repository.existsById(spec.getName())) continue;
+            try {
+                VendorConfig row = new VendorConfig(spec.getName(), spec.isEnabled(), write(spec), OffsetDateTime.now());
+                row.setPushTokenSha256(spec.getPushTokenSha256());
+                repository.saveAndFlush(row);
+                log.info("Vendor {} added to the registry from application.yml", spec.getName());
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Vendor {} was added concurrently by another node", spec.getName());
+            }
+        }
+    }
+
+    private Definition definition(VendorConfig row) {
+        Entry entry = entries.get(row.getName());
+        boolean active = entry != null && entry.version() == row.getVersion();
+        return new Definition(row.getVersion(), row.getUpdatedAt(), active, read(row));
+    }
+
+    private VendorSpec read(VendorConfig row) {
+        try {
+            VendorSpec spec = objectMapper.readValue(row.getSpec(), VendorSpec.class);
+            spec.setName(row.getName());
+            spec.setEnabled(row.isEnabled());
+            spec.setPushTokenSha256(row.getPushTokenSha256());
+            return spec;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable spec: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    /** The spec as stored in the versioned column, without the push token. */
+    private String write(VendorSpec spec) {
+        try {
+            ObjectNode json = objectMapper.valueToTree(spec);
+            json.remove("pushTokenSha256");
+            return objectMapper.writeValueAsString(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String sha256Hex(String token) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void close(Entry e) {
+        try {
+            e.resources().close();
+        } catch (Exception ex) {
+            log.warn("Failed to close the old client of {}: {}", e.spec().getName(), ex.getMessage());
+        }
+    }
+}
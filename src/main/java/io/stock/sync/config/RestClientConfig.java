@@ -1,8 +1,10 @@
 package io.stock.sync.config;
 
+import org.springframework.boot.web.client.ClientHttpRequestFactories;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 import java.time.Duration;
@@ -12,7 +14,9 @@ public class RestClientConfig {
 
     @Bean
     public RestTemplate restTemplate(RestTemplateBuilder builder) {
+        // JDK HttpClient: pooled keep-alive connections and HTTP/2, unlike the HttpURLConnection default
         return builder
+                .requestFactory(settings -> ClientHttpRequestFactories.get(JdkClientHttpRequestFactory.class, settings))
                 .setConnectTimeout(Duration.ofSeconds(3))
                 .setReadTimeout(Duration.ofSeconds(5))
                 .build();
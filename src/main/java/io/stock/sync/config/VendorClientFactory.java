@@ -0,0 +1,206 @@
+package io.stock.sync.config;
+
+import io.stock.sync.config.VendorsProperties.CircuitBreaker;
+import io.stock.sync.config.VendorsProperties.CsvSpec;
+import io.stock.sync.config.VendorsProperties.PushSpec;
+import io.stock.sync.config.VendorsProperties.RestSpec;
+import io.stock.sync.config.VendorsProperties.VendorSpec;
+import io.stock.sync.repository.ProductJdbcRepository;
+import io.stock.sync.service.AdaptiveTimeout;
+import io.stock.sync.service.CsvDigestIndex;
+import io.stock.sync.service.CsvVendorClient;
+import io.stock.sync.service.PagedRestVendorClient;
+import io.stock.sync.service.Pagination;
+import io.stock.sync.service.RestVendorClient;
+import io.stock.sync.service.VendorCircuitBreaker;
+import io.stock.sync.service.VendorClient;
+import io.stock.sync.service.VendorConnectionLimit;
+import io.stock.sync.service.VendorHttpGuard;
+import io.stock.sync.service.dto.VendorProduct;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Builds one vendor's client from its spec. Nothing is shared between vendors: every REST vendor
+ * gets its own {@link HttpClient} (and so its own keep-alive connection pool, HTTP/2 where the
+ * vendor supports it, capped by {@link VendorConnectionLimit}), timeouts and retry policy, so
+ * a vendor that hangs or exhausts its connections cannot starve the others. Its read timeout
+ * follows its observed latency ({@link AdaptiveTimeout}) and a {@link VendorCircuitBreaker} stops
+ * calling it while it is down.
+ */
+@Component
+public class VendorClientFactory {
+
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_.-]{1,100}");
+
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-f]{64}");
+
+    /** A client (null for push-only vendors) plus what has to be closed once the client is no longer used. */
+    public record Built(VendorClient client, AutoCloseable resources) {}
+
+    private final ProductJdbcRepository products;
+
+    public VendorClientFactory(ProductJdbcRepository products) {
+        this.products = products;
+    }
+
+    /** Throws {@link IllegalArgumentException} describing the first problem found. */
+    public void validate(VendorSpec spec) {
+        if (spec.getName() == null || !NAME.matcher(spec.getName()).matches()) {
+            throw new IllegalArgumentException("Vendor name must be 1-100 letters, digits, '_', '.' or '-': " + spec.getName());
+        }
+        VendorsProperties.Schedule s = spec.getSchedule();
+        if (s != null) {
+            positive(s.getInterval(), "schedule.interval");
+            positive(s.getMinInterval(), "schedule.min-interval");
+            positive(s.getMaxInterval(), "schedule.max-interval");
+            if (s.getMinInterval() != null && s.getMaxInterval() != null && s.getMinInterval().compareTo(s.getMaxInterval()) > 0) {
+                throw new IllegalArgumentException("schedule.min-interval exceeds schedule.max-interval");
+            }
+        }
+        switch (spec) {
+            case RestSpec r -> {
+                URI uri;
+                try {
+                    uri = URI.create(String.valueOf(r.getUrl()));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Invalid url: " + r.getUrl());
+                }
+                if (!"http".equalsIgnoreCase(uri.getScheme()) && !"https".equalsIgnoreCase(uri.getScheme())) {
+                    throw new IllegalArgumentException("url must be http(s): " + r.getUrl());
+                }
+                if (r.getPagination() == null || r.getHttp() == null || r.getRetry() == null || r.getCircuitBreaker() == null) {
+                    throw new IllegalArgumentException("pagination, http, retry and circuit-breaker must not be null");
+                }
+                if (r.getPagination().getPageSize() < 1 || r.getPagination().getConcurrency() < 1) {
+                    throw new IllegalArgumentException("pagination.page-size and pagination.concurrency must be at least 1");
+                }
+                required(r.getHttp().getConnectTimeout(), "http.connect-timeout");
+                required(r.getHttp().getReadTimeout(), "http.read-timeout");
+                required(r.getHttp().getMinReadTimeout(), "http.min-read-timeout");
+                required(r.getHttp().getMaxConnectionWait(), "http.max-connection-wait");
+                if (r.getHttp().getVersion() == null) throw new IllegalArgumentException("http.version must not be null");
+                if (r.getHttp().getMaxConnections() < 1) {
+                    throw new IllegalArgumentException("http.max-connections must be at least 1");
+                }
+                required(r.getCircuitBreaker().getOpenDuration(), "circuit-breaker.open-duration");
+                required(r.getCircuitBreaker().getMaxOpenDuration(), "circuit-breaker.max-open-duration");
+                if (r.getCircuitBreaker().getFailureThreshold() < 1) {
+                    throw new IllegalArgumentException("circuit-breaker.failure-threshold must be at least 1");
+                }
+                required(r.getRetry().getInitialBackoff(), "retry.initial-backoff");
+                required(r.getRetry().getMaxBackoff(), "retry.max-backoff");
+                if (r.getRetry().getMaxAttempts() < 1) {
+                    throw new IllegalArgumentException("retry.max-attempts must be at least 1");
+                }
+            }
+            case CsvSpec c -> {
+                boolean polled = c.getPath() != null && !c.getPath().isBlank();
+                if (polled == (c.getWatch() != null)) throw new IllegalArgumentException("exactly one of path and watch is required");
+                if (c.getWatch() != null) {
+                    if (c.getWatch().getDir() == null || c.getWatch().getDir().isBlank()) {
+                        throw new IllegalArgumentException("watch.dir is required");
+                    }
+                    if (c.getWatch().getPattern() == null || c.getWatch().getPattern().isBlank()) {
+                        throw new IllegalArgumentException("watch.pattern is required");
+                    }
+                    if (c.getWatch().getDoneSuffix() != null && c.getWatch().getDoneSuffix().isBlank()) {
+                        throw new IllegalArgumentException("watch.done-suffix must not be blank");
+                    }
+                }
+                if (c.getParser() == null) throw new IllegalArgumentException("parser must not be null");
+            }
+            case PushSpec p -> {
+                // nothing to poll; the push token may be issued later via /admin/vendors/{vendor}/push-token
+            }
+        }
+        if (spec.getPushTokenSha256() != null && !SHA256_HEX.matcher(spec.getPushTokenSha256()).matches()) {
+            throw new IllegalArgumentException("pushTokenSha256 must be 64 lowercase hex digits");
+        }
+    }
+
+    public Built create(VendorSpec spec) {
+        validate(spec);
+        return switch (spec) {
+            case RestSpec r -> rest(r);
+            case CsvSpec c when c.getWatch() != null -> new Built(null, () -> {});   // fed by CsvDirectoryWatcher
+            case CsvSpec c -> new Built(new CsvVendorClient(
+                    c.getName(), c.getPath(), digestIndex(c), c.getParser(), c.isTrustModifiedTime()), () -> {});
+            case PushSpec p -> new Built(null, () -> {});
+        };
+    }
+
+    private static Built rest(RestSpec r) {
+        // connections are kept alive and reused between syncs; over HTTP/2 (negotiated via ALPN on
+        // https, h2c upgrade on http) all of a vendor's requests share one connection
+        HttpClient http = HttpClient.newBuilder()
+                .version(r.getHttp().getVersion())
+                .connectTimeout(r.getHttp().getConnectTimeout())
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        JdkClientHttpRequestFactory requests = new JdkClientHttpRequestFactory(http);
+        requests.setReadTimeout(r.getHttp().getReadTimeout());
+        RestTemplate restTemplate;
+        AdaptiveTimeout timeout = r.getHttp().isAdaptiveTimeout()
+                ? new AdaptiveTimeout(r.getName(), r.getHttp().getMinReadTimeout(), r.getHttp().getReadTimeout())
+                : null;
+        if (timeout != null) {
+            // the factory is this vendor's own; concurrent page requests all read the latest value
+            restTemplate = new RestTemplate((uri, method) -> {
+                requests.setReadTimeout(timeout.current());
+                return requests.createRequest(uri, method);
+            });
+        } else {
+            restTemplate = new RestTemplate(requests);
+        }
+        CircuitBreaker cb = r.getCircuitBreaker();
+        VendorCircuitBreaker breaker = cb.isEnabled()
+                ? new VendorCircuitBreaker(r.getName(), cb.getFailureThreshold(), cb.getOpenDuration(), cb.getMaxOpenDuration())
+                : null;
+        // the connection limit goes first, so time spent queueing for a connection is not taken for vendor latency
+        restTemplate.getInterceptors().add(new VendorConnectionLimit(
+                r.getName(), r.getHttp().getMaxConnections(), r.getHttp().getMaxConnectionWait()));
+        if (breaker != null || timeout != null) restTemplate.getInterceptors().add(new VendorHttpGuard(breaker, timeout));
+        RetryTemplate retry = RestVendorClient.retryTemplate(
+                r.getRetry().getMaxAttempts(), r.getRetry().getInitialBackoff(), r.getRetry().getMaxBackoff(), breaker);
+        VendorClient client = r.getPagination().getStrategy() == Pagination.Strategy.NONE
+                ? new RestVendorClient(r.getName(), r.getUrl(), restTemplate, retry)
+                : new PagedRestVendorClient(r.getName(), r.getUrl(), restTemplate, r.getPagination(), retry);
+        return new Built(client, http);
+    }
+
+    private CsvDigestIndex digestIndex(CsvSpec c) {
+        if (!c.isIncremental()) return null;
+        if (c.getIndexDir() == null) return CsvDigestIndex.inMemory();
+        CsvDigestIndex index = CsvDigestIndex.persistent(Path.of(c.getIndexDir(), c.getName() + ".idx"));
+        // the file outlives the database it describes (in-memory H2, a restore, a failover)
+        index.verify(() -> storedDigests(c.getName()));
+        return index;
+    }
+
+    private Map<String, Long> storedDigests(String vendor) {
+        Map<String, Long> digests = new HashMap<>();
+        products.findAllStored(vendor).forEach((sku, row) ->
+                digests.put(sku, CsvDigestIndex.digest(new VendorProduct(sku, row.name(), row.stockQuantity(), vendor))));
+        return digests;
+    }
+
+    private static void required(Duration d, String field) {
+        if (d == null) throw new IllegalArgumentException(field + " is required");
+        positive(d, field);
+    }
+
+    private static void positive(Duration d, String field) {
+        if (d != null && (d.isNegative() || d.isZero())) throw new IllegalArgumentException(field + " must be positive");
+    }
+}
@@ -1,9 +1,21 @@
 package io.stock.sync.config;
 
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import io.stock.sync.service.CsvVendorClient;
+import io.stock.sync.service.Pagination;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Vendors declared in {@code application.yml}. These only seed the {@code vendor_configs} table on
+ * first startup (see {@link PersistentVendorRegistry}); from then on the database copy, edited
+ * through {@code /admin/vendors}, is what the service syncs.
+ */
 @ConfigurationProperties(prefix = "vendors")
 public class VendorsProperties {
     private List<RestSpec> rest = new ArrayList<>();
@@ -15,29 +27,180 @@ public class VendorsProperties {
     public List<CsvSpec> getCsv() { return csv; }
     public void setCsv(List<CsvSpec> csv) { this.csv = csv; }
 
-    public static class RestSpec {
+    /** All declared vendors, REST first. */
+    public List<VendorSpec> all() {
+        List<VendorSpec> all = new ArrayList<>(rest);
+        all.addAll(csv);
+        return all;
+    }
+
+    /**
+     * Per-vendor sync cadence; unset fields fall back to {@code sync.interval} and {@code sync.adaptive.*}.
+     */
+    public static class Schedule {
+        private Duration interval;      // starting delay between the end of one sync and the next
+        private Duration minInterval;   // adaptive lower bound (volatile feeds)
+        private Duration maxInterval;   // adaptive upper bound (feeds that rarely change)
+        private Boolean adaptive;       // false = fixed interval
+
+        public Duration getInterval() { return interval; }
+        public void setInterval(Duration interval) { this.interval = interval; }
+        public Duration getMinInterval() { return minInterval; }
+        public void setMinInterval(Duration minInterval) { this.minInterval = minInterval; }
+        public Duration getMaxInterval() { return maxInterval; }
+        public void setMaxInterval(Duration maxInterval) { this.maxInterval = maxInterval; }
+        public Boolean getAdaptive() { return adaptive; }
+        public void setAdaptive(Boolean adaptive) { this.adaptive = adaptive; }
+    }
+
+    /**
+     * Settings every vendor has; stored as JSON with a {@code type} of REST, CSV or PUSH. Any
+     * vendor may also push updates to {@code /ingest/{vendor}} once it has a push token.
+     */
+    @JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
+    @JsonSubTypes({
+            @JsonSubTypes.Type(value = RestSpec.class, name = "REST"),
+            @JsonSubTypes.Type(value = CsvSpec.class, name = "CSV"),
+            @JsonSubTypes.Type(value = PushSpec.class, name = "PUSH")
+    })
+    public abstract static sealed class VendorSpec permits RestSpec, CsvSpec, PushSpec {
         private String name;   // e.g., VENDOR_A
-        private String url;    // e.g., http://host/api/products
-        private boolean enabled = true; // <--- NEW
+        private boolean enabled = true;
+        private Schedule schedule = new Schedule();
+        private String pushTokenSha256;   // hex SHA-256 of the vendor's push token; null = pushes refused
 
         public String getName() { return name; }
         public void setName(String name) { this.name = name; }
-        public String getUrl() { return url; }
-        public void setUrl(String url) { this.url = url; }
         public boolean isEnabled() { return enabled; }
         public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public Schedule getSchedule() { return schedule; }
+        public void setSchedule(Schedule schedule) { this.schedule = schedule; }
+        public String getPushTokenSha256() { return pushTokenSha256; }
+        public void setPushTokenSha256(String pushTokenSha256) { this.pushTokenSha256 = pushTokenSha256; }
     }
 
-    public static class CsvSpec {
-        private String name;   // e.g., VENDOR_B
+    /** Connection settings of a REST vendor's own HTTP client. */
+    public static class Http {
+        private Duration connectTimeout = Duration.ofSeconds(3);
+        private Duration readTimeout = Duration.ofSeconds(5);   // until the response headers arrive; the cap when adaptive
+        private boolean adaptiveTimeout = true;                  // 3x the vendor's observed p99, within [minReadTimeout, readTimeout]
+        private Duration minReadTimeout = Duration.ofSeconds(1);
+        private HttpClient.Version version = HttpClient.Version.HTTP_2;   // falls back to HTTP/1.1 if the vendor lacks h2
+        private int maxConnections = 8;          // requests open at once (connections over HTTP/1.1, streams over HTTP/2)
+        private Duration maxConnectionWait = Duration.ofSeconds(10);   // then the request fails like an I/O error
+
+        public Duration getConnectTimeout() { return connectTimeout; }
+        public void setConnectTimeout(Duration connectTimeout) { this.connectTimeout = connectTimeout; }
+        public Duration getReadTimeout() { return readTimeout; }
+        public void setReadTimeout(Duration readTimeout) { this.readTimeout = readTimeout; }
+        public boolean isAdaptiveTimeout() { return adaptiveTimeout; }
+        public void setAdaptiveTimeout(boolean adaptiveTimeout) { this.adaptiveTimeout = adaptiveTimeout; }
+        public Duration getMinReadTimeout() { return minReadTimeout; }
+        public void setMinReadTimeout(Duration minReadTimeout) { this.minReadTimeout = minReadTimeout; }
+        public HttpClient.Version getVersion() { return version; }
+        public void setVersion(HttpClient.Version version) { this.version = version; }
+        public int getMaxConnections() { return maxConnections; }
+        public void setMaxConnections(int maxConnections) { this.maxConnections = maxConnections; }
+        public Duration getMaxConnectionWait() { return maxConnectionWait; }
+        public void setMaxConnectionWait(Duration maxConnectionWait) { this.maxConnectionWait = maxConnectionWait; }
+    }
+
+    /** Fails a REST vendor's fetches fast while it keeps failing (see {@code VendorCircuitBreaker}). */
+    public static class CircuitBreaker {
+        private boolean enabled = true;
+        private int failureThreshold = 3;                            // consecutive failed requests that open it
+        private Duration openDuration = Duration.ofSeconds(30);      // until the first probe; doubles while probes fail
+        private Duration maxOpenDuration = Duration.ofMinutes(10);
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public int getFailureThreshold() { return failureThreshold; }
+        public void setFailureThreshold(int failureThreshold) { this.failureThreshold = failureThreshold; }
+        public Duration getOpenDuration() { return openDuration; }
+        public void setOpenDuration(Duration openDuration) { this.openDuration = openDuration; }
+        public Duration getMaxOpenDuration() { return maxOpenDuration; }
+        public void setMaxOpenDuration(Duration maxOpenDuration) { this.maxOpenDuration = maxOpenDuration; }
+    }
+
+    /** Retries of a failed REST request, with exponential backoff (doubling up to {@code maxBackoff}). */
+    public static class Retry {
+        private int maxAttempts = 3;
+        private Duration initialBackoff = Duration.ofSeconds(1);
+        private Duration maxBackoff = Duration.ofSeconds(4);
+
+        public int getMaxAttempts() { return maxAttempts; }
+        public void setMaxAttempts(int maxAttempts) { this.maxAttempts = maxAttempts; }
+        public Duration getInitialBackoff() { return initialBackoff; }
+        public void setInitialBackoff(Duration initialBackoff) { this.initialBackoff = initialBackoff; }
+        public Duration getMaxBackoff() { return maxBackoff; }
+        public void setMaxBackoff(Duration maxBackoff) { this.maxBackoff = maxBackoff; }
+    }
+
+    public static final class RestSpec extends VendorSpec {
+        private String url;    // e.g., http://host/api/products
+        private Pagination pagination = new Pagination(); // strategy NONE = whole catalog in one response
+        private Http http = new Http();
+        private Retry retry = new Retry();
+        private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+        public String getUrl() { return url; }
+        public void setUrl(String url) { this.url = url; }
+        public Pagination getPagination() { return pagination; }
+        public void setPagination(Pagination pagination) { this.pagination = pagination; }
+        public Http getHttp() { return http; }
+        public void setHttp(Http http) { this.http = http; }
+        public Retry getRetry() { return retry; }
+        public void setRetry(Retry retry) { this.retry = retry; }
+        public CircuitBreaker getCircuitBreaker() { return circuitBreaker; }
+        public void setCircuitBreaker(CircuitBreaker circuitBreaker) { this.circuitBreaker = circuitBreaker; }
+    }
+
+    /**
+     * Inbox directory of a CSV vendor that drops files instead of overwriting one; each file is
+     * ingested once, as soon as it is complete, and then moved away.
+     */
+    public static class Watch {
+        private String dir;                // e.g., /data/vendor-c/inbox
+        private String pattern = "*.csv";  // glob of data files; write to another name (x.csv.tmp) and rename when done
+        private String doneSuffix;         // e.g., ".done": x.csv is only ready once x.csv.done exists
+        private String archiveDir;         // ingested files; <dir>/archive if unset
+        private String failedDir;          // files that could not be ingested; <dir>/failed if unset
+
+        public String getDir() { return dir; }
+        public void setDir(String dir) { this.dir = dir; }
+        public String getPattern() { return pattern; }
+        public void setPattern(String pattern) { this.pattern = pattern; }
+        public String getDoneSuffix() { return doneSuffix; }
+        public void setDoneSuffix(String doneSuffix) { this.doneSuffix = doneSuffix; }
+        public String getArchiveDir() { return archiveDir; }
+        public void setArchiveDir(String archiveDir) { this.archiveDir = archiveDir; }
+        public String getFailedDir() { return failedDir; }
+        public void setFailedDir(String failedDir) { this.failedDir = failedDir; }
+    }
+
+    public static final class CsvSpec extends VendorSpec {
         private String path;   // e.g., /tmp/vendor-b/stock.csv
-        private boolean enabled = true; // <--- NEW
+        private Watch watch;   // instead of path: ingest files dropped into a directory (not polled)
+        private boolean incremental = false; // skip unchanged files, emit only changed rows
+        private String indexDir;  // where the incremental digest index is persisted; in-memory if unset
+        private boolean trustModifiedTime = false; // skip on unchanged size + mtime without confirming with the CRC
+        private CsvVendorClient.ParserMode parser = CsvVendorClient.ParserMode.COMMONS; // MAPPED for very large files
 
-        public String getName() { return name; }
-        public void setName(String name) { this.name = name; }
         public String getPath() { return path; }
         public void setPath(String path) { this.path = path; }
-        public boolean isEnabled() { return enabled; }
-        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public Watch getWatch() { return watch; }
+        public void setWatch(Watch watch) { this.watch = watch; }
+        public boolean isIncremental() { return incremental; }
+        public void setIncremental(boolean incremental) { this.incremental = incremental; }
+        public String getIndexDir() { return indexDir; }
+        public void setIndexDir(String indexDir) { this.indexDir = indexDir; }
+        public boolean isTrustModifiedTime() { return trustModifiedTime; }
+        public void setTrustModifiedTime(boolean trustModifiedTime) { this.trustModifiedTime = trustModifiedTime; }
+        public CsvVendorClient.ParserMode getParser() { return parser; }
+        public void setParser(CsvVendorClient.ParserMode parser) { this.parser = parser; }
+    }
+
+    /** Vendor that is never polled and only pushes its updates. */
+    public static final class PushSpec extends VendorSpec {
     }
 }
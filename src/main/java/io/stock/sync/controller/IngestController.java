@@ -0,0 +1,150 @@
+package io.stock.sync.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.stock.sync.config.PersistentVendorRegistry;
+import io.stock.sync.service.PushIngestBuffer;
+import io.stock.sync.service.PushIngestBuffer.Offer;
+import io.stock.sync.service.dto.VendorProduct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Vendors push stock updates here instead of (or on top of) being polled. Every pushed row
+ * carries the sku's current name and absolute quantity, so resending a row is harmless. Rows go
+ * through {@link PushIngestBuffer} into the same upsert and stock-out detection as a sync.
+ *
+ * <p>Requests authenticate with {@code Authorization: Bearer <token>}, the vendor's push token
+ * from {@code POST /admin/vendors/{vendor}/push-token}, which only an operator holding the admin
+ * token can call. A {@code 200} means the rows are committed;
+ * on {@code 429} or {@code 503} nothing was confirmed and the request should be retried after
+ * {@code Retry-After} seconds. A {@code 202} means the rows are queued but did not commit within
+ * {@code ingest.commit-timeout}: they may still be applied, so the request must not be retried
+ * as is (a retry landing after a newer push would bring back the older quantity).
+ */
+@RestController
+@RequestMapping("/ingest/{vendor}/products")
+@ConditionalOnProperty(name = "ingest.enabled", matchIfMissing = true)
+public class IngestController {
+
+    /** One pushed row. */
+    public record PushedProduct(String sku, String name, Integer stockQuantity) {}
+
+    public record IngestResult(int accepted) {}
+
+    private final PersistentVendorRegistry registry;
+    private final PushIngestBuffer buffer;
+    private final ObjectMapper objectMapper;
+    private final int maxRequestRows;
+    private final Duration commitTimeout;
+
+    public IngestController(PersistentVendorRegistry registry,
+                            PushIngestBuffer buffer,
+                            ObjectMapper objectMapper,
+                            @Value("${ingest.max-request-rows:10000}") int maxRequestRows,
+                            @Value("${ingest.commit-timeout:30s}") Duration commitTimeout) {
+        this.registry = registry;
+        this.buffer = buffer;
+        this.objectMapper = objectMapper;
+        this.maxRequestRows = Math.min(maxRequestRows, buffer.maxPendingRows());
+        this.commitTimeout = commitTimeout;
+    }
+
+    /** A single sku: body {@code {"name": ..., "stockQuantity": ...}}. */
+    @PutMapping("/{sku}")
+    public ResponseEntity<IngestResult> one(@PathVariable("vendor") String vendor,
+                                            @PathVariable("sku") String sku,
+                                            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                            @RequestBody PushedProduct body) {
+        authorize(vendor, authorization);
+        return ingest(vendor, List.of(row(vendor, new PushedProduct(sku, body.name(), body.stockQuantity()), 1)));
+    }
+
+    /** A batch: one {@code {"sku": ..., "name": ..., "stockQuantity": ...}} object per line. */
+    @PostMapping(consumes = ProductController.NDJSON)
+    public ResponseEntity<IngestResult> batch(@PathVariable("vendor") String vendor,
+                                              @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                              InputStream body) throws IOException {
+        authorize(vendor, authorization);
+        List<VendorProduct> rows = new ArrayList<>();
+        try (MappingIterator<PushedProduct> lines = objectMapper.readerFor(PushedProduct.class).readValues(body)) {
+            while (lines.hasNextValue()) {
+                if (rows.size() == maxRequestRows) {
+                    throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                            "At most " + maxRequestRows + " rows per request");
+                }
+                rows.add(row(vendor, lines.nextValue(), rows.size() + 1));
+            }
+        } catch (JsonProcessingException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Malformed NDJSON at line " + e.getLocation().getLineNr() + ": " + e.getOriginalMessage());
+        }
+        if (rows.isEmpty()) return ResponseEntity.ok(new IngestResult(0));
+        return ingest(vendor, rows);
+    }
+
+    private ResponseEntity<IngestResult> ingest(String vendor, List<VendorProduct> rows) {
+        Offer offer = buffer.offer(vendor, rows);
+        switch (offer.status()) {
+            case BUFFER_FULL -> { return retryLater(HttpStatus.TOO_MANY_REQUESTS); }
+            case NOT_OWNER -> { return retryLater(HttpStatus.SERVICE_UNAVAILABLE); }   // another node holds the vendor
+            case ACCEPTED -> { }
+        }
+        try {
+            offer.committed().get(commitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            return retryLater(HttpStatus.SERVICE_UNAVAILABLE);   // rolled back, nothing was written
+        } catch (TimeoutException e) {
+            // still queued and may commit later, so the client must not resend these values
+            return ResponseEntity.accepted().body(new IngestResult(rows.size()));
+        } catch (InterruptedException e) {
+            // e.g. shutdown: this thread never saw the commit, so nothing is confirmed
+            Thread.currentThread().interrupt();
+            return retryLater(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        return ResponseEntity.ok(new IngestResult(rows.size()));
+    }
+
+    private void authorize(String vendor, String authorization) {
+        String token = authorization != null && authorization.regionMatches(true, 0, "Bearer ", 0, 7)
+                ? authorization.substring(7).trim() : null;
+        // unknown vendors get the same answer as a wrong token
+        if (!registry.acceptsPush(vendor, token)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid or missing push token");
+        }
+    }
+
+    private static VendorProduct row(String vendor, PushedProduct p, int line) {
+        if (p == null || p.sku() == null || p.sku().isBlank() || p.name() == null || p.name().isBlank()
+                || p.stockQuantity() == null || p.stockQuantity() < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Row " + line + ": sku, name and a non-negative stockQuantity are required");
+        }
+        return new VendorProduct(p.sku(), p.name(), p.stockQuantity(), vendor);
+    }
+
+    private static ResponseEntity<IngestResult> retryLater(HttpStatus status) {
+        return ResponseEntity.status(status).header(HttpHeaders.RETRY_AFTER, "1").build();
+    }
+}
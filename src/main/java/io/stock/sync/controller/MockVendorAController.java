@@ -2,10 +2,13 @@ package io.stock.sync.controller;
 
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.util.FileCopyUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
@@ -14,10 +17,28 @@ import java.nio.charset.StandardCharsets;
 @RequestMapping("/mock/vendor-a")
 public class MockVendorAController {
 
-    @GetMapping(value = "/products", produces = MediaType.APPLICATION_JSON_VALUE)
-    public String products() throws IOException {
+    // the sample is static, so one validator pair serves every request
+    private final String body;
+    private final String etag;
+    private final long lastModified;
+
+    public MockVendorAController() throws IOException {
         var res = new ClassPathResource("vendor-a-sample.json");
         byte[] bytes = FileCopyUtils.copyToByteArray(res.getInputStream());
-        return new String(bytes, StandardCharsets.UTF_8);
+        this.body = new String(bytes, StandardCharsets.UTF_8);
+        this.etag = "\"" + DigestUtils.md5DigestAsHex(bytes) + "\"";
+        this.lastModified = System.currentTimeMillis() / 1000 * 1000;
+    }
+
+    /** Honors If-None-Match / If-Modified-Since with a 304; gzip comes from server.compression. */
+    @GetMapping(value = "/products", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> products(WebRequest request) {
+        if (request.checkNotModified(etag, lastModified)) {
+            return null; // 304 already written
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .lastModified(lastModified)
+                .body(body);
     }
 }
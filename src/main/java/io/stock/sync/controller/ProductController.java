@@ -1,25 +1,127 @@
 package io.stock.sync.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.stock.sync.model.Product;
-import io.stock.sync.repository.ProductRepository;
+import io.stock.sync.repository.ProductFilter;
+import io.stock.sync.repository.ProductQueryRepository;
+import io.stock.sync.service.ProductReadCache;
+import io.stock.sync.service.QuantityChange;
+import io.stock.sync.service.StockHistoryService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.List;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/products")
 public class ProductController {
 
-    private final ProductRepository productRepository;
+    static final String NDJSON = "application/x-ndjson";
+    static final String NEXT_CURSOR = "X-Next-Cursor";
+    static final int DEFAULT_LIMIT = 100;
+    static final int MAX_LIMIT = 1000;
 
-    public ProductController(ProductRepository productRepository) {
-        this.productRepository = productRepository;
+    private final ProductQueryRepository productQueryRepository;
+    private final ProductReadCache productReadCache;
+    private final StockHistoryService historyService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public ProductController(ProductQueryRepository productQueryRepository, ProductReadCache productReadCache,
+                             StockHistoryService historyService, ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager) {
+        this.productQueryRepository = productQueryRepository;
+        this.productReadCache = productReadCache;
+        this.historyService = historyService;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
+    /**
+     * Keyset-paginated products ordered by id, served from {@link ProductReadCache}. The body is the
+     * page's array; unless this is the last page, the {@value #NEXT_CURSOR} header holds the
+     * {@code cursor} that fetches the next one.
+     */
     @GetMapping
-    public List<Product> all() {
-        return productRepository.findAll();
+    public ResponseEntity<List<Product>> all(@RequestParam(name = "vendor", required = false) String vendor,
+                           @RequestParam(name = "skuPrefix", required = false) String skuPrefix,
+                           @RequestParam(name = "zeroStock", required = false) Boolean zeroStock,
+                           @RequestParam(name = "updatedSince", required = false)
+                           @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime updatedSince,
+                           @RequestParam(name = "cursor", required = false) Long cursor,
+                           @RequestParam(name = "limit", defaultValue = "" + DEFAULT_LIMIT) int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_LIMIT);
+        }
+        ProductFilter filter = new ProductFilter(vendor, skuPrefix, zeroStock, updatedSince);
+        List<Product> items = productReadCache.page(filter, cursor, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (items.size() == limit) response.header(NEXT_CURSOR, String.valueOf(items.get(items.size() - 1).getId()));
+        return response.body(items);
+    }
+
+    @GetMapping("/{vendor}/{sku}")
+    public Product one(@PathVariable("vendor") String vendor, @PathVariable("sku") String sku) {
+        return productReadCache.product(vendor, sku)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No product " + sku + " for " + vendor));
+    }
+
+    /** Quantity changes of one product in [from, to), oldest first; defaults to the last 7 days. */
+    @GetMapping("/{vendor}/{sku}/history")
+    public List<QuantityChange> history(@PathVariable("vendor") String vendor, @PathVariable("sku") String sku,
+                                        @RequestParam(name = "from", required = false)
+                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+                                        @RequestParam(name = "to", required = false)
+                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to) {
+        OffsetDateTime end = to != null ? to : OffsetDateTime.now(ZoneOffset.UTC);
+        OffsetDateTime start = from != null ? from : end.minus(Duration.ofDays(7));
+        return historyService.history(vendor, sku, start, end);
+    }
+
+    /** All matching products as newline-delimited JSON, streamed from a DB cursor. */
+    @GetMapping(value = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(name = "vendor", required = false) String vendor,
+                                                        @RequestParam(name = "skuPrefix", required = false) String skuPrefix,
+                                                        @RequestParam(name = "zeroStock", required = false) Boolean zeroStock,
+                                                        @RequestParam(name = "updatedSince", required = false)
+                                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime updatedSince) {
+        ProductFilter filter = new ProductFilter(vendor, skuPrefix, zeroStock, updatedSince);
+        StreamingResponseBody body = out -> readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<Product> products = productQueryRepository.streamAll(filter)) {
+                writeLines(products, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    private void writeLines(Stream<Product> products, OutputStream out) throws IOException {
+        OutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+        for (Product p : (Iterable<Product>) products::iterator) {
+            buffered.write(objectMapper.writeValueAsBytes(p));
+            buffered.write('\n');
+        }
+        buffered.flush();
     }
 }
@@ -0,0 +1,105 @@
+package io.stock.sync.controller;
+
+import io.stock.sync.model.StockOutCount.Granularity;
+import io.stock.sync.model.StockOutEvent;
+import io.stock.sync.repository.StockOutCountRepository;
+import io.stock.sync.repository.StockOutCountRepository.Bucket;
+import io.stock.sync.repository.StockOutEventQueryRepository;
+import io.stock.sync.repository.StockOutEventQueryRepository.Cursor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+
+@RestController
+@RequestMapping("/stock-out-events")
+public class StockOutEventController {
+
+    static final int DEFAULT_LIMIT = 100;
+    static final int MAX_LIMIT = 1000;
+    static final int MAX_BUCKETS = 10_000;
+
+    private final StockOutEventQueryRepository eventQueryRepository;
+    private final StockOutCountRepository countRepository;
+
+    public StockOutEventController(StockOutEventQueryRepository eventQueryRepository,
+                                   StockOutCountRepository countRepository) {
+        this.eventQueryRepository = eventQueryRepository;
+        this.countRepository = countRepository;
+    }
+
+    /** One page of events. */
+    public record EventPage(List<StockOutEvent> items, String nextCursor) {}
+
+    /**
+     * Events newest first, optionally by vendor, sku and time window ({@code from} inclusive,
+     * {@code to} exclusive). Pass the returned {@code nextCursor} as {@code cursor} for the next page.
+     */
+    @GetMapping
+    public EventPage events(@RequestParam(name = "vendor", required = false) String vendor,
+                            @RequestParam(name = "sku", required = false) String sku,
+                            @RequestParam(name = "from", required = false)
+                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+                            @RequestParam(name = "to", required = false)
+                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+                            @RequestParam(name = "cursor", required = false) String cursor,
+                            @RequestParam(name = "limit", defaultValue = "" + DEFAULT_LIMIT) int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_LIMIT);
+        }
+        var filter = new StockOutEventQueryRepository.Filter(vendor, sku, from, to);
+        List<StockOutEvent> items = eventQueryRepository.findPage(filter, decode(cursor), limit);
+        String next = null;
+        if (items.size() == limit) {
+            StockOutEvent last = items.get(items.size() - 1);
+            next = encode(new Cursor(last.getOccurredAt(), last.getId()));
+        }
+        return new EventPage(items, next);
+    }
+
+    /**
+     * Pre-aggregated stock-out counts per vendor and UTC hour or day, oldest bucket first.
+     * Defaults to the last 7 days.
+     */
+    @GetMapping("/counts")
+    public List<Bucket> counts(@RequestParam(name = "granularity", defaultValue = "HOUR") Granularity granularity,
+                               @RequestParam(name = "vendor", required = false) String vendor,
+                               @RequestParam(name = "from", required = false)
+                               @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+                               @RequestParam(name = "to", required = false)
+                               @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to) {
+        OffsetDateTime end = to != null ? to : OffsetDateTime.now(ZoneOffset.UTC);
+        OffsetDateTime start = from != null ? from : end.minus(Duration.ofDays(7));
+        return countRepository.find(granularity, vendor, start, end, MAX_BUCKETS);
+    }
+
+    // cursor = base64url("<occurredAt instant>|<id>"); opaque to clients
+    private static String encode(Cursor cursor) {
+        String raw = cursor.occurredAt().toInstant() + "|" + cursor.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            return new Cursor(Instant.parse(raw.substring(0, sep)).atOffset(ZoneOffset.UTC),
+                    Long.parseLong(raw.substring(sep + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+}
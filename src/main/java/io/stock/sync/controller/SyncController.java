@@ -0,0 +1,45 @@
+package io.stock.sync.controller;
+
+import io.stock.sync.scheduler.SyncScheduler;
+import io.stock.sync.scheduler.SyncScheduler.VendorStatus;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+/** Schedule state is public; the manual trigger writes, so it sits under the admin token's {@code /admin/**}. */
+@RestController
+public class SyncController {
+
+    private final SyncScheduler syncScheduler;
+
+    public SyncController(SyncScheduler syncScheduler) {
+        this.syncScheduler = syncScheduler;
+    }
+
+    /** Schedule state of every vendor: current interval, last outcome, next planned run. */
+    @GetMapping("/sync/vendors")
+    public List<VendorStatus> vendors() {
+        return syncScheduler.status();
+    }
+
+    /**
+     * Syncs the vendor now, in the background. 202 once started, 409 if a sync of the vendor is
+     * already running or (clustered) the vendor belongs to another node, 404 for an unknown vendor.
+     * The vendor's regular schedule is not moved.
+     */
+    @PostMapping("/admin/sync/vendors/{vendor}")
+    public ResponseEntity<Void> trigger(@PathVariable("vendor") String vendor) {
+        return switch (syncScheduler.trigger(vendor)) {
+            case STARTED -> ResponseEntity.accepted().build();
+            case ALREADY_RUNNING -> throw new ResponseStatusException(HttpStatus.CONFLICT, "Sync of " + vendor + " is already running");
+            case OWNED_ELSEWHERE -> throw new ResponseStatusException(HttpStatus.CONFLICT, vendor + " is synced by another node");
+            case UNKNOWN_VENDOR -> throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown vendor " + vendor);
+        };
+    }
+}
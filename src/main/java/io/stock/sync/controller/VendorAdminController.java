@@ -0,0 +1,150 @@
+package io.stock.sync.controller;
+
+import io.stock.sync.config.PersistentVendorRegistry;
+import io.stock.sync.config.PersistentVendorRegistry.Definition;
+import io.stock.sync.config.VendorsProperties.CsvSpec;
+import io.stock.sync.config.VendorsProperties.VendorSpec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Runtime vendor management. Changes are stored in {@code vendor_configs} and apply to this node
+ * immediately, to other nodes within {@code vendors.registry.refresh-interval}; a vendor's next
+ * sync uses the new configuration. Every request needs the admin token (see
+ * {@link io.stock.sync.config.AdminAuthConfig}). Files a CSV vendor reads or writes must lie under
+ * {@code admin.csv-base-dir}; without it, CSV vendors cannot be registered here.
+ */
+@RestController
+@RequestMapping("/admin/vendors")
+public class VendorAdminController {
+
+    private final PersistentVendorRegistry registry;
+    private final Path csvBaseDir;   // null = no CSV vendors through this API
+
+    public VendorAdminController(PersistentVendorRegistry registry,
+                                 @Value("${admin.csv-base-dir:}") String csvBaseDir) {
+        this.registry = registry;
+        this.csvBaseDir = csvBaseDir.isBlank() ? null : Path.of(csvBaseDir).toAbsolutePath().normalize();
+    }
+
+    /** Every stored vendor, enabled or not; {@code active} = its current version is being synced. */
+    @GetMapping
+    public List<Definition> list() {
+        return registry.definitions();
+    }
+
+    @GetMapping("/{vendor}")
+    public Definition get(@PathVariable("vendor") String vendor) {
+        return registry.definition(vendor).orElseThrow(() -> notFound(vendor));
+    }
+
+    /**
+     * Creates or replaces a vendor. The body is a spec with {@code "type": "REST"}, {@code "CSV"}
+     * (same fields as {@code vendors.rest[]} / {@code vendors.csv[]}) or {@code "PUSH"} (push only);
+     * the name comes from the path. A push token set earlier is kept unless the body replaces it.
+     */
+    @PutMapping("/{vendor}")
+    public Definition put(@PathVariable("vendor") String vendor, @RequestBody VendorSpec spec) {
+        if (spec instanceof CsvSpec csv) checkPaths(csv);
+        try {
+            return registry.put(vendor, spec);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, vendor + " was changed concurrently, retry");
+        }
+    }
+
+    @PostMapping("/{vendor}/enable")
+    public ResponseEntity<Void> enable(@PathVariable("vendor") String vendor) {
+        return setEnabled(vendor, true);
+    }
+
+    @PostMapping("/{vendor}/disable")
+    public ResponseEntity<Void> disable(@PathVariable("vendor") String vendor) {
+        return setEnabled(vendor, false);
+    }
+
+    /** Removes the vendor's configuration; its products and stock-out history stay. */
+    @DeleteMapping("/{vendor}")
+    public ResponseEntity<Void> delete(@PathVariable("vendor") String vendor) {
+        if (!registry.delete(vendor)) throw notFound(vendor);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Issues a new push token for {@code /ingest/{vendor}}, invalidating the previous one. Returned
+     * once as {@code {"token": ...}}; only its hash is stored.
+     */
+    @PostMapping("/{vendor}/push-token")
+    public Map<String, String> issuePushToken(@PathVariable("vendor") String vendor) {
+        return registry.issuePushToken(vendor).map(token -> Map.of("token", token)).orElseThrow(() -> notFound(vendor));
+    }
+
+    @DeleteMapping("/{vendor}/push-token")
+    public ResponseEntity<Void> revokePushToken(@PathVariable("vendor") String vendor) {
+        if (!registry.revokePushToken(vendor)) throw notFound(vendor);
+        return ResponseEntity.noContent().build();
+    }
+
+    /** Re-reads {@code vendor_configs} now, e.g. after editing it directly; returns the vendors that changed. */
+    @PostMapping("/reload")
+    public Set<String> reload() {
+        return registry.refresh();
+    }
+
+    private ResponseEntity<Void> setEnabled(String vendor, boolean enabled) {
+        try {
+            if (!registry.setEnabled(vendor, enabled)) throw notFound(vendor);
+        } catch (OptimisticLockingFailureException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, vendor + " was changed concurrently, retry");
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    private void checkPaths(CsvSpec spec) {
+        List<String> paths = new ArrayList<>();
+        paths.add(spec.getPath());
+        paths.add(spec.getIndexDir());
+        if (spec.getWatch() != null) {
+            paths.add(spec.getWatch().getDir());
+            paths.add(spec.getWatch().getArchiveDir());
+            paths.add(spec.getWatch().getFailedDir());
+        }
+        for (String p : paths) {
+            if (p == null) continue;
+            Path path;
+            try {
+                path = Path.of(p).toAbsolutePath().normalize();
+            } catch (InvalidPathException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid path " + p);
+            }
+            if (csvBaseDir == null || !path.startsWith(csvBaseDir)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        p + " is outside admin.csv-base-dir" + (csvBaseDir == null ? " (not set)" : " " + csvBaseDir));
+            }
+        }
+    }
+
+    private static ResponseStatusException notFound(String vendor) {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown vendor " + vendor);
+    }
+}
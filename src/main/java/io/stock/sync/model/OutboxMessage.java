@@ -0,0 +1,66 @@
+package io.stock.sync.model;
+
+import jakarta.persistence.*;
+import java.time.OffsetDateTime;
+
+/**
+ * A stock-out notification waiting to be delivered to the outbox subscribers. Written in the
+ * same transaction as its {@link StockOutEvent} and deleted once every subscriber accepted it.
+ */
+@Entity
+@Table(name = "stock_out_outbox", indexes = {
+        @Index(name = "idx_outbox_due", columnList = "nextAttemptAt,id")
+})
+public class OutboxMessage {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_out_outbox_seq")
+    @SequenceGenerator(name = "stock_out_outbox_seq", sequenceName = "stock_out_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long eventId;
+
+    @Column(nullable = false)
+    private String sku;
+
+    @Column(nullable = false)
+    private String vendor;
+
+    @Column(nullable = false)
+    private Integer previousQuantity;
+
+    @Column(nullable = false)
+    private OffsetDateTime occurredAt;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(nullable = false)
+    private OffsetDateTime nextAttemptAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    public OutboxMessage() {}
+
+    public static OutboxMessage of(StockOutEvent event) {
+        OutboxMessage m = new OutboxMessage();
+        m.eventId = event.getId();
+        m.sku = event.getSku();
+        m.vendor = event.getVendor();
+        m.previousQuantity = event.getPreviousQuantity();
+        m.occurredAt = event.getOccurredAt();
+        m.nextAttemptAt = event.getOccurredAt();
+        return m;
+    }
+
+    public Long getId() { return id; }
+    public Long getEventId() { return eventId; }
+    public String getSku() { return sku; }
+    public String getVendor() { return vendor; }
+    public Integer getPreviousQuantity() { return previousQuantity; }
+    public OffsetDateTime getOccurredAt() { return occurredAt; }
+    public int getAttempts() { return attempts; }
+    public OffsetDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public String getLastError() { return lastError; }
+}
@@ -7,6 +7,10 @@ import java.util.Objects;
 @Entity
 @Table(name = "products", uniqueConstraints = {
         @UniqueConstraint(name = "uk_sku_vendor", columnNames = {"sku", "vendor"})
+}, indexes = {
+        // keyset pages of GET /products, filtered by vendor / updatedAt
+        @Index(name = "idx_products_vendor_id", columnList = "vendor, id"),
+        @Index(name = "idx_products_updated_at", columnList = "updatedAt")
 })
 public class Product {
     @Id
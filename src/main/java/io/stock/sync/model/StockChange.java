@@ -0,0 +1,42 @@
+package io.stock.sync.model;
+
+import jakarta.persistence.*;
+import java.time.OffsetDateTime;
+
+/**
+ * One quantity change as written by a sync (append-only). Rows are folded into
+ * {@link StockHistoryBlock}s in the background and then deleted.
+ */
+@Entity
+@Table(name = "stock_changes", indexes = {
+        @Index(name = "idx_changes_vendor_sku_time", columnList = "vendor,sku,changedAt"),
+        @Index(name = "idx_changes_time", columnList = "changedAt")
+})
+public class StockChange {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String vendor;
+
+    @Column(nullable = false)
+    private String sku;
+
+    @Column(nullable = false)
+    private OffsetDateTime changedAt;
+
+    private Integer oldQuantity;     // null when the product was first inserted
+
+    @Column(nullable = false)
+    private Integer newQuantity;
+
+    public StockChange() {}
+
+    public Long getId() { return id; }
+    public String getVendor() { return vendor; }
+    public String getSku() { return sku; }
+    public OffsetDateTime getChangedAt() { return changedAt; }
+    public Integer getOldQuantity() { return oldQuantity; }
+    public Integer getNewQuantity() { return newQuantity; }
+}
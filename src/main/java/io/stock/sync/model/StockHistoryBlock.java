@@ -0,0 +1,74 @@
+package io.stock.sync.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Objects;
+
+/**
+ * All quantity changes of one sku on one UTC day ({@code bucketDay}), delta-encoded into {@code payload}
+ * (see {@code StockHistoryCodec}). One row per (vendor, sku, day) instead of one per change.
+ */
+@Entity
+@Table(name = "stock_history_blocks", indexes = {
+        @Index(name = "idx_blocks_day", columnList = "bucketDay")
+})
+@IdClass(StockHistoryBlock.Key.class)
+public class StockHistoryBlock {
+
+    @Id
+    private String vendor;
+
+    @Id
+    private String sku;
+
+    @Id
+    private LocalDate bucketDay;
+
+    @Column(nullable = false)
+    private int changeCount;
+
+    @Column(nullable = false)
+    private OffsetDateTime firstAt;
+
+    @Column(nullable = false)
+    private OffsetDateTime lastAt;
+
+    @JdbcTypeCode(SqlTypes.VARBINARY)
+    @Column(nullable = false, length = 1_048_576)
+    private byte[] payload;
+
+    public StockHistoryBlock() {}
+
+    public String getVendor() { return vendor; }
+    public String getSku() { return sku; }
+    public LocalDate getBucketDay() { return bucketDay; }
+    public int getChangeCount() { return changeCount; }
+    public OffsetDateTime getFirstAt() { return firstAt; }
+    public OffsetDateTime getLastAt() { return lastAt; }
+    public byte[] getPayload() { return payload; }
+
+    public static class Key implements Serializable {
+        private String vendor;
+        private String sku;
+        private LocalDate bucketDay;
+
+        public Key() {}
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key k)) return false;
+            return Objects.equals(vendor, k.vendor) && Objects.equals(sku, k.sku) && Objects.equals(bucketDay, k.bucketDay);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(vendor, sku, bucketDay);
+        }
+    }
+}
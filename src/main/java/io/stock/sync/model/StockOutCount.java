@@ -0,0 +1,63 @@
+package io.stock.sync.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+import java.util.Objects;
+
+/**
+ * Number of stock-out events of one vendor in one UTC hour or day. Maintained incrementally by the
+ * sync in the same transaction as the events, so dashboards never have to count events.
+ */
+@Entity
+@Table(name = "stock_out_counts", indexes = {
+        // all-vendor ranges; single-vendor ranges use the primary key (vendor, granularity, bucketStart)
+        @Index(name = "idx_counts_granularity_bucket", columnList = "granularity,bucketStart")
+})
+@IdClass(StockOutCount.Key.class)
+public class StockOutCount {
+
+    public enum Granularity { HOUR, DAY }
+
+    @Id
+    private String vendor;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 8)
+    private Granularity granularity;
+
+    @Id
+    private OffsetDateTime bucketStart;
+
+    @Column(name = "event_count", nullable = false)
+    private long eventCount;
+
+    public StockOutCount() {}
+
+    public String getVendor() { return vendor; }
+    public Granularity getGranularity() { return granularity; }
+    public OffsetDateTime getBucketStart() { return bucketStart; }
+    public long getEventCount() { return eventCount; }
+
+    public static class Key implements Serializable {
+        private String vendor;
+        private Granularity granularity;
+        private OffsetDateTime bucketStart;
+
+        public Key() {}
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key k)) return false;
+            return Objects.equals(vendor, k.vendor) && granularity == k.granularity
+                    && Objects.equals(bucketStart, k.bucketStart);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(vendor, granularity, bucketStart);
+        }
+    }
+}
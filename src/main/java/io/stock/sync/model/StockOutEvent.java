@@ -6,11 +6,16 @@ import java.time.OffsetDateTime;
 
 @Entity
 @Table(name = "stock_out_events", indexes = {
-        @Index(name = "idx_sku_vendor_time", columnList = "sku,vendor,occurredAt")
+        @Index(name = "idx_sku_vendor_time", columnList = "sku,vendor,occurredAt"),
+        // keyset pages of GET /stock-out-events by vendor and/or time window
+        @Index(name = "idx_vendor_time", columnList = "vendor,occurredAt,id"),
+        @Index(name = "idx_time", columnList = "occurredAt,id")
 })
 public class StockOutEvent {
+    // pooled sequence: ids are assigned without a round trip per row, so inserts can be JDBC-batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_out_events_seq")
+    @SequenceGenerator(name = "stock_out_events_seq", sequenceName = "stock_out_events_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
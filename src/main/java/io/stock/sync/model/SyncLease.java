@@ -0,0 +1,30 @@
+package io.stock.sync.model;
+
+import jakarta.persistence.*;
+import java.time.OffsetDateTime;
+
+/**
+ * Exclusive, expiring claim of one node on a named resource: {@code vendor:<name>} for the right
+ * to sync a vendor, {@code leader} for the cluster-wide jobs (outbox relay, history compaction).
+ * The owner renews it with every heartbeat; once expired any node may take it over.
+ */
+@Entity
+@Table(name = "sync_leases", indexes = {
+        @Index(name = "idx_leases_owner", columnList = "ownerNode")
+})
+public class SyncLease {
+    @Id
+    private String name;
+
+    @Column(nullable = false)
+    private String ownerNode;
+
+    @Column(nullable = false)
+    private OffsetDateTime expiresAt;
+
+    public SyncLease() {}
+
+    public String getName() { return name; }
+    public String getOwnerNode() { return ownerNode; }
+    public OffsetDateTime getExpiresAt() { return expiresAt; }
+}
@@ -0,0 +1,21 @@
+package io.stock.sync.model;
+
+import jakarta.persistence.*;
+import java.time.OffsetDateTime;
+
+/** A service instance taking part in clustered sync; alive while its heartbeat is recent. */
+@Entity
+@Table(name = "sync_nodes")
+public class SyncNode {
+    @Id
+    @Column(name = "node_id")
+    private String nodeId;
+
+    @Column(nullable = false)
+    private OffsetDateTime heartbeatAt;
+
+    public SyncNode() {}
+
+    public String getNodeId() { return nodeId; }
+    public OffsetDateTime getHeartbeatAt() { return heartbeatAt; }
+}
@@ -0,0 +1,52 @@
+package io.stock.sync.model;
+
+import jakarta.persistence.*;
+import java.time.OffsetDateTime;
+
+/**
+ * Runtime configuration of one vendor, edited through {@code /admin/vendors}. {@code spec} is the
+ * vendor's {@code VendorsProperties.VendorSpec} as JSON; {@code version} goes up with every change,
+ * which is how each node notices that it has to rebuild the vendor's client. The push token hash
+ * is kept in its own column and changed without a version bump, since it plays no part in fetching.
+ */
+@Entity
+@Table(name = "vendor_configs")
+public class VendorConfig {
+    @Id
+    private String name;
+
+    @Column(nullable = false)
+    private boolean enabled;
+
+    @Column(nullable = false, length = 8192)
+    private String spec;
+
+    @Column(length = 64)
+    private String pushTokenSha256;
+
+    @Version
+    private Long version;
+
+    @Column(nullable = false)
+    private OffsetDateTime updatedAt;
+
+    public VendorConfig() {}
+
+    public VendorConfig(String name, boolean enabled, String spec, OffsetDateTime updatedAt) {
+        this.name = name;
+        this.enabled = enabled;
+        this.spec = spec;
+        this.updatedAt = updatedAt;
+    }
+
+    public String getName() { return name; }
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public String getSpec() { return spec; }
+    public void setSpec(String spec) { this.spec = spec; }
+    public String getPushTokenSha256() { return pushTokenSha256; }
+    public void setPushTokenSha256(String pushTokenSha256) { this.pushTokenSha256 = pushTokenSha256; }
+    public Long getVersion() { return version; }
+    public OffsetDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(OffsetDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,107 @@
+package io.stock.sync.repository;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Node heartbeats ({@code sync_nodes}) and leases ({@code sync_leases}) for clustered sync. All
+ * times come from {@link #now()}, the database clock, so node clock skew does not matter.
+ */
+@Repository
+public class ClusterRepository {
+
+    // standard MERGE: H2 and PostgreSQL 15+
+    private static final String HEARTBEAT = """
+            MERGE INTO sync_nodes t
+            USING (VALUES (CAST(? AS VARCHAR(255)), CAST(? AS TIMESTAMP WITH TIME ZONE))) AS s(node_id, heartbeat_at)
+            ON t.node_id = s.node_id
+            WHEN MATCHED THEN UPDATE SET heartbeat_at = s.heartbeat_at
+            WHEN NOT MATCHED THEN INSERT (node_id, heartbeat_at) VALUES (s.node_id, s.heartbeat_at)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ClusterRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public OffsetDateTime now() {
+        return jdbcTemplate.queryForObject("SELECT CURRENT_TIMESTAMP", OffsetDateTime.class);
+    }
+
+    public void heartbeat(String node, OffsetDateTime at) {
+        jdbcTemplate.update(HEARTBEAT, node, at);
+    }
+
+    /** Nodes that sent a heartbeat at or after {@code since}, ordered by id. */
+    public List<String> liveNodes(OffsetDateTime since) {
+        return jdbcTemplate.queryForList(
+                "SELECT node_id FROM sync_nodes WHERE heartbeat_at >= ? ORDER BY node_id", String.class, since);
+    }
+
+    public void deleteNode(String node) {
+        jdbcTemplate.update("DELETE FROM sync_nodes WHERE node_id = ?", node);
+    }
+
+    public int deleteNodesBefore(OffsetDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM sync_nodes WHERE heartbeat_at < ?", cutoff);
+    }
+
+    /**
+     * Takes or renews the lease if it is free, expired or already ours. Atomic: the conditional
+     * UPDATE and the primary key on INSERT make sure only one node wins a race.
+     */
+    public boolean tryAcquire(String name, String node, OffsetDateTime now, OffsetDateTime expiresAt) {
+        int updated = jdbcTemplate.update(
+                "UPDATE sync_leases SET owner_node = ?, expires_at = ? WHERE name = ? AND (owner_node = ? OR expires_at < ?)",
+                node, expiresAt, name, node, now);
+        if (updated == 1) return true;
+        try {
+            jdbcTemplate.update("INSERT INTO sync_leases (name, owner_node, expires_at) VALUES (?, ?, ?)",
+                    name, node, expiresAt);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;   // held by a live owner
+        }
+    }
+
+    /** Extends every lease the node holds. */
+    public int renewAll(String node, OffsetDateTime expiresAt) {
+        return jdbcTemplate.update("UPDATE sync_leases SET expires_at = ? WHERE owner_node = ?", expiresAt, node);
+    }
+
+    public void release(String name, String node) {
+        jdbcTemplate.update("DELETE FROM sync_leases WHERE name = ? AND owner_node = ?", name, node);
+    }
+
+    public void releaseAll(String node) {
+        jdbcTemplate.update("DELETE FROM sync_leases WHERE owner_node = ?", node);
+    }
+
+    /** Names of the leases the node holds whose name starts with {@code prefix}. */
+    public List<String> leasesOf(String node, String prefix) {
+        return jdbcTemplate.queryForList("SELECT name FROM sync_leases WHERE owner_node = ? AND name LIKE ?",
+                String.class, node, prefix + "%");
+    }
+
+    /** Current unexpired owner, or null. */
+    public String owner(String name, OffsetDateTime now) {
+        List<String> owners = jdbcTemplate.queryForList(
+                "SELECT owner_node FROM sync_leases WHERE name = ? AND expires_at >= ?", String.class, name, now);
+        return owners.isEmpty() ? null : owners.get(0);
+    }
+
+    /**
+     * Owner of the lease, locking its row until the current transaction ends, so no other node can
+     * take the lease over before this transaction has committed. Null if there is no lease.
+     */
+    public String lockOwner(String name) {
+        List<String> owners = jdbcTemplate.queryForList(
+                "SELECT owner_node FROM sync_leases WHERE name = ? FOR UPDATE", String.class, name);
+        return owners.isEmpty() ? null : owners.get(0);
+    }
+}
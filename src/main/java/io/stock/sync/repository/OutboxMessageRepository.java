@@ -0,0 +1,24 @@
+package io.stock.sync.repository;
+
+import io.stock.sync.model.OutboxMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    @Query("select m from OutboxMessage m where m.nextAttemptAt <= :now order by m.id")
+    List<OutboxMessage> findDue(@Param("now") OffsetDateTime now, Pageable page);
+
+    @Transactional
+    @Modifying
+    @Query("update OutboxMessage m set m.attempts = m.attempts + 1, m.nextAttemptAt = :next, m.lastError = :error where m.id in :ids")
+    int markFailed(@Param("ids") Collection<Long> ids, @Param("next") OffsetDateTime next, @Param("error") String error);
+}
@@ -0,0 +1,9 @@
+package io.stock.sync.repository;
+
+import java.time.OffsetDateTime;
+
+/** Optional criteria for listing products; null fields do not filter. */
+public record ProductFilter(String vendor, String skuPrefix, Boolean zeroStock, OffsetDateTime updatedSince) {
+
+    public static final ProductFilter NONE = new ProductFilter(null, null, null, null);
+}
@@ -0,0 +1,103 @@
+package io.stock.sync.repository;
+
+import io.stock.sync.service.dto.VendorProduct;
+import jakarta.persistence.EntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Set-based access to the products table for the sync hot path.
+ * Reads and writes whole chunks at once instead of one entity per row.
+ */
+@Repository
+public class ProductJdbcRepository {
+
+    private static final String SELECT_STATE =
+            "SELECT sku, name, stock_quantity FROM products WHERE vendor = :vendor AND sku IN (:skus)";
+    private static final String SELECT_VENDOR_STATE =
+            "SELECT sku, name, stock_quantity FROM products WHERE vendor = ?";
+    private static final String INSERT =
+            "INSERT INTO products (sku, name, stock_quantity, vendor, updated_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String UPDATE =
+            "UPDATE products SET name = ?, stock_quantity = ?, updated_at = ? WHERE sku = ? AND vendor = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final EntityManager entityManager;
+
+    public ProductJdbcRepository(JdbcTemplate jdbcTemplate, EntityManager entityManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.entityManager = entityManager;
+    }
+
+    /** The columns a sync compares against; everything else is derived. */
+    public record StoredProduct(String name, Integer stockQuantity) {}
+
+    /**
+     * Stored name and quantity keyed by sku for the given skus of one vendor.
+     * Skus without a row are absent from the result.
+     */
+    public Map<String, StoredProduct> findStored(String vendor, Collection<String> skus) {
+        Map<String, StoredProduct> result = new HashMap<>(skus.size() * 2);
+        if (skus.isEmpty()) return result;
+        // make pending JPA changes visible to the plain JDBC read
+        entityManager.flush();
+        var params = new MapSqlParameterSource()
+                .addValue("vendor", vendor)
+                .addValue("skus", skus);
+        namedJdbcTemplate.query(SELECT_STATE, params, rs -> {
+            result.put(rs.getString(1), new StoredProduct(rs.getString(2), (Integer) rs.getObject(3)));
+        });
+        return result;
+    }
+
+    /** Committed name and quantity of every sku of one vendor; reads outside any sync transaction. */
+    public Map<String, StoredProduct> findAllStored(String vendor) {
+        Map<String, StoredProduct> result = new HashMap<>();
+        jdbcTemplate.query(SELECT_VENDOR_STATE, rs -> {
+            result.put(rs.getString(1), new StoredProduct(rs.getString(2), (Integer) rs.getObject(3)));
+        }, vendor);
+        return result;
+    }
+
+    public void insertAll(List<VendorProduct> products, OffsetDateTime now) {
+        if (products.isEmpty()) return;
+        jdbcTemplate.batchUpdate(INSERT, products, products.size(), (ps, vp) -> {
+            ps.setString(1, vp.sku());
+            ps.setString(2, vp.name());
+            ps.setObject(3, vp.stockQuantity(), Types.INTEGER);
+            ps.setString(4, vp.vendor());
+            ps.setObject(5, now);
+        });
+    }
+
+    public void updateAll(List<VendorProduct> products, OffsetDateTime now) {
+        if (products.isEmpty()) return;
+        jdbcTemplate.batchUpdate(UPDATE, products, products.size(), (ps, vp) -> {
+            ps.setString(1, vp.name());
+            ps.setObject(2, vp.stockQuantity(), Types.INTEGER);
+            ps.setObject(3, now);
+            ps.setString(4, vp.sku());
+            ps.setString(5, vp.vendor());
+        });
+    }
+
+    /**
+     * Flushes and empties the persistence context. Bulk DML bypasses it, so managed entities would
+     * be stale afterwards; clearing per chunk also keeps it from growing over a long sync.
+     */
+    public void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
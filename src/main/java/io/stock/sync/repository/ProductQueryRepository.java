@@ -0,0 +1,95 @@
+package io.stock.sync.repository;
+
+import io.stock.sync.model.Product;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Read side of the products API: keyset pages ordered by id and a cursor-backed stream for exports.
+ * Neither ever materializes more than one page of the table.
+ */
+@Repository
+public class ProductQueryRepository {
+
+    private static final String COLUMNS = "SELECT id, sku, name, stock_quantity, vendor, updated_at FROM products";
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
+    private static final RowMapper<Product> ROW_MAPPER = (rs, i) -> {
+        Product p = new Product(rs.getString(2), rs.getString(3), (Integer) rs.getObject(4), rs.getString(5));
+        p.setId(rs.getLong(1));
+        p.setUpdatedAt(rs.getObject(6, OffsetDateTime.class));
+        return p;
+    };
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final NamedParameterJdbcTemplate exportJdbcTemplate;
+
+    public ProductQueryRepository(JdbcTemplate jdbcTemplate) {
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        // separate template so the fetch size does not leak into other users of the shared bean
+        JdbcTemplate export = new JdbcTemplate(jdbcTemplate.getDataSource());
+        export.setFetchSize(EXPORT_FETCH_SIZE);
+        this.exportJdbcTemplate = new NamedParameterJdbcTemplate(export);
+    }
+
+    public Optional<Product> findOne(String vendor, String sku) {
+        var params = new MapSqlParameterSource().addValue("vendor", vendor).addValue("sku", sku);
+        return namedJdbcTemplate.query(COLUMNS + " WHERE vendor = :vendor AND sku = :sku", params, ROW_MAPPER)
+                .stream().findFirst();
+    }
+
+    /** Up to {@code limit} products with id greater than {@code afterId} (null = from the start), by id. */
+    public List<Product> findPage(ProductFilter filter, Long afterId, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        StringBuilder sql = where(filter, params);
+        if (afterId != null) {
+            sql.append(" AND id > :afterId");
+            params.addValue("afterId", afterId);
+        }
+        sql.append(" ORDER BY id LIMIT :limit");
+        params.addValue("limit", limit);
+        return namedJdbcTemplate.query(sql.toString(), params, ROW_MAPPER);
+    }
+
+    /**
+     * Every matching product by id, read through a DB cursor. Must be consumed and closed inside a
+     * transaction (PostgreSQL only honors the fetch size with auto-commit off).
+     */
+    public Stream<Product> streamAll(ProductFilter filter) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        StringBuilder sql = where(filter, params).append(" ORDER BY id");
+        return exportJdbcTemplate.queryForStream(sql.toString(), params, ROW_MAPPER);
+    }
+
+    private static StringBuilder where(ProductFilter filter, MapSqlParameterSource params) {
+        StringBuilder sql = new StringBuilder(COLUMNS).append(" WHERE 1 = 1");
+        if (filter.vendor() != null) {
+            sql.append(" AND vendor = :vendor");
+            params.addValue("vendor", filter.vendor());
+        }
+        if (filter.skuPrefix() != null && !filter.skuPrefix().isEmpty()) {
+            sql.append(" AND sku LIKE :skuPrefix ESCAPE '\\'");
+            params.addValue("skuPrefix", escapeLike(filter.skuPrefix()) + "%");
+        }
+        if (filter.zeroStock() != null) {
+            sql.append(filter.zeroStock() ? " AND stock_quantity = 0" : " AND stock_quantity <> 0");
+        }
+        if (filter.updatedSince() != null) {
+            sql.append(" AND updated_at >= :updatedSince");
+            params.addValue("updatedSince", filter.updatedSince());
+        }
+        return sql;
+    }
+
+    private static String escapeLike(String s) {
+        return s.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,151 @@
+package io.stock.sync.repository;
+
+import io.stock.sync.service.dto.VendorProduct;
+import jakarta.persistence.EntityManager;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Set-based write path for one vendor's chunk: the rows are loaded into a session-local staging
+ * table ({@code COPY} on PostgreSQL, a JDBC batch elsewhere), diffed against products with one
+ * join, and applied with one {@code MERGE}. All of it runs in the caller's transaction; the
+ * staging rows are dropped at commit. Used instead of {@link ProductJdbcRepository} when
+ * {@code sync.staging.enabled} is set.
+ */
+@Repository
+public class ProductStagingRepository {
+
+    private static final String CREATE_POSTGRES =
+            "CREATE TEMPORARY TABLE IF NOT EXISTS products_staging"
+                    + " (seq integer NOT NULL, vendor varchar(255) NOT NULL, sku varchar(255) NOT NULL,"
+                    + " name varchar(255), stock_quantity integer) ON COMMIT DELETE ROWS";
+    // TRANSACTIONAL: on H2 the DDL would otherwise commit the sync transaction
+    private static final String CREATE_H2 =
+            "CREATE LOCAL TEMPORARY TABLE IF NOT EXISTS products_staging"
+                    + " (seq integer NOT NULL, vendor varchar(255) NOT NULL, sku varchar(255) NOT NULL,"
+                    + " name varchar(255), stock_quantity integer) ON COMMIT DELETE ROWS TRANSACTIONAL";
+    private static final String CLEAR = "DELETE FROM products_staging";
+    private static final String COPY =
+            "COPY products_staging (seq, vendor, sku, name, stock_quantity) FROM STDIN WITH (FORMAT csv)";
+    private static final String INSERT =
+            "INSERT INTO products_staging (seq, vendor, sku, name, stock_quantity) VALUES (?, ?, ?, ?, ?)";
+    private static final String DIFF =
+            "SELECT s.sku, p.id, p.stock_quantity, s.stock_quantity FROM products_staging s"
+                    + " LEFT JOIN products p ON p.vendor = s.vendor AND p.sku = s.sku"
+                    + " WHERE p.id IS NULL OR p.name IS DISTINCT FROM s.name"
+                    + " OR p.stock_quantity IS DISTINCT FROM s.stock_quantity"
+                    + " ORDER BY s.seq";
+    // standard MERGE: H2 and PostgreSQL 15+
+    private static final String MERGE =
+            "MERGE INTO products p USING products_staging s ON p.vendor = s.vendor AND p.sku = s.sku"
+                    + " WHEN MATCHED AND (p.name IS DISTINCT FROM s.name OR p.stock_quantity IS DISTINCT FROM s.stock_quantity)"
+                    + " THEN UPDATE SET name = s.name, stock_quantity = s.stock_quantity, updated_at = ?"
+                    + " WHEN NOT MATCHED THEN INSERT (sku, name, stock_quantity, vendor, updated_at)"
+                    + " VALUES (s.sku, s.name, s.stock_quantity, s.vendor, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private volatile Boolean postgres;   // resolved from the connection on first use
+
+    public ProductStagingRepository(JdbcTemplate jdbcTemplate, EntityManager entityManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+    }
+
+    /** A staged row whose name or quantity differs from products; {@code stored} is false for new skus. */
+    public record Difference(String sku, boolean stored, Integer oldQuantity, Integer newQuantity) {}
+
+    /**
+     * Replaces the staging table's content with the given rows, one per sku. The rows must belong
+     * to one vendor; a sku repeated in them would make the MERGE ambiguous.
+     */
+    public void stage(Collection<VendorProduct> products) {
+        if (postgres == null) {
+            postgres = jdbcTemplate.execute((ConnectionCallback<Boolean>) con ->
+                    "PostgreSQL".equals(con.getMetaData().getDatabaseProductName()));
+        }
+        jdbcTemplate.execute(postgres ? CREATE_POSTGRES : CREATE_H2);
+        jdbcTemplate.update(CLEAR);
+        if (products.isEmpty()) return;
+        if (postgres) copy(products);
+        else insert(new ArrayList<>(products));
+    }
+
+    /** Staged rows that would change products, in staging order. */
+    public List<Difference> differences() {
+        // make pending JPA changes visible to the plain JDBC read
+        entityManager.flush();
+        return jdbcTemplate.query(DIFF, (rs, i) -> new Difference(rs.getString(1), rs.getObject(2) != null,
+                (Integer) rs.getObject(3), (Integer) rs.getObject(4)));
+    }
+
+    /** Inserts new skus and updates changed ones; unchanged rows are not written. */
+    public int merge(OffsetDateTime now) {
+        return jdbcTemplate.update(MERGE, now, now);
+    }
+
+    /** Builds the chunk's CSV in memory and sends it with one COPY over the transaction's own connection. */
+    private void copy(Collection<VendorProduct> products) {
+        String csv = copyCsv(products);
+        jdbcTemplate.execute((ConnectionCallback<Long>) con -> {
+            try {
+                return con.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY, new StringReader(csv));
+            } catch (IOException e) {
+                throw new IllegalStateException("COPY into products_staging failed", e);
+            }
+        });
+    }
+
+    /** The COPY payload: one line per row, numbered in order. */
+    static String copyCsv(Collection<VendorProduct> products) {
+        StringBuilder csv = new StringBuilder(products.size() * 64);
+        int seq = 0;
+        for (VendorProduct vp : products) {
+            csv.append(seq++).append(',');
+            quote(csv, vp.vendor()).append(',');
+            quote(csv, vp.sku()).append(',');
+            quote(csv, vp.name()).append(',');
+            if (vp.stockQuantity() != null) csv.append(vp.stockQuantity());
+            csv.append('\n');
+        }
+        return csv.toString();
+    }
+
+    /** In CSV format an unquoted empty field is NULL and a quoted one the empty string. */
+    private static StringBuilder quote(StringBuilder csv, String value) {
+        if (value == null) return csv;
+        return csv.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private void insert(List<VendorProduct> products) {
+        jdbcTemplate.batchUpdate(INSERT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                VendorProduct vp = products.get(i);
+                ps.setInt(1, i);
+                ps.setString(2, vp.vendor());
+                ps.setString(3, vp.sku());
+                ps.setString(4, vp.name());
+                ps.setObject(5, vp.stockQuantity(), Types.INTEGER);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return products.size();
+            }
+        });
+    }
+}
@@ -0,0 +1,131 @@
+package io.stock.sync.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Raw quantity changes ({@code stock_changes}) and their compacted daily blocks ({@code stock_history_blocks}). */
+@Repository
+public class StockHistoryRepository {
+
+    /** A row of {@code stock_changes}; {@code id} is null before insert. */
+    public record RawChange(Long id, String vendor, String sku, OffsetDateTime changedAt,
+                            Integer oldQuantity, int newQuantity) {}
+
+    public record Block(String vendor, String sku, LocalDate day, int changeCount,
+                        OffsetDateTime firstAt, OffsetDateTime lastAt, byte[] payload) {}
+
+    private static final String INSERT_CHANGE =
+            "INSERT INTO stock_changes (vendor, sku, changed_at, old_quantity, new_quantity) VALUES (?, ?, ?, ?, ?)";
+    private static final String RAW_COLUMNS =
+            "SELECT id, vendor, sku, changed_at, old_quantity, new_quantity FROM stock_changes";
+
+    // standard MERGE: H2 and PostgreSQL 15+
+    private static final String UPSERT_BLOCK = """
+            MERGE INTO stock_history_blocks t
+            USING (VALUES (CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)), CAST(? AS DATE)))
+                AS s(vendor, sku, bucket_day)
+            ON t.vendor = s.vendor AND t.sku = s.sku AND t.bucket_day = s.bucket_day
+            WHEN MATCHED THEN UPDATE SET change_count = ?, first_at = ?, last_at = ?, payload = ?
+            WHEN NOT MATCHED THEN INSERT (vendor, sku, bucket_day, change_count, first_at, last_at, payload)
+                VALUES (s.vendor, s.sku, s.bucket_day, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public StockHistoryRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    public void appendAll(List<RawChange> changes) {
+        if (changes.isEmpty()) return;
+        jdbcTemplate.batchUpdate(INSERT_CHANGE, changes, changes.size(), (ps, c) -> {
+            ps.setString(1, c.vendor());
+            ps.setString(2, c.sku());
+            ps.setObject(3, c.changedAt());
+            ps.setObject(4, c.oldQuantity(), Types.INTEGER);
+            ps.setInt(5, c.newQuantity());
+        });
+    }
+
+    /** Up to {@code limit} raw changes older than {@code before}, grouped by vendor and sku, oldest first. */
+    public List<RawChange> findRawBefore(OffsetDateTime before, int limit) {
+        return jdbcTemplate.query(RAW_COLUMNS + " WHERE changed_at < ? ORDER BY vendor, sku, changed_at, id LIMIT ?",
+                (rs, i) -> rawChange(rs), before, limit);
+    }
+
+    public List<RawChange> findRaw(String vendor, String sku, OffsetDateTime from, OffsetDateTime to) {
+        return jdbcTemplate.query(RAW_COLUMNS + " WHERE vendor = ? AND sku = ? AND changed_at >= ? AND changed_at < ?"
+                + " ORDER BY changed_at, id", (rs, i) -> rawChange(rs), vendor, sku, from, to);
+    }
+
+    public void deleteRaw(Collection<Long> ids) {
+        if (ids.isEmpty()) return;
+        namedJdbcTemplate.update("DELETE FROM stock_changes WHERE id IN (:ids)", Map.of("ids", ids));
+    }
+
+    /** Raw rows that were never compacted (e.g. compaction disabled) also expire. */
+    public int deleteRawBefore(OffsetDateTime before) {
+        return jdbcTemplate.update("DELETE FROM stock_changes WHERE changed_at < ?", before);
+    }
+
+    /** Blocks of one vendor and day for the given skus, keyed by sku. */
+    public Map<String, Block> findBlocks(String vendor, LocalDate day, Collection<String> skus) {
+        Map<String, Block> result = new HashMap<>();
+        var params = new MapSqlParameterSource().addValue("vendor", vendor).addValue("day", day).addValue("skus", skus);
+        namedJdbcTemplate.query("SELECT vendor, sku, bucket_day, change_count, first_at, last_at, payload FROM stock_history_blocks"
+                + " WHERE vendor = :vendor AND bucket_day = :day AND sku IN (:skus)", params, rs -> {
+            Block b = block(rs);
+            result.put(b.sku(), b);
+        });
+        return result;
+    }
+
+    public List<Block> findBlocks(String vendor, String sku, LocalDate fromDay, LocalDate toDay) {
+        return jdbcTemplate.query("SELECT vendor, sku, bucket_day, change_count, first_at, last_at, payload FROM stock_history_blocks"
+                + " WHERE vendor = ? AND sku = ? AND bucket_day >= ? AND bucket_day <= ? ORDER BY bucket_day",
+                (rs, i) -> block(rs), vendor, sku, fromDay, toDay);
+    }
+
+    public void upsertBlocks(List<Block> blocks) {
+        if (blocks.isEmpty()) return;
+        jdbcTemplate.batchUpdate(UPSERT_BLOCK, blocks, blocks.size(), (ps, b) -> {
+            ps.setString(1, b.vendor());
+            ps.setString(2, b.sku());
+            ps.setObject(3, b.day());
+            for (int offset : new int[]{4, 8}) {
+                ps.setInt(offset, b.changeCount());
+                ps.setObject(offset + 1, b.firstAt());
+                ps.setObject(offset + 2, b.lastAt());
+                ps.setBytes(offset + 3, b.payload());
+            }
+        });
+    }
+
+    public int deleteBlocksBefore(LocalDate day) {
+        return jdbcTemplate.update("DELETE FROM stock_history_blocks WHERE bucket_day < ?", day);
+    }
+
+    private static RawChange rawChange(ResultSet rs) throws SQLException {
+        return new RawChange(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getObject(4, OffsetDateTime.class),
+                (Integer) rs.getObject(5), rs.getInt(6));
+    }
+
+    private static Block block(ResultSet rs) throws SQLException {
+        return new Block(rs.getString(1), rs.getString(2), rs.getObject(3, LocalDate.class), rs.getInt(4),
+                rs.getObject(5, OffsetDateTime.class), rs.getObject(6, OffsetDateTime.class), rs.getBytes(7));
+    }
+}
@@ -0,0 +1,109 @@
+package io.stock.sync.repository;
+
+import io.stock.sync.model.StockOutCount.Granularity;
+import io.stock.sync.model.StockOutEvent;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Savepoint;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Hourly and daily stock-out counts per vendor ({@code stock_out_counts}), kept by the sync. */
+@Repository
+public class StockOutCountRepository {
+
+    public record Bucket(String vendor, Granularity granularity, OffsetDateTime bucketStart, long count) {}
+
+    private record BucketKey(String vendor, Granularity granularity, OffsetDateTime bucketStart) {}
+
+    // standard MERGE: H2 and PostgreSQL 15+
+    private static final String INCREMENT = """
+            MERGE INTO stock_out_counts t
+            USING (VALUES (CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(8)), CAST(? AS TIMESTAMP WITH TIME ZONE), CAST(? AS BIGINT)))
+                AS s(vendor, granularity, bucket_start, n)
+            ON t.vendor = s.vendor AND t.granularity = s.granularity AND t.bucket_start = s.bucket_start
+            WHEN MATCHED THEN UPDATE SET event_count = t.event_count + s.n
+            WHEN NOT MATCHED THEN INSERT (vendor, granularity, bucket_start, event_count)
+                VALUES (s.vendor, s.granularity, s.bucket_start, s.n)
+            """;
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public StockOutCountRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    /**
+     * Adds the events to their vendor's hour and day buckets (UTC); one MERGE per touched bucket.
+     * Two transactions creating the same bucket race on its primary key: the loser rolls back to
+     * a savepoint and merges again, which then finds the winner's row and adds to it. Joins the
+     * caller's transaction (the sync's), or opens one so the savepoint has something to live in.
+     */
+    @Transactional
+    public void increment(List<StockOutEvent> events) {
+        if (events.isEmpty()) return;
+        Map<BucketKey, Long> deltas = new LinkedHashMap<>();
+        for (StockOutEvent e : events) {
+            OffsetDateTime utc = e.getOccurredAt().withOffsetSameInstant(ZoneOffset.UTC);
+            deltas.merge(new BucketKey(e.getVendor(), Granularity.HOUR, utc.truncatedTo(ChronoUnit.HOURS)), 1L, Long::sum);
+            deltas.merge(new BucketKey(e.getVendor(), Granularity.DAY, utc.truncatedTo(ChronoUnit.DAYS)), 1L, Long::sum);
+        }
+        List<Map.Entry<BucketKey, Long>> rows = new ArrayList<>(deltas.entrySet());
+        // JPA offers no nested transactions, so the savepoint is set on the shared JDBC connection
+        jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+            for (int attempt = 1; ; attempt++) {
+                Savepoint savepoint = con.setSavepoint();
+                try {
+                    merge(rows);
+                    con.releaseSavepoint(savepoint);
+                    return null;
+                } catch (DuplicateKeyException e) {
+                    con.rollback(savepoint);
+                    if (attempt == MAX_ATTEMPTS) throw e;
+                }
+            }
+        });
+    }
+
+    private void merge(List<Map.Entry<BucketKey, Long>> rows) {
+        jdbcTemplate.batchUpdate(INCREMENT, rows, rows.size(), (ps, row) -> {
+            ps.setString(1, row.getKey().vendor());
+            ps.setString(2, row.getKey().granularity().name());
+            ps.setObject(3, row.getKey().bucketStart());
+            ps.setLong(4, row.getValue());
+        });
+    }
+
+    /** Buckets starting in [from, to), oldest first; all vendors when {@code vendor} is null. */
+    public List<Bucket> find(Granularity granularity, String vendor, OffsetDateTime from, OffsetDateTime to, int limit) {
+        var params = new MapSqlParameterSource()
+                .addValue("granularity", granularity.name())
+                .addValue("from", from)
+                .addValue("to", to)
+                .addValue("limit", limit);
+        StringBuilder sql = new StringBuilder("SELECT vendor, bucket_start, event_count FROM stock_out_counts"
+                + " WHERE granularity = :granularity AND bucket_start >= :from AND bucket_start < :to");
+        if (vendor != null) {
+            sql.append(" AND vendor = :vendor");
+            params.addValue("vendor", vendor);
+        }
+        sql.append(" ORDER BY bucket_start, vendor LIMIT :limit");
+        return namedJdbcTemplate.query(sql.toString(), params, (rs, i) -> new Bucket(
+                rs.getString(1), granularity, rs.getObject(2, OffsetDateTime.class), rs.getLong(3)));
+    }
+}
@@ -0,0 +1,68 @@
+package io.stock.sync.repository;
+
+import io.stock.sync.model.StockOutEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Keyset pages of stock-out events, newest first, ordered by (occurredAt, id) so every filter
+ * combination is served by one of the {@code stock_out_events} indexes.
+ */
+@Repository
+public class StockOutEventQueryRepository {
+
+    /** Optional criteria; null fields do not filter. {@code from} is inclusive, {@code to} exclusive. */
+    public record Filter(String vendor, String sku, OffsetDateTime from, OffsetDateTime to) {}
+
+    /** Position after the last event of a page. */
+    public record Cursor(OffsetDateTime occurredAt, long id) {}
+
+    private static final String COLUMNS = "SELECT id, sku, vendor, previous_quantity, occurred_at FROM stock_out_events";
+
+    private static final RowMapper<StockOutEvent> ROW_MAPPER = (rs, i) -> {
+        StockOutEvent e = new StockOutEvent(rs.getString(2), rs.getString(3), rs.getInt(4));
+        e.setId(rs.getLong(1));
+        e.setOccurredAt(rs.getObject(5, OffsetDateTime.class));
+        return e;
+    };
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public StockOutEventQueryRepository(JdbcTemplate jdbcTemplate) {
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    public List<StockOutEvent> findPage(Filter filter, Cursor after, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        StringBuilder sql = new StringBuilder(COLUMNS).append(" WHERE 1 = 1");
+        if (filter.vendor() != null) {
+            sql.append(" AND vendor = :vendor");
+            params.addValue("vendor", filter.vendor());
+        }
+        if (filter.sku() != null) {
+            sql.append(" AND sku = :sku");
+            params.addValue("sku", filter.sku());
+        }
+        if (filter.from() != null) {
+            sql.append(" AND occurred_at >= :from");
+            params.addValue("from", filter.from());
+        }
+        if (filter.to() != null) {
+            sql.append(" AND occurred_at < :to");
+            params.addValue("to", filter.to());
+        }
+        if (after != null) {
+            sql.append(" AND (occurred_at < :afterTime OR (occurred_at = :afterTime AND id < :afterId))");
+            params.addValue("afterTime", after.occurredAt()).addValue("afterId", after.id());
+        }
+        sql.append(" ORDER BY occurred_at DESC, id DESC LIMIT :limit");
+        params.addValue("limit", limit);
+        return namedJdbcTemplate.query(sql.toString(), params, ROW_MAPPER);
+    }
+}
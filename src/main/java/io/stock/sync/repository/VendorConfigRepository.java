@@ -0,0 +1,21 @@
+package io.stock.sync.repository;
+
+import io.stock.sync.model.VendorConfig;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface VendorConfigRepository extends JpaRepository<VendorConfig, String> {
+
+    List<VendorConfig> findAllByOrderByNameAsc();
+
+    /** A bulk update, so the row's version (and with it the vendor's client) stays as it is. */
+    @Transactional
+    @Modifying
+    @Query("update VendorConfig c set c.pushTokenSha256 = :hash where c.name = :name")
+    int updatePushToken(@Param("name") String name, @Param("hash") String pushTokenSha256);
+}
@@ -0,0 +1,35 @@
+package io.stock.sync.scheduler;
+
+import io.stock.sync.service.ClusterCoordinator;
+import io.stock.sync.service.SyncService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ClusterScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterScheduler.class);
+
+    private final ClusterCoordinator cluster;
+    private final SyncService syncService;
+
+    public ClusterScheduler(ClusterCoordinator cluster, SyncService syncService) {
+        this.cluster = cluster;
+        this.syncService = syncService;
+    }
+
+    // own scheduler thread; starts right away so membership is known before the first vendor sync
+    @Scheduled(fixedDelayString = "${sync.cluster.heartbeat-interval:PT5S}")
+    public void run() {
+        if (!cluster.enabled()) return;
+        try {
+            cluster.heartbeat();
+            cluster.rebalance(syncService::isRunning);
+        } catch (Exception e) {
+            // a missed heartbeat is harmless as long as the next one lands within the node timeout
+            log.error("Cluster heartbeat failed: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package io.stock.sync.scheduler;
+
+import io.stock.sync.config.PersistentVendorRegistry;
+import io.stock.sync.config.VendorsProperties.CsvSpec;
+import io.stock.sync.config.VendorsProperties.VendorSpec;
+import io.stock.sync.config.VendorsProperties.Watch;
+import io.stock.sync.service.ClusterCoordinator;
+import io.stock.sync.service.CsvVendorClient;
+import io.stock.sync.service.SyncMetrics.VendorResult;
+import io.stock.sync.service.SyncService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Ingests the files CSV vendors with a {@code watch} setting drop into their inbox directory, as
+ * soon as they land, instead of polling a fixed path. A {@link WatchService} reports new entries;
+ * a rescan every {@code vendors.watch.rescan-interval} (and after an event overflow) catches
+ * anything it missed, e.g. files dropped while the service was down.
+ *
+ * <p>Only complete files are picked up: a file must match {@code watch.pattern}, so a vendor writes
+ * to another name and renames the finished file (an atomic move within the directory), or, with
+ * {@code watch.done-suffix}, the file is ready once its marker file exists. Each file is ingested
+ * in one transaction through {@link SyncService#syncVendor}, so it is applied all or nothing, and
+ * is then moved to {@code watch.archive-dir}, or to {@code watch.failed-dir} if it is malformed.
+ * A file whose sync failed for any other reason (DB, lease lost) stays in the inbox and is retried
+ * on the next rescan, by whichever node then holds the vendor. Files of one vendor are ingested one at a time in name order, so a later file wins;
+ * different vendors are ingested in parallel on virtual threads, within
+ * {@code sync.max-concurrent-vendors}. Clustered, only the node holding a vendor's lease takes its
+ * files; the others leave them in place.
+ */
+@Component
+public class CsvDirectoryWatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(CsvDirectoryWatcher.class);
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS");
+
+    /** One watched vendor directory; replaced whole when the vendor's spec changes. */
+    private static final class Inbox {
+        final String vendor;
+        final CsvSpec spec;
+        final Path dir;
+        final PathMatcher matcher;
+        final String doneSuffix;
+        final Path archiveDir;
+        final Path failedDir;
+        final TreeSet<Path> queued = new TreeSet<>();   // guarded by the watcher
+        WatchKey key;                                   // null until the directory is registered
+        Path inFlight;
+        boolean draining;
+
+        Inbox(CsvSpec spec) {
+            Watch w = spec.getWatch();
+            this.vendor = spec.getName();
+            this.spec = spec;
+            this.dir = Path.of(w.getDir()).toAbsolutePath();
+            this.matcher = FileSystems.getDefault().getPathMatcher("glob:" + w.getPattern());
+            this.doneSuffix = w.getDoneSuffix();
+            this.archiveDir = w.getArchiveDir() != null ? Path.of(w.getArchiveDir()) : dir.resolve("archive");
+            this.failedDir = w.getFailedDir() != null ? Path.of(w.getFailedDir()) : dir.resolve("failed");
+        }
+    }
+
+    private final PersistentVendorRegistry registry;
+    private final SyncService syncService;
+    private final ClusterCoordinator cluster;
+    private final TaskScheduler taskScheduler;
+    private final boolean enabled;
+    private final Duration rescanInterval;
+
+    private final Map<String, Inbox> inboxes = new HashMap<>();              // guarded by this
+    private final Map<WatchKey, Inbox> watched = new ConcurrentHashMap<>();
+    private WatchService watchService;                                        // null until started
+
+    public CsvDirectoryWatcher(PersistentVendorRegistry registry,
+                               SyncService syncService,
+                               ClusterCoordinator cluster,
+                               TaskScheduler taskScheduler,
+                               @Value("${vendors.watch.enabled:true}") boolean enabled,
+                               @Value("${vendors.watch.rescan-interval:1m}") Duration rescanInterval) {
+        this.registry = registry;
+        this.syncService = syncService;
+        this.cluster = cluster;
+        this.taskScheduler = taskScheduler;
+        this.enabled = enabled;
+        this.rescanInterval = rescanInterval;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() throws IOException {
+        if (!enabled) {
+            log.info("CSV directory watcher disabled (vendors.watch.enabled=false)");
+            return;
+        }
+        watchService = FileSystems.getDefault().newWatchService();
+        Thread.ofPlatform().daemon().name("csv-watch").start(this::watchLoop);
+        reconcile();
+        taskScheduler.scheduleWithFixedDelay(this::rescan, rescanInterval);
+    }
+
+    @EventListener
+    public void vendorsChanged(PersistentVendorRegistry.Changed event) {
+        reconcile();
+    }
+
+    /** Lists every inbox again: registers directories that could not be watched yet and queues ready files. */
+    public void rescan() {
+        List<Inbox> current;
+        synchronized (this) {
+            if (watchService == null) return;
+            current = List.copyOf(inboxes.values());
+        }
+        current.forEach(this::scan);
+    }
+
+    @PreDestroy
+    public synchronized void stop() throws IOException {
+        if (watchService != null) watchService.close();   // ends the watch loop; running files finish or roll back
+        inboxes.clear();
+    }
+
+    /** Brings the inboxes in line with the registry's active watch vendors. */
+    private void reconcile() {
+        List<Inbox> added = new ArrayList<>();
+        synchronized (this) {
+            if (watchService == null) return;
+            Map<String, CsvSpec> specs = new HashMap<>();
+            for (VendorSpec spec : registry.specs()) {
+                if (spec instanceof CsvSpec c && c.getWatch() != null) specs.put(c.getName(), c);
+            }
+            inboxes.values().removeIf(inbox -> {
+                if (specs.get(inbox.vendor) == inbox.spec) return false;
+                if (inbox.key != null) {
+                    inbox.key.cancel();
+                    watched.remove(inbox.key);
+                }
+                log.info("Stopped watching {} for {}", inbox.dir, inbox.vendor);
+                return true;
+            });
+            specs.values().forEach(spec -> inboxes.computeIfAbsent(spec.getName(), v -> {
+                Inbox inbox = new Inbox(spec);
+                added.add(inbox);
+                return inbox;
+            }));
+        }
+        added.forEach(this::scan);
+    }
+
+    private void scan(Inbox inbox) {
+        if (!register(inbox)) return;
+        try (Stream<Path> files = Files.list(inbox.dir)) {
+            files.forEach(file -> offer(inbox, file));
+        } catch (IOException e) {
+            log.warn("Cannot list {} for {}: {}", inbox.dir, inbox.vendor, e.getMessage());
+        }
+    }
+
+    private synchronized boolean register(Inbox inbox) {
+        if (inboxes.get(inbox.vendor) != inbox) return false;
+        if (inbox.key != null) return true;
+        try {
+            inbox.key = inbox.dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE);
+            watched.put(inbox.key, inbox);
+            log.info("Watching {} for {} files of {}", inbox.dir, inbox.spec.getWatch().getPattern(), inbox.vendor);
+            return true;
+        } catch (IOException | ClosedWatchServiceException e) {
+            log.warn("Cannot watch {} for {}, retrying on the next rescan: {}", inbox.dir, inbox.vendor, e.toString());
+            return false;
+        }
+    }
+
+    private void watchLoop() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Inbox inbox = watched.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (inbox == null) continue;
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        scan(inbox);
+                    } else {
+                        offer(inbox, inbox.dir.resolve((Path) event.context()));
+                    }
+                }
+                if (!key.reset() && inbox != null) {
+                    synchronized (this) {
+                        watched.remove(key);
+                        if (inbox.key == key) inbox.key = null;
+                    }
+                    log.warn("{} is no longer accessible, watching it again once it is back", inbox.dir);
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            log.debug("CSV directory watcher stopped");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Queues the data file {@code path} belongs to, if it is ready. */
+    private void offer(Inbox inbox, Path path) {
+        readyFile(inbox, path).ifPresent(file -> {
+            synchronized (this) {
+                if (inboxes.get(inbox.vendor) != inbox || file.equals(inbox.inFlight) || !inbox.queued.add(file)) return;
+                if (inbox.draining) return;
+                inbox.draining = true;
+            }
+            Thread.ofVirtual().name("csv-watch-" + inbox.vendor).start(() -> drain(inbox));
+        });
+    }
+
+    private static Optional<Path> readyFile(Inbox inbox, Path path) {
+        Path file = path;
+        if (inbox.doneSuffix != null) {
+            String name = path.getFileName().toString();
+            if (!name.endsWith(inbox.doneSuffix)) return Optional.empty();   // wait for the marker
+            file = path.resolveSibling(name.substring(0, name.length() - inbox.doneSuffix.length()));
+        }
+        if (!inbox.matcher.matches(file.getFileName()) || !Files.isRegularFile(file)) return Optional.empty();
+        if (inbox.doneSuffix != null && !Files.exists(marker(inbox, file))) return Optional.empty();
+        return Optional.of(file);
+    }
+
+    /** Ingests the vendor's queued files one by one until the queue is empty. */
+    private void drain(Inbox inbox) {
+        while (true) {
+            Path file;
+            synchronized (this) {
+                file = inbox.queued.pollFirst();
+                if (file == null || inboxes.get(inbox.vendor) != inbox) {
+                    inbox.queued.clear();
+                    inbox.draining = false;
+                    return;
+                }
+                inbox.inFlight = file;
+            }
+            boolean done;
+            try {
+                done = ingest(inbox, file);
+            } finally {
+                synchronized (this) {
+                    inbox.inFlight = null;
+                }
+            }
+            if (!done) {
+                // left in place for the next rescan
+                synchronized (this) {
+                    inbox.queued.clear();
+                    inbox.draining = false;
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * False if the file was left in place: another node owns the vendor, it is already syncing, or
+     * the sync failed for a reason other than the file's content.
+     */
+    private boolean ingest(Inbox inbox, Path file) {
+        if (!Files.isRegularFile(file)) return true;   // moved away meanwhile, e.g. by the vendor's node
+        if (!cluster.acquire(inbox.vendor)) return false;
+        VendorResult result = syncService.syncVendor(CsvVendorClient.ofFile(inbox.vendor, file, inbox.spec.getParser()));
+        if (result == null) return false;
+        if (result.failed() && !result.rejected()) {
+            log.warn("File {} of {} could not be ingested, leaving it for the next rescan", file.getFileName(), inbox.vendor);
+            return false;
+        }
+        Path target = result.failed() ? inbox.failedDir : inbox.archiveDir;
+        try {
+            Path moved = move(file, target);
+            if (inbox.doneSuffix != null) Files.deleteIfExists(marker(inbox, file));
+            if (result.failed()) {
+                log.error("File {} of {} could not be ingested, moved to {}", file.getFileName(), inbox.vendor, moved);
+            } else {
+                log.info("Ingested {} for {} ({} rows, {} changed), archived to {}", file.getFileName(), inbox.vendor,
+                        result.stats().rows(), result.stats().inserted() + result.stats().updated(), moved);
+            }
+        } catch (IOException e) {
+            // the rows are committed; re-ingesting the file later only re-applies the same values
+            log.error("Cannot move {} of {} to {}: {}", file, inbox.vendor, target, e.toString());
+            return false;
+        }
+        return true;
+    }
+
+    private static Path marker(Inbox inbox, Path file) {
+        return file.resolveSibling(file.getFileName() + inbox.doneSuffix);
+    }
+
+    /** Moves the file into {@code dir}, adding a timestamp if a file of that name is already there. */
+    private static Path move(Path file, Path dir) throws IOException {
+        Files.createDirectories(dir);
+        Path target = dir.resolve(file.getFileName());
+        if (Files.exists(target)) target = dir.resolve(file.getFileName() + "." + LocalDateTime.now().format(STAMP));
+        try {
+            return Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            return Files.move(file, target);   // archive on another file system
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package io.stock.sync.scheduler;
+
+import io.stock.sync.service.ClusterCoordinator;
+import io.stock.sync.service.StockHistoryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class HistoryScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(HistoryScheduler.class);
+
+    private final StockHistoryService historyService;
+    private final ClusterCoordinator cluster;
+    private final boolean enabled;
+
+    public HistoryScheduler(StockHistoryService historyService,
+                            ClusterCoordinator cluster,
+                            @Value("${history.compaction-enabled:true}") boolean enabled) {
+        this.historyService = historyService;
+        this.cluster = cluster;
+        this.enabled = enabled;
+    }
+
+    // own scheduler thread; compaction only reads rows older than history.compact-after.
+    // Clustered, only the leader compacts.
+    @Scheduled(fixedDelayString = "${history.compaction-interval:PT5M}",
+               initialDelayString = "${history.compaction-initial-delay:PT1M}")
+    public void run() {
+        if (!enabled || !cluster.isLeader()) return;
+        try {
+            historyService.compact();
+            historyService.applyRetention();
+        } catch (Exception e) {
+            log.error("History compaction failed: {}", e.getMessage(), e);
+        }
+    }
+}
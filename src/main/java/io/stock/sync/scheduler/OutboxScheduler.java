@@ -0,0 +1,40 @@
+package io.stock.sync.scheduler;
+
+import io.stock.sync.service.ClusterCoordinator;
+import io.stock.sync.service.OutboxRelay;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class OutboxScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxScheduler.class);
+
+    private final OutboxRelay relay;
+    private final ClusterCoordinator cluster;
+    private final boolean enabled;
+
+    public OutboxScheduler(OutboxRelay relay,
+                           ClusterCoordinator cluster,
+                           @Value("${outbox.enabled:true}") boolean enabled) {
+        this.relay = relay;
+        this.cluster = cluster;
+        this.enabled = enabled;
+    }
+
+    // runs on its own scheduler thread (spring.task.scheduling.pool.size), never inside a sync;
+    // clustered, only the leader relays, so notifications are not sent once per node
+    @Scheduled(fixedDelayString = "${outbox.relay-interval:PT5S}")
+    public void run() {
+        if (!enabled || !cluster.isLeader()) return;
+        try {
+            int delivered = relay.relayPending();
+            if (delivered > 0) log.info("Relayed {} stock-out notifications", delivered);
+        } catch (Exception e) {
+            log.error("Outbox relay failed: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -1,35 +1,197 @@
 package io.stock.sync.scheduler;
 
+import io.stock.sync.config.PersistentVendorRegistry;
+import io.stock.sync.config.VendorsProperties;
+import io.stock.sync.service.ClusterCoordinator;
+import io.stock.sync.service.SyncMetrics.VendorResult;
 import io.stock.sync.service.SyncService;
+import io.stock.sync.service.VendorClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One independent schedule per vendor. Each vendor's next sync is planned when its previous one
+ * finishes (fixed delay), so runs of a vendor never pile up, and the delay adapts to how often the
+ * vendor's feed changes (see {@link VendorCadence}). Syncs run on virtual threads; the scheduler
+ * threads only hand them off. Runs that find the vendor still syncing (e.g. after a manual
+ * trigger) are skipped.
+ *
+ * <p>The set of vendors follows {@link PersistentVendorRegistry}: a new vendor is scheduled right
+ * away, an edited one keeps its next planned run but continues with its new client and schedule,
+ * and a removed or disabled one stops being scheduled once its running sync (if any) finishes.
+ *
+ * <p>Clustered, every node keeps every vendor's schedule, but a run only syncs if
+ * {@link ClusterCoordinator} assigns the vendor to this node and grants its lease, so each vendor
+ * is synced by one node at a time and vendors move when nodes join or die.
+ */
 @Component
 public class SyncScheduler {
 
     private static final Logger log = LoggerFactory.getLogger(SyncScheduler.class);
 
+    public enum Trigger { STARTED, ALREADY_RUNNING, OWNED_ELSEWHERE, UNKNOWN_VENDOR }
+
+    /** {@code node} is the cluster node holding the vendor's lease; null when not clustered. */
+    public record VendorStatus(String vendor, boolean running, Duration interval,
+                               Instant lastRunAt, String lastOutcome, Instant nextRunAt, String node) {}
+
     private final SyncService syncService;
+    private final PersistentVendorRegistry registry;
+    private final ClusterCoordinator cluster;
+    private final TaskScheduler taskScheduler;
     private final boolean enabled;
+    private final Duration initialDelay;
+    private final Duration interval;
+    private final boolean adaptive;
+    private final Duration minInterval;
+    private final Duration maxInterval;
+    private volatile Map<String, VendorCadence> cadences = Map.of();   // replaced whole, under this
+    private boolean started;
 
     public SyncScheduler(SyncService syncService,
-                         @Value("${sync.enabled:true}") boolean enabled) {
+                         PersistentVendorRegistry registry,
+                         ClusterCoordinator cluster,
+                         TaskScheduler taskScheduler,
+                         @Value("${sync.enabled:true}") boolean enabled,
+                         @Value("${sync.initial-delay:15s}") Duration initialDelay,
+                         @Value("${sync.interval:1m}") Duration interval,
+                         @Value("${sync.adaptive.enabled:true}") boolean adaptive,
+                         @Value("${sync.adaptive.min-interval:15s}") Duration minInterval,
+                         @Value("${sync.adaptive.max-interval:30m}") Duration maxInterval) {
         this.syncService = syncService;
+        this.registry = registry;
+        this.cluster = cluster;
+        this.taskScheduler = taskScheduler;
         this.enabled = enabled;
+        this.initialDelay = initialDelay;
+        this.interval = interval;
+        this.adaptive = adaptive;
+        this.minInterval = minInterval;
+        this.maxInterval = maxInterval;
+        reconcile();
     }
 
-    // every minute by default
-    @Scheduled(cron = "${sync.cron:0 */1 * * * *}")
-    public void run() {
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
         if (!enabled) {
             log.info("Sync scheduler disabled (sync.enabled=false)");
             return;
         }
-        log.info("Starting scheduled stock sync...");
-        syncService.syncAll();
-        log.info("Finished scheduled stock sync.");
+        started = true;
+        cadences.values().forEach(c -> {
+            log.info("Scheduling {} every {}", c.client.vendorName(), c.interval());
+            schedule(c, initialDelay);
+        });
+    }
+
+    @EventListener
+    public void vendorsChanged(PersistentVendorRegistry.Changed event) {
+        reconcile();
+    }
+
+    /**
+     * Starts a sync of the vendor now, outside its schedule. Clustered, only the vendor's node can.
+     * The vendor is claimed before this returns, so {@code STARTED} means the sync does run.
+     */
+    public Trigger trigger(String vendor) {
+        VendorCadence cadence = cadences.get(vendor);
+        if (cadence == null) return Trigger.UNKNOWN_VENDOR;
+        if (!cluster.acquire(vendor)) return Trigger.OWNED_ELSEWHERE;
+        if (!syncService.claim(vendor)) return Trigger.ALREADY_RUNNING;
+        log.info("Manual sync of {} requested", vendor);
+        Thread.ofVirtual().name("sync-manual-" + vendor)
+                .start(() -> record(cadence, syncService.syncClaimedVendor(cadence.client)));
+        return Trigger.STARTED;
+    }
+
+    public List<VendorStatus> status() {
+        return cadences.values().stream()
+                .map(c -> c.status(syncService.isRunning(c.client.vendorName()), cluster.owner(c.client.vendorName())))
+                .toList();
+    }
+
+    /** Brings the cadences in line with the registry's clients; one cadence per client instance. */
+    private synchronized void reconcile() {
+        Map<String, VendorCadence> current = cadences;
+        Map<String, VendorCadence> next = new LinkedHashMap<>();
+        List<VendorCadence> added = new ArrayList<>();
+        for (VendorClient client : registry.clients()) {
+            String vendor = client.vendorName();
+            VendorCadence cadence = current.get(vendor);
+            if (cadence == null || cadence.client != client) {
+                cadence = cadence(client);
+                added.add(cadence);
+            }
+            next.put(vendor, cadence);
+        }
+        cadences = next;
+        current.keySet().stream().filter(v -> !next.containsKey(v))
+                .forEach(v -> log.info("Stopped scheduling {}", v));
+        if (!started) return;
+        for (VendorCadence cadence : added) {
+            VendorCadence previous = current.get(cadence.client.vendorName());
+            // an edited vendor keeps its planned run, a new one starts right away
+            Duration delay = previous != null ? previous.untilNextRun(Instant.now()) : Duration.ZERO;
+            log.info("Scheduling {} every {} ({})", cadence.client.vendorName(), cadence.interval(),
+                    previous != null ? "configuration changed" : "new vendor");
+            schedule(cadence, delay);
+        }
+    }
+
+    private VendorCadence cadence(VendorClient client) {
+        VendorsProperties.Schedule s = registry.spec(client.vendorName())
+                .map(VendorsProperties.VendorSpec::getSchedule)
+                .orElseGet(VendorsProperties.Schedule::new);
+        return new VendorCadence(client,
+                s.getInterval() != null ? s.getInterval() : interval,
+                s.getMinInterval() != null ? s.getMinInterval() : minInterval,
+                s.getMaxInterval() != null ? s.getMaxInterval() : maxInterval,
+                s.getAdaptive() != null ? s.getAdaptive() : adaptive);
+    }
+
+    /** Reschedules itself after every run until the vendor's cadence is replaced or removed. */
+    private void schedule(VendorCadence cadence, Duration delay) {
+        Instant at = Instant.now().plus(delay);
+        cadence.scheduled(at);
+        taskScheduler.schedule(() -> {
+            if (!isCurrent(cadence)) return;
+            Thread.ofVirtual().name("sync-" + cadence.client.vendorName()).start(() -> {
+                try {
+                    run(cadence);
+                } finally {
+                    if (isCurrent(cadence)) schedule(cadence, cadence.interval());
+                }
+            });
+        }, at);
+    }
+
+    private boolean isCurrent(VendorCadence cadence) {
+        return cadences.get(cadence.client.vendorName()) == cadence;
+    }
+
+    private void run(VendorCadence cadence) {
+        if (!cluster.acquire(cadence.client.vendorName())) return;   // another node's vendor
+        record(cadence, syncService.syncVendor(cadence.client));
+    }
+
+    private void record(VendorCadence cadence, VendorResult result) {
+        if (result == null) return;   // skipped, the vendor was already syncing
+        Duration before = cadence.interval();
+        cadence.record(result.stats().changed(), result.failed(), Instant.now());
+        if (!before.equals(cadence.interval())) {
+            log.info("Next sync of {} in {} (was {})", cadence.client.vendorName(), cadence.interval(), before);
+        }
     }
 }
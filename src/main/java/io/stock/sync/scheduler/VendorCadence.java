@@ -0,0 +1,69 @@
+package io.stock.sync.scheduler;
+
+import io.stock.sync.service.VendorClient;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Schedule state of one vendor. With adaptive scheduling the interval halves after a sync that
+ * wrote something and grows by half after one that did not (or failed), within [min, max]:
+ * volatile feeds converge on {@code min}, feeds that rarely change drift towards {@code max}.
+ */
+final class VendorCadence {
+
+    final VendorClient client;
+    private final Duration min;
+    private final Duration max;
+    private final boolean adaptive;
+
+    private Duration interval;
+    private Instant lastRunAt;
+    private String lastOutcome;
+    private Instant nextRunAt;
+
+    VendorCadence(VendorClient client, Duration interval, Duration min, Duration max, boolean adaptive) {
+        if (min.compareTo(max) > 0) {
+            throw new IllegalArgumentException("min-interval " + min + " exceeds max-interval " + max
+                    + " for vendor " + client.vendorName());
+        }
+        this.client = client;
+        this.min = min;
+        this.max = max;
+        this.adaptive = adaptive;
+        this.interval = adaptive ? clamp(interval) : interval;
+    }
+
+    synchronized Duration interval() {
+        return interval;
+    }
+
+    synchronized void scheduled(Instant at) {
+        nextRunAt = at;
+    }
+
+    /** Time left until the planned run; zero if none is planned or it is due. */
+    synchronized Duration untilNextRun(Instant now) {
+        if (nextRunAt == null || !nextRunAt.isAfter(now)) return Duration.ZERO;
+        return Duration.between(now, nextRunAt);
+    }
+
+    /** Records a finished sync and, if adaptive, adjusts the interval to the next one. */
+    synchronized void record(boolean changed, boolean failed, Instant at) {
+        changed &= !failed;
+        lastRunAt = at;
+        lastOutcome = failed ? "failed" : changed ? "changed" : "unchanged";
+        if (!adaptive) return;
+        interval = clamp(changed ? interval.dividedBy(2) : interval.plus(interval.dividedBy(2)));
+    }
+
+    synchronized SyncScheduler.VendorStatus status(boolean running, String node) {
+        return new SyncScheduler.VendorStatus(client.vendorName(), running, interval, lastRunAt, lastOutcome, nextRunAt, node);
+    }
+
+    private Duration clamp(Duration d) {
+        if (d.compareTo(min) < 0) return min;
+        if (d.compareTo(max) > 0) return max;
+        return d;
+    }
+}
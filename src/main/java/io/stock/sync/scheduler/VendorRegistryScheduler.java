@@ -0,0 +1,33 @@
+package io.stock.sync.scheduler;
+
+import io.stock.sync.config.PersistentVendorRegistry;
+import io.stock.sync.service.SyncService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class VendorRegistryScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(VendorRegistryScheduler.class);
+
+    private final PersistentVendorRegistry registry;
+    private final SyncService syncService;
+
+    public VendorRegistryScheduler(PersistentVendorRegistry registry, SyncService syncService) {
+        this.registry = registry;
+        this.syncService = syncService;
+    }
+
+    // picks up changes made through other nodes (or straight in the DB)
+    @Scheduled(fixedDelayString = "${vendors.registry.refresh-interval:PT30S}")
+    public void run() {
+        try {
+            registry.refresh();
+        } catch (Exception e) {
+            log.error("Vendor registry refresh failed, keeping the current vendors: {}", e.getMessage(), e);
+        }
+        registry.closeRetired(syncService::isRunning);
+    }
+}
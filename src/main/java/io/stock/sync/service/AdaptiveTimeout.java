@@ -0,0 +1,57 @@
+package io.stock.sync.service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read timeout of one REST vendor derived from its own latency: {@value #MULTIPLIER} x the p99
+ * time-to-headers of its last {@value #WINDOW} successful requests, between {@code min} and
+ * {@code max}. Until {@value #MIN_SAMPLES} requests have been seen it is {@code max} (the
+ * configured {@code http.read-timeout}). A vendor that answers in 80 ms then gives up after about
+ * a quarter of a second instead of the full static timeout, while a slow one keeps its headroom.
+ * Exported as {@code sync.vendor.read_timeout}.
+ */
+public class AdaptiveTimeout {
+
+    static final int WINDOW = 100;
+    static final int MIN_SAMPLES = 20;
+    static final int MULTIPLIER = 3;
+
+    private final Duration min;
+    private final Duration max;
+    private final long[] samples = new long[WINDOW];   // nanos, ring buffer guarded by this
+    private int count;                                 // guarded by this
+    private volatile Duration current;
+    private final AtomicLong gauge;
+
+    public AdaptiveTimeout(String vendor, Duration min, Duration max) {
+        this.min = min.compareTo(max) <= 0 ? min : max;
+        this.max = max;
+        this.current = max;
+        this.gauge = SyncMetrics.readTimeout(vendor);
+        gauge.set(max.toMillis());
+    }
+
+    public Duration current() {
+        return current;
+    }
+
+    /** Records the time a successful request took until its response headers arrived. */
+    public void record(long nanos) {
+        long p99;
+        synchronized (this) {
+            samples[count % WINDOW] = nanos;
+            count++;
+            if (count < MIN_SAMPLES) return;
+            long[] sorted = Arrays.copyOf(samples, Math.min(count, WINDOW));
+            Arrays.sort(sorted);
+            p99 = sorted[(int) Math.ceil(sorted.length * 0.99) - 1];
+        }
+        Duration next = Duration.ofNanos(p99).multipliedBy(MULTIPLIER);
+        if (next.compareTo(min) < 0) next = min;
+        if (next.compareTo(max) > 0) next = max;
+        current = next;
+        gauge.set(next.toMillis());
+    }
+}
@@ -0,0 +1,236 @@
+package io.stock.sync.service;
+
+import io.stock.sync.repository.ClusterRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Splits vendors across the nodes that share one database ({@code sync.cluster.enabled}).
+ *
+ * <p>Every node heartbeats into {@code sync_nodes}; nodes whose heartbeat is older than
+ * {@code sync.cluster.node-timeout} are considered dead. Each vendor is assigned to one live node
+ * by rendezvous hashing, so every node computes the same assignment without talking to the
+ * others, and a node joining or leaving only moves the vendors it gains or loses. Before syncing,
+ * a node must also hold the vendor's lease in {@code sync_leases}; the lease is renewed with
+ * every heartbeat and released once the vendor is assigned elsewhere, so a new owner never
+ * overlaps with a running sync of the old one. If a node dies, its leases expire after
+ * {@code sync.cluster.lease-duration} and its vendors move to the survivors.
+ *
+ * <p>The sync transaction re-checks the lease with a row lock right before committing (see
+ * {@link #verifyLease}), so a node that lost its lease mid-sync (e.g. after a long pause) rolls
+ * back instead of writing duplicate stock-out events. A {@code leader} lease, held by one node at
+ * a time, gates the cluster-wide jobs. Whenever this node (re)gains a vendor's lease, its
+ * {@link StockSnapshotCache} entry for that vendor is dropped and the vendor's client forgets
+ * what it delivered, since other nodes may have written the vendor's products in the meantime.
+ *
+ * <p>With clustering disabled every method answers as for a single node that owns everything.
+ */
+@Component
+public class ClusterCoordinator {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterCoordinator.class);
+
+    static final String LEADER = "leader";
+    private static final String VENDOR = "vendor:";
+
+    private final ClusterRepository repository;
+    private final StockSnapshotCache snapshotCache;
+    private final VendorRegistry vendors;
+    private final boolean enabled;
+    private final String nodeId;
+    private final Duration nodeTimeout;
+    private final Duration leaseDuration;
+
+    private volatile List<String> liveNodes = List.of();
+    private volatile boolean leader;
+    private final Set<String> held = ConcurrentHashMap.newKeySet();   // vendors whose lease this node holds
+
+    public ClusterCoordinator(ClusterRepository repository,
+                              StockSnapshotCache snapshotCache,
+                              VendorRegistry vendors,
+                              @Value("${sync.cluster.enabled:false}") boolean enabled,
+                              @Value("${sync.cluster.node-id:}") String nodeId,
+                              @Value("${sync.cluster.node-timeout:30s}") Duration nodeTimeout,
+                              @Value("${sync.cluster.lease-duration:1m}") Duration leaseDuration) {
+        this.repository = repository;
+        this.snapshotCache = snapshotCache;
+        this.vendors = vendors;
+        this.enabled = enabled;
+        this.nodeId = nodeId == null || nodeId.isBlank() ? defaultNodeId() : nodeId;
+        this.nodeTimeout = nodeTimeout;
+        this.leaseDuration = leaseDuration;
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Records this node's heartbeat, renews its leases, refreshes the live node list and takes or
+     * keeps the leader lease. Vendors whose lease another node took over in the meantime are
+     * forgotten and their snapshots dropped, so regaining them later counts as a takeover. Called
+     * every {@code sync.cluster.heartbeat-interval}.
+     */
+    public synchronized void heartbeat() {
+        if (!enabled) return;
+        OffsetDateTime now = repository.now();
+        repository.heartbeat(nodeId, now);
+        repository.renewAll(nodeId, now.plus(leaseDuration));
+        reconcileHeld();
+        List<String> nodes = repository.liveNodes(now.minus(nodeTimeout));
+        if (!nodes.equals(liveNodes)) log.info("Cluster membership: {} (this node: {})", nodes, nodeId);
+        liveNodes = nodes;
+        boolean wasLeader = leader;
+        leader = repository.tryAcquire(LEADER, nodeId, now, now.plus(leaseDuration));
+        if (leader != wasLeader) log.info("Node {} {} cluster leader", nodeId, leader ? "became" : "is no longer");
+        if (leader) repository.deleteNodesBefore(now.minus(nodeTimeout.multipliedBy(10)));
+    }
+
+    public List<String> liveNodes() {
+        return enabled ? liveNodes : List.of(nodeId);
+    }
+
+    /** True if this node should run the cluster-wide jobs. */
+    public boolean isLeader() {
+        return !enabled || leader;
+    }
+
+    /** True if rendezvous hashing over the live nodes picks this node for the vendor. */
+    public boolean isAssigned(String vendor) {
+        if (!enabled) return true;
+        String best = null;
+        long bestScore = 0;
+        for (String node : liveNodes) {
+            long score = score(vendor, node);
+            if (best == null || score > bestScore || (score == bestScore && node.compareTo(best) < 0)) {
+                best = node;
+                bestScore = score;
+            }
+        }
+        return nodeId.equals(best);
+    }
+
+    /** Takes or renews the vendor's lease if the vendor is assigned to this node. */
+    public boolean acquire(String vendor) {
+        if (!enabled) return true;
+        if (!isAssigned(vendor)) return false;
+        OffsetDateTime now = repository.now();
+        if (!repository.tryAcquire(VENDOR + vendor, nodeId, now, now.plus(leaseDuration))) {
+            held.remove(vendor);
+            return false;
+        }
+        if (held.add(vendor)) {
+            log.info("Node {} took over {}", nodeId, vendor);
+            snapshotCache.invalidate(vendor);
+            vendors.find(vendor).ifPresent(VendorClient::forgetDelivered);
+        }
+        return true;
+    }
+
+    /** Node currently holding the vendor's lease, or null (always null with clustering disabled). */
+    public String owner(String vendor) {
+        return enabled ? repository.owner(VENDOR + vendor, repository.now()) : null;
+    }
+
+    /**
+     * Must run inside the sync transaction, just before it commits: fails unless this node still
+     * holds the vendor's lease, and locks the lease row so it cannot change hands before the commit.
+     */
+    public void verifyLease(String vendor) {
+        if (!enabled) return;
+        String owner = repository.lockOwner(VENDOR + vendor);
+        if (!nodeId.equals(owner)) {
+            held.remove(vendor);
+            throw new IllegalStateException("Lease on " + vendor + " is held by " + owner + ", not by this node " + nodeId);
+        }
+    }
+
+    /**
+     * Releases the leases of vendors now assigned to another node, except those {@code busy} says
+     * are still syncing (they are released on a later heartbeat). Returns the released vendors.
+     */
+    public List<String> rebalance(Predicate<String> busy) {
+        if (!enabled) return List.of();
+        List<String> released = new ArrayList<>();
+        for (String lease : repository.leasesOf(nodeId, VENDOR)) {
+            String vendor = lease.substring(VENDOR.length());
+            if (!isAssigned(vendor) && !busy.test(vendor)) {
+                repository.release(lease, nodeId);
+                held.remove(vendor);
+                released.add(vendor);
+            }
+        }
+        if (!released.isEmpty()) log.info("Handed over {} to other nodes", released);
+        return released;
+    }
+
+    /** Leaves the cluster on shutdown so other nodes take over without waiting for expiry. */
+    @PreDestroy
+    public synchronized void leave() {
+        if (!enabled) return;
+        try {
+            repository.releaseAll(nodeId);
+            repository.deleteNode(nodeId);
+            log.info("Node {} left the cluster", nodeId);
+        } catch (RuntimeException e) {
+            log.warn("Could not leave the cluster cleanly, leases will expire: {}", e.getMessage());
+        }
+        liveNodes = List.of();
+        leader = false;
+        held.clear();
+    }
+
+    private void reconcileHeld() {
+        Set<String> leased = new HashSet<>();
+        for (String lease : repository.leasesOf(nodeId, VENDOR)) leased.add(lease.substring(VENDOR.length()));
+        for (String vendor : held) {
+            if (!leased.contains(vendor) && held.remove(vendor)) {
+                log.info("Node {} lost the lease on {}", nodeId, vendor);
+                snapshotCache.invalidate(vendor);
+            }
+        }
+    }
+
+    /** Rendezvous weight: a well-mixed 64-bit hash of (vendor, node). */
+    static long score(String vendor, String node) {
+        long h = 0xcbf29ce484222325L;   // FNV-1a over vendor, NUL, node
+        for (int i = 0; i < vendor.length(); i++) h = (h ^ vendor.charAt(i)) * 0x100000001b3L;
+        h *= 0x100000001b3L;
+        for (int i = 0; i < node.length(); i++) h = (h ^ node.charAt(i)) * 0x100000001b3L;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,183 @@
+package io.stock.sync.service;
+
+import io.stock.sync.service.dto.VendorProduct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+
+/**
+ * What a CSV vendor delivered last time it was committed: the file fingerprint and one
+ * 64-bit digest of (name, stockQuantity) per sku. Used by {@link CsvVendorClient} to skip
+ * unchanged files and to emit only the rows that changed.
+ *
+ * <p>The index is either kept in memory (lost on restart, like the default in-memory DB) or
+ * persisted to a file that is rewritten atomically on every commit. A persisted index is not
+ * written with the database, so it is checked against the stored rows with
+ * {@link #verify(Supplier)} before it is trusted.
+ */
+public class CsvDigestIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CsvDigestIndex.class);
+
+    private static final int MAGIC = 0x53544b49; // "STKI"
+    private static final int VERSION = 1;
+
+    /** Size, last-modified time and CRC32C of a CSV file. */
+    public record Fingerprint(long size, long modifiedMillis, long crc) {
+
+        public boolean sameSizeAndTime(long size, long modifiedMillis) {
+            return this.size == size && this.modifiedMillis == modifiedMillis;
+        }
+    }
+
+    private final Path file;   // null for an in-memory index
+    private Map<String, Long> digests;
+    private Fingerprint fingerprint;
+
+    private CsvDigestIndex(Path file) {
+        this.file = file;
+    }
+
+    public static CsvDigestIndex inMemory() {
+        return new CsvDigestIndex(null);
+    }
+
+    public static CsvDigestIndex persistent(Path file) {
+        return new CsvDigestIndex(file);
+    }
+
+    public synchronized Fingerprint fingerprint() {
+        load();
+        return fingerprint;
+    }
+
+    public synchronized Long digest(String sku) {
+        load();
+        return digests.get(sku);
+    }
+
+    /** Records a committed sync: merges the changed digests and, if given, the new fingerprint. */
+    public synchronized void commit(Map<String, Long> changed, Fingerprint newFingerprint) {
+        load();
+        digests.putAll(changed);
+        if (newFingerprint != null) fingerprint = newFingerprint;
+        if (file != null) save();
+    }
+
+    /**
+     * Keeps the index only if every sku in it still has the digested values in the database, and
+     * clears it otherwise, e.g. after the database was reset, restored or failed over while the
+     * index file survived. {@code stored} maps sku to {@link #digest(VendorProduct)} of the stored
+     * row and is only read when the index is not empty. Returns whether the index was kept.
+     */
+    public synchronized boolean verify(Supplier<Map<String, Long>> stored) {
+        load();
+        if (digests.isEmpty() && fingerprint == null) return true;
+        Map<String, Long> rows = stored.get();
+        for (Map.Entry<String, Long> e : digests.entrySet()) {
+            if (!e.getValue().equals(rows.get(e.getKey()))) {
+                log.warn("Digest index {} does not match the stored rows (first at sku {}), starting empty", file, e.getKey());
+                clear();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Forgets every digest and the fingerprint, as if nothing had been committed yet. */
+    public synchronized void clear() {
+        digests = new HashMap<>();
+        fingerprint = null;
+        if (file != null) save();
+    }
+
+    /** FNV-1a over the fields a sync writes; the sku is the map key so it is not part of the digest. */
+    public static long digest(VendorProduct vp) {
+        long h = 0xcbf29ce484222325L;
+        h = fnv(h, vp.name());
+        h = (h ^ 0x1f) * 0x100000001b3L; // field separator
+        return fnv(h, String.valueOf(vp.stockQuantity()));
+    }
+
+    private static long fnv(long h, String s) {
+        if (s == null) return (h ^ 0xff) * 0x100000001b3L;
+        for (int i = 0; i < s.length(); i++) {
+            h = (h ^ s.charAt(i)) * 0x100000001b3L;
+        }
+        return h;
+    }
+
+    public static long crc32c(Path path) throws IOException {
+        CRC32C crc = new CRC32C();
+        byte[] buf = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(path)) {
+            int n;
+            while ((n = in.read(buf)) > 0) crc.update(buf, 0, n);
+        }
+        return crc.getValue();
+    }
+
+    private void load() {
+        if (digests != null) return;
+        digests = new HashMap<>();
+        if (file == null || !Files.exists(file)) return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                log.warn("Ignoring digest index {} with unknown format", file);
+                return;
+            }
+            if (in.readBoolean()) {
+                fingerprint = new Fingerprint(in.readLong(), in.readLong(), in.readLong());
+            }
+            int count = in.readInt();
+            Map<String, Long> loaded = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                loaded.put(in.readUTF(), in.readLong());
+            }
+            digests = loaded;
+        } catch (IOException e) {
+            // a broken index only costs one full re-sync
+            log.warn("Could not read digest index {}, starting empty: {}", file, e.getMessage());
+            fingerprint = null;
+        }
+    }
+
+    private void save() {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            if (file.getParent() != null) Files.createDirectories(file.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeBoolean(fingerprint != null);
+                if (fingerprint != null) {
+                    out.writeLong(fingerprint.size());
+                    out.writeLong(fingerprint.modifiedMillis());
+                    out.writeLong(fingerprint.crc());
+                }
+                out.writeInt(digests.size());
+                for (Map.Entry<String, Long> e : digests.entrySet()) {
+                    out.writeUTF(e.getKey());
+                    out.writeLong(e.getValue());
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // the in-memory state is still correct; the next commit retries the write
+            log.error("Could not persist digest index {}: {}", file, e.getMessage(), e);
+        }
+    }
+}
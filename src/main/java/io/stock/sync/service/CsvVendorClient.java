@@ -8,49 +8,234 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.FileReader;
+import java.io.IOException;
 import java.io.Reader;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class CsvVendorClient implements VendorClient {
 
     private static final Logger log = LoggerFactory.getLogger(CsvVendorClient.class);
 
+    /** How the file is parsed; both modes produce the same rows. */
+    public enum ParserMode {
+        /** commons-csv over a buffered reader; handles every CSV quirk. */
+        COMMONS,
+        /** {@link MappedCsvParser}: memory-mapped and parsed in parallel; for very large files. */
+        MAPPED
+    }
+
     private final String name;
     private final String path;
+    private final CsvDigestIndex index;   // null = full sync every time
+    private final MappedCsvParser mappedParser;  // null in COMMONS mode
+    private final boolean strict;         // a missing file or a malformed row fails the stream instead of ending it
+    private final boolean trustModifiedTime;  // skip on size + mtime alone, without reading the file for its CRC
+    private volatile Pending pending;     // what the last stream() delivered, applied on commit
 
     public CsvVendorClient(String name, String path) {
+        this(name, path, null);
+    }
+
+    /**
+     * @param index when non-null the client runs incrementally: an unchanged file is skipped and a
+     *              changed one only emits rows whose digest differs from the last committed sync
+     */
+    public CsvVendorClient(String name, String path, CsvDigestIndex index) {
+        this(name, path, index, ParserMode.COMMONS);
+    }
+
+    public CsvVendorClient(String name, String path, CsvDigestIndex index, ParserMode parserMode) {
+        this(name, path, index, parserMode, false);
+    }
+
+    /**
+     * @param trustModifiedTime when set, a file whose size and mtime match the last committed sync
+     *                          is skipped without being read; otherwise its CRC32C confirms it
+     */
+    public CsvVendorClient(String name, String path, CsvDigestIndex index, ParserMode parserMode, boolean trustModifiedTime) {
+        this(name, path, index, parserMode, false, trustModifiedTime);
+    }
+
+    private CsvVendorClient(String name, String path, CsvDigestIndex index, ParserMode parserMode,
+                            boolean strict, boolean trustModifiedTime) {
         this.name = name;
         this.path = path;
+        this.index = index;
+        this.mappedParser = parserMode == ParserMode.MAPPED ? new MappedCsvParser() : null;
+        this.strict = strict;
+        this.trustModifiedTime = trustModifiedTime;
+    }
+
+    /**
+     * Client for one dropped file that is applied all or nothing: if the file is missing or cannot
+     * be read to the end, the stream throws once the readable rows are consumed, so the sync rolls
+     * back instead of committing part of the file.
+     */
+    public static CsvVendorClient ofFile(String name, Path file, ParserMode parserMode) {
+        return new CsvVendorClient(name, file.toString(), null, parserMode, true, false);
     }
 
     @Override
     public String vendorName() { return name; }
 
     @Override
-    public List<VendorProduct> fetch() {
+    public Stream<VendorProduct> stream() {
+        pending = null;
         File f = new File(path);
         if (!f.exists()) {
+            if (strict) throw new IllegalStateException("CSV for " + name + " not found at " + path);
             log.warn("CSV for {} not found at {}, returning empty", name, path);
-            return List.of();
-        }
-        List<VendorProduct> list = new ArrayList<>();
-        try (Reader reader = new FileReader(f, StandardCharsets.UTF_8);
-             CSVParser parser = CSVFormat.DEFAULT.builder()
-                     .setHeader("sku","name","stockQuantity")
-                     .setSkipHeaderRecord(true)
-                     .build()
-                     .parse(reader)) {
-            for (CSVRecord rec : parser) {
+            return Stream.empty();
+        }
+        if (strict) {
+            AtomicBoolean complete = new AtomicBoolean();
+            Stream<VendorProduct> rows = parse(f, () -> complete.set(true));
+            // checked once the rows are exhausted, i.e. still inside the consumer's transaction
+            return Stream.concat(rows, Stream.of((VendorProduct) null).filter(end -> {
+                if (!complete.get()) throw new VendorDataException("CSV " + path + " for " + name + " could not be read completely");
+                return false;
+            }));
+        }
+        if (index == null) return parse(f, () -> {});
+        try {
+            return incremental(f);
+        } catch (IOException e) {
+            log.error("CSV read error for {} at {}: {}", name, path, e.getMessage(), e);
+            return Stream.empty();
+        }
+    }
+
+    @Override
+    public void onCommitted() {
+        Pending p = pending;
+        pending = null;
+        if (p == null) return;
+        // the fingerprint only moves forward when the whole file made it in; after a
+        // malformed row the file is diffed again next time
+        index.commit(p.digests, p.complete ? p.fingerprint : null);
+    }
+
+    /** Drops the digest index, so the next sync applies the whole file again. */
+    @Override
+    public void forgetDelivered() {
+        if (index != null) index.clear();
+    }
+
+    private Stream<VendorProduct> incremental(File f) throws IOException {
+        CsvDigestIndex.Fingerprint last = index.fingerprint();
+        long size = f.length();
+        long modified = f.lastModified();
+        if (trustModifiedTime && last != null && last.sameSizeAndTime(size, modified)) {
+            log.info("CSV for {} unchanged (size/mtime), skipping", name);
+            return Stream.empty();
+        }
+        CsvDigestIndex.Fingerprint current = new CsvDigestIndex.Fingerprint(size, modified, CsvDigestIndex.crc32c(f.toPath()));
+        Pending p = new Pending(current);
+        pending = p;
+        if (last != null && last.size() == size && last.crc() == current.crc()) {
+            log.info("CSV for {} unchanged (size/CRC32C), skipping", name);
+            p.complete = true;
+            return Stream.empty();
+        }
+        return parse(f, () -> p.complete = true).filter(vp -> {
+            long digest = CsvDigestIndex.digest(vp);
+            Long previous = p.digests.containsKey(vp.sku()) ? p.digests.get(vp.sku()) : index.digest(vp.sku());
+            if (previous != null && previous == digest) return false;
+            p.digests.put(vp.sku(), digest);
+            return true;
+        });
+    }
+
+    private Stream<VendorProduct> parse(File f, Runnable onComplete) {
+        if (mappedParser != null) {
+            try {
+                return mappedParser.parse(f.toPath(), name, onComplete);
+            } catch (Exception e) {
+                log.error("CSV read error for {} at {}: {}", name, path, e.getMessage(), e);
+                return Stream.empty();
+            }
+        }
+        Reader reader = null;
+        try {
+            reader = new FileReader(f, StandardCharsets.UTF_8);
+            CSVParser parser = CSVFormat.DEFAULT.builder()
+                    .setHeader("sku","name","stockQuantity")
+                    .setSkipHeaderRecord(true)
+                    .build()
+                    .parse(reader);
+            return StreamSupport.stream(new RecordSpliterator(parser.iterator(), onComplete), false)
+                    .onClose(() -> close(parser));
+        } catch (Exception e) {
+            log.error("CSV read error for {} at {}: {}", name, path, e.getMessage(), e);
+            close(reader);
+            return Stream.empty();
+        }
+    }
+
+    private void close(AutoCloseable resource) {
+        if (resource == null) return;
+        try {
+            resource.close();
+        } catch (Exception e) {
+            log.warn("Failed to close CSV for {} at {}: {}", name, path, e.getMessage());
+        }
+    }
+
+    /** Digests and fingerprint produced by one incremental stream, not yet committed. */
+    private static final class Pending {
+        final CsvDigestIndex.Fingerprint fingerprint;
+        final Map<String, Long> digests = new HashMap<>();
+        volatile boolean complete;
+
+        Pending(CsvDigestIndex.Fingerprint fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    /** Maps records one at a time; a malformed row ends the stream with the rows read so far. */
+    private class RecordSpliterator extends Spliterators.AbstractSpliterator<VendorProduct> {
+        private final Iterator<CSVRecord> records;
+        private final Runnable onComplete;
+        private boolean failed;
+
+        RecordSpliterator(Iterator<CSVRecord> records, Runnable onComplete) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.records = records;
+            this.onComplete = onComplete;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super VendorProduct> action) {
+            if (failed) return false;
+            VendorProduct vp;
+            try {
+                if (!records.hasNext()) {
+                    onComplete.run();
+                    return false;
+                }
+                CSVRecord rec = records.next();
                 String sku = rec.get("sku").trim();
                 String pname = rec.get("name").trim();
                 Integer qty = Integer.valueOf(rec.get("stockQuantity").trim());
-                list.add(new VendorProduct(sku, pname, qty, name));
+                vp = new VendorProduct(sku, pname, qty, name);
+            } catch (Exception e) {
+                failed = true;
+                log.error("CSV read error for {} at {}: {}", name, path, e.getMessage(), e);
+                return false;
             }
-        } catch (Exception e) {
-            log.error("CSV read error for {} at {}: {}", name, path, e.getMessage(), e);
+            // outside the try: failures in the consumer must propagate, not end the stream quietly
+            action.accept(vp);
+            return true;
         }
-        return list;
     }
 }
@@ -0,0 +1,25 @@
+package io.stock.sync.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/** Log sink; on by default, disable with {@code outbox.log.enabled=false}. */
+@Component
+@ConditionalOnProperty(name = "outbox.log.enabled", havingValue = "true", matchIfMissing = true)
+public class LoggingOutboxSubscriber implements OutboxSubscriber {
+
+    private static final Logger log = LoggerFactory.getLogger(LoggingOutboxSubscriber.class);
+
+    @Override
+    public String name() { return "log"; }
+
+    @Override
+    public void deliver(List<StockOutNotification> notifications) {
+        notifications.forEach(n -> log.info("STOCK-OUT notification #{} {}:{} ({} -> 0) at {}",
+                n.eventId(), n.vendor(), n.sku(), n.previousQuantity(), n.occurredAt()));
+    }
+}
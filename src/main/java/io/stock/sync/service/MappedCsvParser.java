@@ -0,0 +1,406 @@
+package io.stock.sync.service;
+
+import io.stock.sync.service.dto.VendorProduct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Faster alternative to commons-csv for very large {@code sku,name,stockQuantity} files.
+ *
+ * <p>The file is read in windows of {@code chunkBytes * parallelism} bytes cut at newline
+ * boundaries. Each window is one fork/join task on the common {@link ForkJoinPool}: it halves its
+ * range at a newline until the pieces are at most {@code chunkBytes}, and each piece maps and
+ * parses its region. Rows are handed out in file order, and the next window is parsed while the
+ * current one is consumed, so memory stays bounded by two windows.
+ *
+ * <p>There is no reader, line buffer or record object per row: {@code stockQuantity} is parsed
+ * straight from the mapped bytes and usually boxed from a shared cache, and the text fields are
+ * decoded from one reused scratch buffer per piece. What remains per row is what the stream
+ * hands out: the sku and name strings and the {@link VendorProduct}.
+ *
+ * <p>Results match {@link CsvVendorClient}'s commons-csv path (header skipped, blank lines ignored,
+ * fields trimmed, {@code ""} escapes inside quotes, parsing stops at the first malformed row),
+ * with two restrictions: lines end in LF or CRLF (not a lone CR), and quoted fields must not
+ * contain line breaks. Such a row is treated as malformed.
+ */
+class MappedCsvParser {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedCsvParser.class);
+
+    static final int DEFAULT_CHUNK_BYTES = 16 * 1024 * 1024;
+
+    /** Boxed quantities below this come from {@link #QUANTITIES} instead of a new {@link Integer}. */
+    private static final int CACHED_QUANTITIES = 10_000;
+    private static final Integer[] QUANTITIES = new Integer[CACHED_QUANTITIES];
+
+    static {
+        for (int i = 0; i < CACHED_QUANTITIES; i++) QUANTITIES[i] = i;
+    }
+
+    private final int chunkBytes;
+    private final long windowBytes;
+    private final ForkJoinPool pool;
+
+    MappedCsvParser() {
+        this(DEFAULT_CHUNK_BYTES, ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    MappedCsvParser(int chunkBytes, int parallelism) {
+        this.chunkBytes = chunkBytes;
+        this.windowBytes = (long) chunkBytes * Math.max(1, parallelism);
+        this.pool = ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Streams the rows of {@code path}; {@code onComplete} runs once the last row was read
+     * without error. The stream must be closed to release the file.
+     */
+    Stream<VendorProduct> parse(Path path, String vendor, Runnable onComplete) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            WindowSpliterator spliterator = new WindowSpliterator(channel, skipHeader(channel, channel.size()),
+                    vendor, path, onComplete);
+            return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** Position after the first non-blank line, which commons-csv treats as the header record. */
+    private static long skipHeader(FileChannel channel, long size) throws IOException {
+        long pos = 0;
+        while (pos < size) {
+            long next = nextLineStart(channel, pos, size);
+            if (!isBlank(channel, pos, next)) return next;
+            pos = next;
+        }
+        return size;
+    }
+
+    private static boolean isBlank(FileChannel channel, long from, long to) throws IOException {
+        if (to - from > 2) return false;
+        ByteBuffer buf = ByteBuffer.allocate((int) (to - from));
+        channel.read(buf, from);
+        for (int i = 0; i < buf.position(); i++) {
+            if (buf.get(i) != '\n' && buf.get(i) != '\r') return false;
+        }
+        return true;
+    }
+
+    private static long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(8192);
+        long pos = from;
+        while (pos < size) {
+            buf.clear();
+            int n = channel.read(buf, pos);
+            if (n <= 0) break;
+            for (int i = 0; i < n; i++) {
+                if (buf.get(i) == '\n') return pos + i + 1;
+            }
+            pos += n;
+        }
+        return size;
+    }
+
+    /** Rows of one range in file order; {@code malformed} means parsing stopped early and no later row may be used. */
+    private record ChunkResult(List<VendorProduct> rows, boolean malformed) {
+
+        /** {@code this} followed by {@code next}, unless this one already stopped. */
+        ChunkResult then(ChunkResult next) {
+            if (malformed) return this;
+            List<VendorProduct> both = new ArrayList<>(rows.size() + next.rows.size());
+            both.addAll(rows);
+            both.addAll(next.rows);
+            return new ChunkResult(both, next.malformed);
+        }
+    }
+
+    /** Hands out window results in file order while the following window is parsed. */
+    private class WindowSpliterator extends Spliterators.AbstractSpliterator<VendorProduct> {
+        private final FileChannel channel;
+        private final long size;
+        private final String vendor;
+        private final Path path;
+        private final Runnable onComplete;
+        private final Deque<ForkJoinTask<ChunkResult>> inFlight = new ArrayDeque<>();
+        private long nextStart;
+        private Iterator<VendorProduct> current = List.<VendorProduct>of().iterator();
+        private boolean done;
+
+        WindowSpliterator(FileChannel channel, long start, String vendor, Path path, Runnable onComplete) throws IOException {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.channel = channel;
+            this.size = channel.size();
+            this.nextStart = start;
+            this.vendor = vendor;
+            this.path = path;
+            this.onComplete = onComplete;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super VendorProduct> action) {
+            while (!current.hasNext()) {
+                if (done) return false;
+                ForkJoinTask<ChunkResult> task;
+                try {
+                    fill();
+                    task = inFlight.poll();
+                } catch (IOException e) {
+                    log.error("CSV read error for {} at {}: {}", vendor, path, e.getMessage(), e);
+                    done = true;
+                    return false;
+                }
+                if (task == null) {
+                    done = true;
+                    onComplete.run();
+                    return false;
+                }
+                ChunkResult result;
+                try {
+                    result = task.get();
+                } catch (ExecutionException e) {
+                    log.error("CSV read error for {} at {}: {}", vendor, path, e.getCause().getMessage(), e.getCause());
+                    done = true;
+                    return false;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    done = true;
+                    return false;
+                }
+                current = result.rows().iterator();
+                if (result.malformed()) done = true;
+            }
+            action.accept(current.next());
+            return true;
+        }
+
+        /** Keeps the window being consumed plus the next one submitted. */
+        private void fill() throws IOException {
+            while (nextStart < size && inFlight.size() < 2) {
+                long end = nextStart + windowBytes >= size ? size : nextLineStart(channel, nextStart + windowBytes, size);
+                inFlight.add(pool.submit(new RangeTask(channel, nextStart, end, vendor, path)));
+                nextStart = end;
+            }
+        }
+
+        void close() {
+            done = true;
+            inFlight.forEach(t -> t.cancel(true));
+            inFlight.clear();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close CSV for {} at {}: {}", vendor, path, e.getMessage());
+            }
+        }
+    }
+
+    /** Splits a newline-aligned range in two until the pieces fit {@code chunkBytes}, then parses them. */
+    private final class RangeTask extends RecursiveTask<ChunkResult> {
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+        private final String vendor;
+        private final Path path;
+
+        RangeTask(FileChannel channel, long start, long end, String vendor, Path path) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.vendor = vendor;
+            this.path = path;
+        }
+
+        @Override
+        protected ChunkResult compute() {
+            if (end - start > chunkBytes) {
+                long mid;
+                try {
+                    mid = nextLineStart(channel, start + (end - start) / 2, end);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Cannot read " + path, e);
+                }
+                if (mid < end) {
+                    RangeTask first = new RangeTask(channel, start, mid, vendor, path);
+                    RangeTask second = new RangeTask(channel, mid, end, vendor, path);
+                    invokeAll(first, second);
+                    return first.join().then(second.join());
+                }
+            }
+            return new ChunkParser(channel, start, end, vendor, path).parse();
+        }
+    }
+
+    /** Parses one newline-aligned region of the mapped file. */
+    private static final class ChunkParser {
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+        private final String vendor;
+        private final Path path;
+
+        private MappedByteBuffer buf;
+        private byte[] scratch = new byte[256];
+        private int pos;        // cursor within the current line
+        private int lineEnd;    // exclusive, '\r' and '\n' stripped
+
+        ChunkParser(FileChannel channel, long start, long end, String vendor, Path path) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.vendor = vendor;
+            this.path = path;
+        }
+
+        ChunkResult parse() {
+            try {
+                buf = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot map " + path + " [" + start + "," + end + ")", e);
+            }
+            // sized for ~32-byte lines, so the list rarely has to grow
+            List<VendorProduct> rows = new ArrayList<>((int) Math.min(Integer.MAX_VALUE - 8, (end - start) / 32 + 16));
+            int limit = buf.limit();
+            int lineStart = 0;
+            while (lineStart < limit) {
+                int nl = lineStart;
+                while (nl < limit && buf.get(nl) != '\n') nl++;
+                lineEnd = nl;
+                if (lineEnd > lineStart && buf.get(lineEnd - 1) == '\r') lineEnd--;
+                if (lineEnd > lineStart) {
+                    pos = lineStart;
+                    try {
+                        rows.add(parseLine());
+                    } catch (RuntimeException e) {
+                        log.error("CSV read error for {} at {}: {}", vendor, path, e.getMessage(), e);
+                        return new ChunkResult(rows, true);
+                    }
+                }
+                lineStart = nl + 1;
+            }
+            return new ChunkResult(rows, false);
+        }
+
+        private VendorProduct parseLine() {
+            String sku = textField();
+            expectDelimiter("name");
+            String name = textField();
+            expectDelimiter("stockQuantity");
+            // both leave pos on the line end or a ',' (extra columns are ignored, as by commons-csv)
+            Integer qty = pos < lineEnd && buf.get(pos) == '"' ? Integer.valueOf(textField()) : intField();
+            return new VendorProduct(sku, name, qty, vendor);
+        }
+
+        private void expectDelimiter(String nextHeader) {
+            if (pos >= lineEnd) {
+                throw new IllegalArgumentException("Mapping for " + nextHeader + " not found, record too short");
+            }
+            pos++; // the ','
+        }
+
+        /** Reads a possibly quoted field at {@code pos}, trimmed like {@code String.trim()}. */
+        private String textField() {
+            int len = 0;
+            if (pos < lineEnd && buf.get(pos) == '"') {
+                pos++;
+                while (true) {
+                    if (pos >= lineEnd) {
+                        throw new IllegalArgumentException("Unterminated quoted field (line breaks inside quotes are not supported)");
+                    }
+                    byte b = buf.get(pos++);
+                    if (b == '"') {
+                        if (pos < lineEnd && buf.get(pos) == '"') {
+                            pos++;
+                        } else {
+                            break;
+                        }
+                    }
+                    len = put(len, b);
+                }
+                // commons-csv allows whitespace between the closing quote and the delimiter
+                while (pos < lineEnd && (buf.get(pos) == ' ' || buf.get(pos) == '\t')) pos++;
+                if (pos < lineEnd && buf.get(pos) != ',') {
+                    throw new IllegalArgumentException("Invalid char between encapsulated token and delimiter at " + (start + pos));
+                }
+            } else {
+                int from = pos;
+                while (pos < lineEnd && buf.get(pos) != ',') pos++;
+                len = pos - from;
+                if (len > scratch.length) scratch = new byte[Math.max(len, scratch.length * 2)];
+                buf.get(from, scratch, 0, len);
+            }
+            int from = 0;
+            while (from < len && (scratch[from] & 0xff) <= ' ') from++;
+            while (len > from && (scratch[len - 1] & 0xff) <= ' ') len--;
+            return new String(scratch, from, len - from, StandardCharsets.UTF_8);
+        }
+
+        private int put(int len, byte b) {
+            if (len == scratch.length) {
+                byte[] bigger = new byte[scratch.length * 2];
+                System.arraycopy(scratch, 0, bigger, 0, len);
+                scratch = bigger;
+            }
+            scratch[len] = b;
+            return len + 1;
+        }
+
+        /** Parses an unquoted integer field in place, with {@code Integer.valueOf} semantics. */
+        private Integer intField() {
+            int from = pos;
+            while (pos < lineEnd && buf.get(pos) != ',') pos++;
+            int to = pos;
+            while (from < to && (buf.get(from) & 0xff) <= ' ') from++;
+            while (to > from && (buf.get(to - 1) & 0xff) <= ' ') to--;
+            if (from == to) throw new NumberFormatException("For input string: \"\"");
+            boolean negative = false;
+            int i = from;
+            byte first = buf.get(i);
+            if (first == '-' || first == '+') {
+                negative = first == '-';
+                if (++i == to) throw numberFormat(from, to);
+            }
+            // accumulate negatively so Integer.MIN_VALUE fits, as Integer.parseInt does
+            int limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+            int result = 0;
+            for (; i < to; i++) {
+                int digit = buf.get(i) - '0';
+                if (digit < 0 || digit > 9 || result < limit / 10) throw numberFormat(from, to);
+                result *= 10;
+                if (result < limit + digit) throw numberFormat(from, to);
+                result -= digit;
+            }
+            int value = negative ? result : -result;
+            return value >= 0 && value < CACHED_QUANTITIES ? QUANTITIES[value] : Integer.valueOf(value);
+        }
+
+        private NumberFormatException numberFormat(int from, int to) {
+            byte[] raw = new byte[to - from];
+            buf.get(from, raw);
+            return new NumberFormatException("For input string: \"" + new String(raw, StandardCharsets.UTF_8) + "\"");
+        }
+    }
+}
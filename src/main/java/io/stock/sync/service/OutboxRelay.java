@@ -0,0 +1,86 @@
+package io.stock.sync.service;
+
+import io.stock.sync.model.OutboxMessage;
+import io.stock.sync.repository.OutboxMessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Drains the stock-out outbox to every {@link OutboxSubscriber}, outside any sync transaction.
+ * Delivered messages are deleted; a rejected batch is retried with exponential backoff.
+ * Delivery is at-least-once per message and unordered: messages behind a backed-off batch, even
+ * for the same sku, go out as soon as they are due.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxMessageRepository repository;
+    private final List<OutboxSubscriber> subscribers;
+    private final int batchSize;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+
+    public OutboxRelay(OutboxMessageRepository repository,
+                       List<OutboxSubscriber> subscribers,
+                       @Value("${outbox.batch-size:500}") int batchSize,
+                       @Value("${outbox.initial-backoff:5s}") Duration initialBackoff,
+                       @Value("${outbox.max-backoff:10m}") Duration maxBackoff) {
+        this.repository = repository;
+        this.subscribers = subscribers;
+        this.batchSize = batchSize;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    /** Delivers due messages batch by batch until none are left or a batch is rejected. */
+    public int relayPending() {
+        int delivered = 0;
+        int n;
+        do {
+            n = relayBatch();
+            delivered += n;
+        } while (n == batchSize);
+        return delivered;
+    }
+
+    /** Returns the number of messages delivered (0 if the batch was rejected). */
+    int relayBatch() {
+        OffsetDateTime now = OffsetDateTime.now();
+        List<OutboxMessage> batch = repository.findDue(now, PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) return 0;
+        List<StockOutNotification> notifications = batch.stream().map(StockOutNotification::of).toList();
+        List<Long> ids = batch.stream().map(OutboxMessage::getId).toList();
+        for (OutboxSubscriber subscriber : subscribers) {
+            try {
+                subscriber.deliver(notifications);
+            } catch (RuntimeException e) {
+                int attempts = batch.stream().mapToInt(OutboxMessage::getAttempts).max().orElse(0) + 1;
+                OffsetDateTime next = now.plus(backoff(attempts));
+                log.warn("Outbox subscriber {} rejected {} notifications (attempt {}), retrying after {}: {}",
+                        subscriber.name(), batch.size(), attempts, next, e.getMessage());
+                repository.markFailed(ids, next, truncate(subscriber.name() + ": " + e.getMessage()));
+                return 0;
+            }
+        }
+        repository.deleteAllByIdInBatch(ids);
+        return batch.size();
+    }
+
+    private Duration backoff(int attempts) {
+        Duration d = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return d.compareTo(maxBackoff) > 0 ? maxBackoff : d;
+    }
+
+    private static String truncate(String s) {
+        return s == null || s.length() <= 1000 ? s : s.substring(0, 1000);
+    }
+}
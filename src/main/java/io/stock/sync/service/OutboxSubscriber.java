@@ -0,0 +1,17 @@
+package io.stock.sync.service;
+
+import java.util.List;
+
+/**
+ * Receives stock-out notifications from the {@link OutboxRelay}. Delivery is at-least-once and
+ * unordered: a batch is redelivered (to every subscriber) until all subscribers accepted it, while
+ * later notifications may arrive in between, so implementations should be idempotent on
+ * {@link StockOutNotification#eventId()} and use {@link StockOutNotification#occurredAt()} for order.
+ * Throwing rejects the whole batch.
+ */
+public interface OutboxSubscriber {
+
+    String name();
+
+    void deliver(List<StockOutNotification> notifications);
+}
@@ -0,0 +1,298 @@
+package io.stock.sync.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.micrometer.core.instrument.Counter;
+import io.stock.sync.service.dto.VendorProduct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * REST vendor whose catalog is split across pages (see {@link Pagination}).
+ *
+ * <p>Pages are fetched on virtual threads ahead of the consumer: index-addressed pages
+ * ({@code PAGE}/{@code OFFSET}) keep up to {@code concurrency} requests in flight, while
+ * link/cursor chains prefetch the next page as soon as its address is known. Rows are still
+ * emitted in page order, and at most {@code concurrency + 1} pages are held in memory.
+ * A page that still fails after retries ends the stream with the rows read so far, whereas a
+ * link/cursor chain that leads back to a page already fetched fails the sync with a
+ * {@link VendorDataException} instead of looping forever.
+ *
+ * <p>Unlike {@link RestVendorClient}, requests are not conditional: each page would carry its
+ * own {@code ETag}/{@code Last-Modified}, so paged vendors are always fetched in full.
+ */
+public class PagedRestVendorClient implements VendorClient {
+
+    private static final Logger log = LoggerFactory.getLogger(PagedRestVendorClient.class);
+
+    private static final Pattern NEXT_LINK = Pattern.compile("<([^>]*)>\\s*;[^,]*rel=\"?next\"?");
+
+    private final String name;
+    private final String url;
+    private final RestTemplate restTemplate;
+    private final Pagination pagination;
+    private final RetryTemplate retry;
+    private final Counter retries;
+
+    public PagedRestVendorClient(String name, String url, RestTemplate restTemplate, Pagination pagination) {
+        this(name, url, restTemplate, pagination, RestVendorClient.defaultRetryTemplate());
+    }
+
+    public PagedRestVendorClient(String name, String url, RestTemplate restTemplate, Pagination pagination,
+                                 RetryTemplate retry) {
+        this.name = name;
+        this.url = url;
+        this.restTemplate = restTemplate;
+        this.pagination = pagination;
+        this.retry = retry;
+        this.retries = SyncMetrics.retries(name);
+    }
+
+    @Override
+    public String vendorName() { return name; }
+
+    @Override
+    public Stream<VendorProduct> stream() {
+        log.info("Fetching {} from {} ({} pagination)", name, url, pagination.getStrategy());
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        PageSpliterator pages = switch (pagination.getStrategy()) {
+            case PAGE, OFFSET -> new IndexedPages(executor);
+            case NEXT_LINK, CURSOR -> new LinkedPages(executor);
+            case NONE -> throw new IllegalStateException("Vendor " + name + " is not paginated");
+        };
+        return StreamSupport.stream(pages, false).onClose(executor::shutdownNow);
+    }
+
+    private record Page(List<VendorProduct> items, URI next) {}
+
+    private Page fetchPage(URI uri) {
+        return retry.execute(ctx -> {
+            if (ctx.getRetryCount() > 0) retries.increment();
+            return restTemplate.execute(uri, HttpMethod.GET,
+                    req -> {
+                        req.getHeaders().setAccept(List.of(MediaType.APPLICATION_JSON));
+                        req.getHeaders().set(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+                    },
+                    resp -> readPage(uri, resp));
+        });
+    }
+
+    private Page readPage(URI uri, ClientHttpResponse response) throws IOException {
+        HttpHeaders headers = response.getHeaders();
+        List<VendorProduct> items = new ArrayList<>();
+        String next = null;
+        String cursor = null;
+        try (InputStream body = RestVendorClient.decode(response.getBody(), headers.getFirst(HttpHeaders.CONTENT_ENCODING))) {
+            if (body != null) {
+                JsonParser parser = RestVendorClient.MAPPER.getFactory().createParser(body);
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.START_ARRAY) {
+                    readItems(parser, items);
+                } else if (token == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String field = parser.currentName();
+                        JsonToken value = parser.nextToken();
+                        if (field.equals(pagination.getItemsField()) && value == JsonToken.START_ARRAY) {
+                            readItems(parser, items);
+                        } else if (field.equals(pagination.getNextField())) {
+                            next = parser.getValueAsString();
+                        } else if (field.equals(pagination.getCursorField())) {
+                            cursor = parser.getValueAsString();
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else {
+                    throw new IOException("Expected a JSON array or object but got " + token);
+                }
+            }
+        }
+        return new Page(items, nextAddress(uri, headers, next, cursor));
+    }
+
+    private void readItems(JsonParser parser, List<VendorProduct> into) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) throw new IOException("Page ended before the items array was closed");
+            if (token == JsonToken.VALUE_NULL) continue;
+            RestVendorClient.Item i = RestVendorClient.MAPPER.readValue(parser, RestVendorClient.Item.class);
+            into.add(new VendorProduct(i.sku, i.name, i.stockQuantity, name));
+        }
+    }
+
+    private URI nextAddress(URI current, HttpHeaders headers, String next, String cursor) {
+        switch (pagination.getStrategy()) {
+            case NEXT_LINK -> {
+                if (next == null) {
+                    String link = headers.getFirst(HttpHeaders.LINK);
+                    Matcher m = link == null ? null : NEXT_LINK.matcher(link);
+                    if (m != null && m.find()) next = m.group(1);
+                }
+                return next == null || next.isBlank() ? null : current.resolve(next);
+            }
+            case CURSOR -> {
+                return cursor == null || cursor.isBlank() ? null
+                        : UriComponentsBuilder.fromUriString(url)
+                        .replaceQueryParam(pagination.getCursorParam(), cursor)
+                        .build().encode().toUri();
+            }
+            default -> {
+                return null;
+            }
+        }
+    }
+
+    private URI indexedAddress(long index) {
+        UriComponentsBuilder b = UriComponentsBuilder.fromUriString(url);
+        if (pagination.getStrategy() == Pagination.Strategy.PAGE) {
+            b.replaceQueryParam(pagination.getPageParam(), pagination.getFirstPage() + index)
+                    .replaceQueryParam(pagination.getSizeParam(), pagination.getPageSize());
+        } else {
+            b.replaceQueryParam(pagination.getOffsetParam(), index * pagination.getPageSize())
+                    .replaceQueryParam(pagination.getLimitParam(), pagination.getPageSize());
+        }
+        return b.build().encode().toUri();
+    }
+
+    /** Emits the rows of completed pages in order; subclasses decide which page to request next. */
+    private abstract class PageSpliterator extends Spliterators.AbstractSpliterator<VendorProduct> {
+        final ExecutorService executor;
+        final Deque<Future<Page>> inFlight = new ArrayDeque<>();
+        private Iterator<VendorProduct> current = List.<VendorProduct>of().iterator();
+        boolean done;
+
+        PageSpliterator(ExecutorService executor) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.executor = executor;
+        }
+
+        /** Schedules further page requests; called before waiting on the oldest one. */
+        abstract void fill();
+
+        /** Inspects a completed page, e.g. to stop or to chain the next request. */
+        abstract void onPage(Page page);
+
+        void submit(URI uri) {
+            inFlight.add(executor.submit(() -> fetchPage(uri)));
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super VendorProduct> action) {
+            while (!current.hasNext()) {
+                if (done) return false;
+                fill();
+                Future<Page> next = inFlight.poll();
+                if (next == null) {
+                    done = true;
+                    return false;
+                }
+                try {
+                    Page page = next.get();
+                    onPage(page);
+                    current = page.items().iterator();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof VendorCircuitBreaker.OpenException open) {
+                        log.info("Skipping the rest of {}: {}", name, open.getMessage());
+                    } else {
+                        log.error("Fetch failed for {} after retries, stopping at this page: {}",
+                                name, e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+                    }
+                    stop();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    stop();
+                }
+            }
+            action.accept(current.next());
+            return true;
+        }
+
+        void stop() {
+            done = true;
+            inFlight.forEach(f -> f.cancel(true));
+            inFlight.clear();
+        }
+    }
+
+    /** PAGE/OFFSET: addresses are known upfront, so several pages are requested concurrently. */
+    private class IndexedPages extends PageSpliterator {
+        private long nextIndex;
+
+        IndexedPages(ExecutorService executor) {
+            super(executor);
+        }
+
+        @Override
+        void fill() {
+            while (!done && inFlight.size() < Math.max(1, pagination.getConcurrency())) {
+                submit(indexedAddress(nextIndex++));
+            }
+        }
+
+        @Override
+        void onPage(Page page) {
+            // a short page is the last one; anything requested beyond it is discarded
+            if (page.items().size() < pagination.getPageSize()) stop();
+        }
+    }
+
+    /** NEXT_LINK/CURSOR: each page names the next, which is prefetched while this one is consumed. */
+    private class LinkedPages extends PageSpliterator {
+        private final Set<URI> visited = new HashSet<>();
+        private boolean started;
+
+        LinkedPages(ExecutorService executor) {
+            super(executor);
+        }
+
+        @Override
+        void fill() {
+            if (!started) {
+                started = true;
+                URI first = URI.create(url);
+                visited.add(first);
+                submit(first);
+            }
+        }
+
+        @Override
+        void onPage(Page page) {
+            if (page.next() == null) return;
+            if (!visited.add(page.next())) {
+                stop();
+                throw new VendorDataException("Vendor " + name + " links back to " + page.next()
+                        + " after " + visited.size() + " pages");
+            }
+            submit(page.next());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package io.stock.sync.service;
+
+/**
+ * How a REST vendor splits its catalog across requests. Bound from {@code vendors.rest[].pagination}.
+ *
+ * <p>A page body is either a bare JSON array of items or an object holding the items under
+ * {@link #getItemsField()} plus, for {@link Strategy#NEXT_LINK} / {@link Strategy#CURSOR}, the
+ * link/token to the next page.
+ */
+public class Pagination {
+
+    public enum Strategy {
+        /** Single response holds the whole catalog. */
+        NONE,
+        /** {@code ?page=N&size=S}; pages are independent and fetched concurrently. */
+        PAGE,
+        /** {@code ?offset=N&limit=S}; pages are independent and fetched concurrently. */
+        OFFSET,
+        /** Next URL from a {@code Link: <...>; rel="next"} header or the {@code next} body field. */
+        NEXT_LINK,
+        /** Opaque token from the {@code nextCursor} body field, sent back as {@code ?cursor=...}. */
+        CURSOR
+    }
+
+    private Strategy strategy = Strategy.NONE;
+    private int pageSize = 500;
+    private int firstPage = 0;          // PAGE: index of the first page (0 or 1)
+    private int concurrency = 4;        // PAGE/OFFSET: pages in flight; NEXT_LINK/CURSOR always prefetch one
+    private String pageParam = "page";
+    private String sizeParam = "size";
+    private String offsetParam = "offset";
+    private String limitParam = "limit";
+    private String cursorParam = "cursor";
+    private String itemsField = "items";
+    private String nextField = "next";
+    private String cursorField = "nextCursor";
+
+    public Strategy getStrategy() { return strategy; }
+    public void setStrategy(Strategy strategy) { this.strategy = strategy; }
+    public int getPageSize() { return pageSize; }
+    public void setPageSize(int pageSize) { this.pageSize = pageSize; }
+    public int getFirstPage() { return firstPage; }
+    public void setFirstPage(int firstPage) { this.firstPage = firstPage; }
+    public int getConcurrency() { return concurrency; }
+    public void setConcurrency(int concurrency) { this.concurrency = concurrency; }
+    public String getPageParam() { return pageParam; }
+    public void setPageParam(String pageParam) { this.pageParam = pageParam; }
+    public String getSizeParam() { return sizeParam; }
+    public void setSizeParam(String sizeParam) { this.sizeParam = sizeParam; }
+    public String getOffsetParam() { return offsetParam; }
+    public void setOffsetParam(String offsetParam) { this.offsetParam = offsetParam; }
+    public String getLimitParam() { return limitParam; }
+    public void setLimitParam(String limitParam) { this.limitParam = limitParam; }
+    public String getCursorParam() { return cursorParam; }
+    public void setCursorParam(String cursorParam) { this.cursorParam = cursorParam; }
+    public String getItemsField() { return itemsField; }
+    public void setItemsField(String itemsField) { this.itemsField = itemsField; }
+    public String getNextField() { return nextField; }
+    public void setNextField(String nextField) { this.nextField = nextField; }
+    public String getCursorField() { return cursorField; }
+    public void setCursorField(String cursorField) { this.cursorField = cursorField; }
+}
@@ -0,0 +1,102 @@
+package io.stock.sync.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.stock.sync.model.Product;
+import io.stock.sync.repository.ProductFilter;
+import io.stock.sync.repository.ProductQueryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache in front of {@link ProductQueryRepository} for the products API.
+ *
+ * <p>Keys carry a version: vendor-scoped lookups use that vendor's version, cross-vendor listings
+ * use a global one. A committed sync that changed a vendor bumps both, so later reads miss and
+ * superseded entries simply age out of the size-bounded cache. Hit/miss/eviction counts are
+ * published as the {@code cache.*} meters with {@code cache=products}.
+ *
+ * <p>Only the sync is tracked; anything else writing products must call {@link #invalidateAll()}.
+ */
+@Component
+public class ProductReadCache {
+
+    private static final String ALL_VENDORS = "*";
+
+    private record Key(String scope, long version, Object query) {}
+
+    private record PageQuery(ProductFilter filter, Long cursor, int limit) {}
+
+    private record ProductQuery(String sku) {}
+
+    private final ProductQueryRepository repository;
+    private final boolean enabled;
+    private final Cache<Key, Object> cache;
+    private final ConcurrentHashMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public ProductReadCache(ProductQueryRepository repository,
+                            MeterRegistry meterRegistry,
+                            @Value("${products.cache.enabled:true}") boolean enabled,
+                            @Value("${products.cache.max-entries:10000}") long maxEntries,
+                            @Value("${products.cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.repository = repository;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(expireAfterWrite)   // safety net for writes the cache is not told about
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "products");
+    }
+
+    public Optional<Product> product(String vendor, String sku) {
+        Key key = new Key(vendor, version(vendor), new ProductQuery(sku));
+        @SuppressWarnings("unchecked")
+        Optional<Product> result = (Optional<Product>) get(key, () -> repository.findOne(vendor, sku));
+        return result;
+    }
+
+    public List<Product> page(ProductFilter filter, Long cursor, int limit) {
+        String scope = filter.vendor() != null ? filter.vendor() : ALL_VENDORS;
+        Key key = new Key(scope, version(scope), new PageQuery(filter, cursor, limit));
+        @SuppressWarnings("unchecked")
+        List<Product> result = (List<Product>) get(key, () -> repository.findPage(filter, cursor, limit));
+        return result;
+    }
+
+    /** Runs after the sync transaction commits (or immediately if there was none). */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductsChanged(ProductsChangedEvent event) {
+        bump(event.vendor());
+        bump(ALL_VENDORS);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private Object get(Key key, Supplier<Object> loader) {
+        if (!enabled) return loader.get();
+        return cache.get(key, k -> loader.get());
+    }
+
+    private long version(String scope) {
+        AtomicLong v = versions.get(scope);
+        return v == null ? 0 : v.get();
+    }
+
+    private void bump(String scope) {
+        versions.computeIfAbsent(scope, s -> new AtomicLong()).incrementAndGet();
+    }
+}
@@ -0,0 +1,4 @@
+package io.stock.sync.service;
+
+/** A sync inserted or updated products of {@code vendor}; published inside the sync transaction. */
+public record ProductsChangedEvent(String vendor) {}
@@ -0,0 +1,171 @@
+package io.stock.sync.service;
+
+import io.stock.sync.service.dto.VendorProduct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces rows pushed to {@code /ingest} into per-vendor micro-batches, so a burst of small
+ * requests becomes a few batched transactions. A vendor's batch is flushed once it holds
+ * {@code ingest.batch-size} rows or {@code ingest.max-delay} after its first row, whichever comes
+ * first, through {@link SyncService#ingestPushed}. Batches of one vendor are committed one after
+ * the other in arrival order; different vendors flush in parallel on virtual threads.
+ *
+ * <p>Each request gets a future that completes when its batch has committed (or failed), so the
+ * request is only acknowledged once its rows are durable. At most {@code ingest.max-pending-rows}
+ * rows are buffered over all vendors; beyond that, requests are turned away until flushes catch up.
+ */
+@Component
+public class PushIngestBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(PushIngestBuffer.class);
+
+    public enum Status { ACCEPTED, BUFFER_FULL, NOT_OWNER }
+
+    /** {@code committed} is null unless the rows were {@link Status#ACCEPTED}. */
+    public record Offer(Status status, CompletableFuture<Void> committed) {}
+
+    private static final class Batch {
+        final String vendor;
+        final List<VendorProduct> rows = new ArrayList<>();
+        final CompletableFuture<Void> committed = new CompletableFuture<>();
+        int requests;
+        boolean sealed;
+
+        Batch(String vendor) {
+            this.vendor = vendor;
+        }
+    }
+
+    private final SyncService syncService;
+    private final ClusterCoordinator cluster;
+    private final SyncMetrics metrics;
+    private final TaskScheduler taskScheduler;
+    private final int batchSize;
+    private final Duration maxDelay;
+    private final int maxPendingRows;
+    private final ExecutorService flushers = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Map<String, Batch> open = new HashMap<>();                      // guarded by this
+    private final Map<String, CompletableFuture<Void>> tails = new HashMap<>();   // last flush per vendor, guarded by this
+    private int pendingRows;                                                      // guarded by this
+
+    public PushIngestBuffer(SyncService syncService,
+                            ClusterCoordinator cluster,
+                            SyncMetrics metrics,
+                            TaskScheduler taskScheduler,
+                            @Value("${ingest.batch-size:1000}") int batchSize,
+                            @Value("${ingest.max-delay:200ms}") Duration maxDelay,
+                            @Value("${ingest.max-pending-rows:100000}") int maxPendingRows) {
+        this.syncService = syncService;
+        this.cluster = cluster;
+        this.metrics = metrics;
+        this.taskScheduler = taskScheduler;
+        this.batchSize = batchSize;
+        this.maxDelay = maxDelay;
+        this.maxPendingRows = maxPendingRows;
+    }
+
+    public int maxPendingRows() {
+        return maxPendingRows;
+    }
+
+    /**
+     * Adds one request's rows (all of {@code vendor}) to the vendor's open batch. Clustered, only
+     * the node holding the vendor's lease takes its pushes, like its syncs.
+     */
+    public Offer offer(String vendor, List<VendorProduct> rows) {
+        if (!cluster.acquire(vendor)) {
+            metrics.pushRejected(vendor, "not_owner");
+            return new Offer(Status.NOT_OWNER, null);
+        }
+        synchronized (this) {
+            if (pendingRows + rows.size() > maxPendingRows) {
+                metrics.pushRejected(vendor, "buffer_full");
+                return new Offer(Status.BUFFER_FULL, null);
+            }
+            Batch batch = open.get(vendor);
+            if (batch == null) {
+                Batch created = new Batch(vendor);
+                open.put(vendor, created);
+                taskScheduler.schedule(() -> seal(created), Instant.now().plus(maxDelay));
+                batch = created;
+            }
+            batch.rows.addAll(rows);
+            batch.requests++;
+            pendingRows += rows.size();
+            if (batch.rows.size() >= batchSize) sealLocked(batch);
+            return new Offer(Status.ACCEPTED, batch.committed);
+        }
+    }
+
+    /** Flushes whatever is buffered and waits (bounded) for it to commit. */
+    @PreDestroy
+    public void drain() throws InterruptedException {
+        List<CompletableFuture<Void>> pending;
+        synchronized (this) {
+            List.copyOf(open.values()).forEach(this::sealLocked);
+            pending = List.copyOf(tails.values());
+        }
+        try {
+            CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("Pushed rows still pending at shutdown were not all committed: {}", e.getMessage());
+        }
+        flushers.shutdown();
+    }
+
+    private synchronized void seal(Batch batch) {
+        if (!batch.sealed) sealLocked(batch);
+    }
+
+    /** Closes the batch and chains its flush after the vendor's previous one. */
+    private void sealLocked(Batch batch) {
+        batch.sealed = true;
+        open.remove(batch.vendor);
+        CompletableFuture<Void> previous = tails.getOrDefault(batch.vendor, CompletableFuture.completedFuture(null));
+        CompletableFuture<Void> flushed = previous.thenRunAsync(() -> flush(batch), flushers);
+        tails.put(batch.vendor, flushed);
+        flushed.whenComplete((r, e) -> {
+            synchronized (this) {
+                tails.remove(batch.vendor, flushed);
+            }
+        });
+    }
+
+    /** Never throws, so the vendor's next batch still runs. */
+    private void flush(Batch batch) {
+        long started = System.nanoTime();
+        SyncStats stats = new SyncStats();
+        boolean failed = false;
+        try {
+            stats = syncService.ingestPushed(batch.vendor, batch.rows);
+            batch.committed.complete(null);
+        } catch (RuntimeException e) {
+            failed = true;
+            log.error("Pushed batch of {} ({} rows, {} requests) was rolled back: {}",
+                    batch.vendor, batch.rows.size(), batch.requests, e.getMessage(), e);
+            batch.committed.completeExceptionally(e);
+        } finally {
+            synchronized (this) {
+                pendingRows -= batch.rows.size();
+            }
+        }
+        metrics.pushFlushed(batch.vendor, stats, batch.rows.size(), batch.requests, failed, System.nanoTime() - started);
+    }
+}
@@ -0,0 +1,11 @@
+package io.stock.sync.service;
+
+import java.time.OffsetDateTime;
+
+/** A product's quantity went from {@code oldQuantity} (null = first seen) to {@code newQuantity}. */
+public record QuantityChange(OffsetDateTime at, Integer oldQuantity, int newQuantity) {
+
+    public boolean isRestock() {
+        return oldQuantity != null && oldQuantity == 0 && newQuantity > 0;
+    }
+}
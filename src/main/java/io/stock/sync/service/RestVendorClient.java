@@ -1,56 +1,251 @@
 package io.stock.sync.service;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
 import io.stock.sync.service.dto.VendorProduct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.backoff.ExponentialBackOffPolicy;
+import org.springframework.retry.policy.SimpleRetryPolicy;
 import org.springframework.retry.support.RetryTemplate;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseErrorHandler;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
-import java.util.Arrays;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.net.URI;
+import java.time.Duration;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 public class RestVendorClient implements VendorClient {
 
     private static final Logger log = LoggerFactory.getLogger(RestVendorClient.class);
 
+    static final ObjectMapper MAPPER = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
     private final String name;
     private final String url;
     private final RestTemplate restTemplate;
     private final RetryTemplate retry;
+    private final Counter retries;
+
+    // validators of the last committed response, sent back as If-None-Match / If-Modified-Since
+    private volatile Validators committed = Validators.NONE;
+    private volatile Validators pending;
 
     public RestVendorClient(String name, String url, RestTemplate restTemplate) {
+        this(name, url, restTemplate, defaultRetryTemplate());
+    }
+
+    public RestVendorClient(String name, String url, RestTemplate restTemplate, RetryTemplate retry) {
         this.name = name;
         this.url = url;
         this.restTemplate = restTemplate;
-        this.retry = RetryTemplate.builder()
-                .maxAttempts(3)
-                .exponentialBackoff(1000, 2.0, 4000) // 1s -> 2s -> 4s
-                .retryOn(RestClientException.class)
-                .build();
+        this.retry = retry;
+        this.retries = SyncMetrics.retries(name);
+    }
+
+    /** Three attempts, backing off 1s then 2s; used when the vendor configures no retry settings. */
+    static RetryTemplate defaultRetryTemplate() {
+        return retryTemplate(3, Duration.ofSeconds(1), Duration.ofSeconds(4));
+    }
+
+    /** Retries {@link RestClientException}s, doubling the backoff from {@code initialBackoff} up to {@code maxBackoff}. */
+    public static RetryTemplate retryTemplate(int maxAttempts, Duration initialBackoff, Duration maxBackoff) {
+        return retryTemplate(maxAttempts, initialBackoff, maxBackoff, null);
+    }
+
+    /**
+     * Like {@link #retryTemplate(int, Duration, Duration)}, but stops retrying (and backing off)
+     * as soon as {@code breaker} is no longer closed: once a vendor is known to be down, the sync
+     * gives up at once instead of sleeping through the remaining attempts.
+     */
+    public static RetryTemplate retryTemplate(int maxAttempts, Duration initialBackoff, Duration maxBackoff,
+                                              VendorCircuitBreaker breaker) {
+        SimpleRetryPolicy policy = new SimpleRetryPolicy(maxAttempts, Map.of(RestClientException.class, true)) {
+            @Override
+            public boolean canRetry(RetryContext context) {
+                return super.canRetry(context) && (breaker == null || context.getRetryCount() == 0 || breaker.isClosed());
+            }
+        };
+        ExponentialBackOffPolicy backOff = new ExponentialBackOffPolicy();
+        backOff.setInitialInterval(initialBackoff.toMillis());
+        backOff.setMultiplier(2.0);
+        backOff.setMaxInterval(maxBackoff.toMillis());
+        RetryTemplate retry = new RetryTemplate();
+        retry.setRetryPolicy(policy);
+        retry.setBackOffPolicy(backOff);
+        return retry;
     }
 
     @Override
     public String vendorName() { return name; }
 
+    /**
+     * Opens the response (with retries) and returns a stream that reads the JSON array one element
+     * at a time straight from the response body. Neither the raw payload nor an {@code Item[]}
+     * is ever held in memory. If the connection drops mid-array, the stream ends with the rows read so far
+     * and the validators are not adopted, so the next sync refetches the full payload.
+     */
     @Override
-    public List<VendorProduct> fetch() {
-        return retry.execute(ctx -> {
+    public Stream<VendorProduct> stream() {
+        pending = null;
+        Validators sent = committed;
+        ClientHttpResponse response = retry.execute(ctx -> {
+            if (ctx.getRetryCount() > 0) retries.increment();
             log.info("Fetching {} from {}", name, url);
-            ResponseEntity<Item[]> resp = restTemplate.getForEntity(url, Item[].class);
-            Item[] body = resp.getBody();
-            if (body == null) return List.of();
-            return Arrays.stream(body)
-                    .filter(Objects::nonNull)
-                    .map(i -> new VendorProduct(i.sku, i.name, i.stockQuantity, name))
-                    .toList();
+            return open(sent);
         }, ctx -> {
+            if (ctx.getLastThrowable() instanceof VendorCircuitBreaker.OpenException open) {
+                log.info("Skipping {}: {}", name, open.getMessage());
+                return null;
+            }
             log.error("Fetch failed for {} after {} attempts: {}",
                     name, ctx.getRetryCount(), ctx.getLastThrowable() != null ? ctx.getLastThrowable().getMessage() : "unknown");
-            return List.of();
+            return null;
         });
+        if (response == null) return Stream.empty();
+        try {
+            if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+                log.info("{} not modified since last sync, skipping", name);
+                response.close();
+                return Stream.empty();
+            }
+            HttpHeaders headers = response.getHeaders();
+            Validators validators = new Validators(headers.getETag(), headers.getLastModified());
+            InputStream body = decode(response.getBody(), headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+            if (body == null) {
+                pending = validators;
+                response.close();
+                return Stream.empty();
+            }
+            JsonParser parser = MAPPER.getFactory().createParser(body);
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array but got " + parser.currentToken());
+            }
+            return StreamSupport.stream(new ItemSpliterator(parser, () -> pending = validators), false)
+                    .onClose(() -> close(parser, response));
+        } catch (Exception e) {
+            log.error("Fetch failed for {}: {}", name, e.getMessage(), e);
+            response.close();
+            return Stream.empty();
+        }
+    }
+
+    @Override
+    public void onCommitted() {
+        // validators only count once the payload they describe is in the DB
+        Validators p = pending;
+        pending = null;
+        if (p != null) committed = p;
+    }
+
+    /** Sends the request; error statuses go through the RestTemplate's error handler so they are retried. */
+    private ClientHttpResponse open(Validators validators) {
+        URI uri = URI.create(url);
+        try {
+            ClientHttpRequest request = restTemplate.getRequestFactory().createRequest(uri, HttpMethod.GET);
+            HttpHeaders headers = request.getHeaders();
+            headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+            headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+            if (validators.etag() != null) headers.setIfNoneMatch(validators.etag());
+            if (validators.lastModified() > 0) headers.setIfModifiedSince(validators.lastModified());
+            ClientHttpResponse response = request.execute();
+            try {
+                ResponseErrorHandler errors = restTemplate.getErrorHandler();
+                if (errors.hasError(response)) errors.handleError(uri, HttpMethod.GET, response);
+            } catch (IOException | RuntimeException e) {
+                response.close();
+                throw e;
+            }
+            return response;
+        } catch (IOException e) {
+            throw new ResourceAccessException("I/O error on GET request for \"" + url + "\": " + e.getMessage(), e);
+        }
+    }
+
+    private void close(JsonParser parser, ClientHttpResponse response) {
+        try {
+            parser.close();
+        } catch (IOException e) {
+            log.warn("Failed to close response for {}: {}", name, e.getMessage());
+        } finally {
+            response.close();
+        }
+    }
+
+    /** Undoes gzip/deflate content coding; returns null for an empty body. */
+    static InputStream decode(InputStream raw, String encoding) throws IOException {
+        PushbackInputStream in = new PushbackInputStream(raw);
+        int first = in.read();
+        if (first < 0) return null;
+        in.unread(first);
+        if ("gzip".equalsIgnoreCase(encoding)) return new GZIPInputStream(in);
+        if ("deflate".equalsIgnoreCase(encoding)) return new InflaterInputStream(in);
+        return in;
+    }
+
+    private record Validators(String etag, long lastModified) {
+        static final Validators NONE = new Validators(null, -1);
+    }
+
+    /** Binds one array element at a time; a read error ends the stream with the rows read so far. */
+    private class ItemSpliterator extends Spliterators.AbstractSpliterator<VendorProduct> {
+        private final JsonParser parser;
+        private final Runnable onComplete;
+        private boolean done;
+
+        ItemSpliterator(JsonParser parser, Runnable onComplete) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.parser = parser;
+            this.onComplete = onComplete;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super VendorProduct> action) {
+            Item item = null;
+            try {
+                while (item == null) {
+                    if (done) return false;
+                    JsonToken token = parser.nextToken();
+                    if (token == JsonToken.END_ARRAY || token == null) {
+                        done = true;
+                        if (token == JsonToken.END_ARRAY) onComplete.run();
+                        else log.error("Payload for {} ended before the JSON array was closed", name);
+                        return false;
+                    }
+                    if (token != JsonToken.VALUE_NULL) item = MAPPER.readValue(parser, Item.class);
+                }
+            } catch (IOException e) {
+                done = true;
+                log.error("Fetch failed for {} while reading payload: {}", name, e.getMessage(), e);
+                return false;
+            }
+            action.accept(new VendorProduct(item.sku, item.name, item.stockQuantity, name));
+            return true;
+        }
     }
 
     // matches expected vendor JSON fields
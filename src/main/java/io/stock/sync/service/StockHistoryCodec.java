@@ -0,0 +1,90 @@
+package io.stock.sync.service;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Delta encoding of one day of a sku's quantity changes, oldest first. Per change:
+ * <pre>
+ *   varint  (millis since previous change or day start) &lt;&lt; 1 | hasOld
+ *   zigzag  oldQuantity - previous newQuantity      (only if hasOld)
+ *   zigzag  newQuantity - oldQuantity (or previous newQuantity if !hasOld)
+ * </pre>
+ * Consecutive changes chain (old = previous new), so a typical change takes 3-5 bytes.
+ * Timestamps are kept at millisecond precision.
+ */
+final class StockHistoryCodec {
+
+    private StockHistoryCodec() {}
+
+    static byte[] encode(List<QuantityChange> changes, Instant dayStart) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(changes.size() * 4);
+        long prevMillis = dayStart.toEpochMilli();
+        long prevNew = 0;
+        for (QuantityChange c : changes) {
+            long millis = c.at().toInstant().toEpochMilli();
+            boolean hasOld = c.oldQuantity() != null;
+            writeVarLong(out, (millis - prevMillis) << 1 | (hasOld ? 1 : 0));
+            long base = prevNew;
+            if (hasOld) {
+                writeVarLong(out, zigzag(c.oldQuantity() - prevNew));
+                base = c.oldQuantity();
+            }
+            writeVarLong(out, zigzag(c.newQuantity() - base));
+            prevMillis = millis;
+            prevNew = c.newQuantity();
+        }
+        return out.toByteArray();
+    }
+
+    static List<QuantityChange> decode(byte[] payload, Instant dayStart) {
+        List<QuantityChange> changes = new ArrayList<>();
+        int[] pos = {0};
+        long prevMillis = dayStart.toEpochMilli();
+        long prevNew = 0;
+        while (pos[0] < payload.length) {
+            long head = readVarLong(payload, pos);
+            long millis = prevMillis + (head >>> 1);
+            Integer old = null;
+            long base = prevNew;
+            if ((head & 1) != 0) {
+                old = (int) (prevNew + unzigzag(readVarLong(payload, pos)));
+                base = old;
+            }
+            int now = (int) (base + unzigzag(readVarLong(payload, pos)));
+            changes.add(new QuantityChange(Instant.ofEpochMilli(millis).atOffset(ZoneOffset.UTC), old, now));
+            prevMillis = millis;
+            prevNew = now;
+        }
+        return changes;
+    }
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    private static long readVarLong(byte[] in, int[] pos) {
+        long v = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in[pos[0]++];
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+    }
+}
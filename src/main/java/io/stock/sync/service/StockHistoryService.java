@@ -0,0 +1,157 @@
+package io.stock.sync.service;
+
+import io.stock.sync.repository.StockHistoryRepository;
+import io.stock.sync.repository.StockHistoryRepository.Block;
+import io.stock.sync.repository.StockHistoryRepository.RawChange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Quantity-change history per sku. The sync appends raw rows to {@code stock_changes}; in the
+ * background, rows older than {@code history.compact-after} are folded into one delta-encoded
+ * block per (vendor, sku, UTC day) and deleted, and blocks older than {@code history.retention}
+ * are dropped. Both run in short transactions of at most {@code history.compaction-batch} rows on
+ * their own scheduler thread, and never touch the rows a running sync is appending.
+ */
+@Service
+public class StockHistoryService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockHistoryService.class);
+
+    private record BlockKey(String vendor, String sku, LocalDate day) {}
+
+    private final StockHistoryRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate snapshotRead;
+    private final boolean enabled;
+    private final Duration compactAfter;
+    private final Duration retention;
+    private final int batchSize;
+
+    public StockHistoryService(StockHistoryRepository repository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${history.enabled:true}") boolean enabled,
+                               @Value("${history.compact-after:1h}") Duration compactAfter,
+                               @Value("${history.retention:90d}") Duration retention,
+                               @Value("${history.compaction-batch:50000}") int batchSize) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // blocks and raw rows must be read from one snapshot, or a concurrent compaction could
+        // make changes vanish between the two reads (or show them twice)
+        this.snapshotRead = new TransactionTemplate(transactionManager);
+        this.snapshotRead.setReadOnly(true);
+        this.snapshotRead.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.enabled = enabled;
+        this.compactAfter = compactAfter;
+        this.retention = retention;
+        this.batchSize = batchSize;
+    }
+
+    /** Appends a sync's quantity changes; runs in the sync transaction. */
+    public void record(List<RawChange> changes) {
+        if (enabled) repository.appendAll(changes);
+    }
+
+    /** Changes of one sku in [from, to), oldest first, from compacted blocks and raw rows alike. */
+    public List<QuantityChange> history(String vendor, String sku, OffsetDateTime from, OffsetDateTime to) {
+        return snapshotRead.execute(status -> {
+            List<QuantityChange> merged = new ArrayList<>();
+            for (Block b : repository.findBlocks(vendor, sku, day(from), day(to))) {
+                for (QuantityChange c : StockHistoryCodec.decode(b.payload(), dayStart(b.day()))) {
+                    if (!c.at().isBefore(from) && c.at().isBefore(to)) merged.add(c);
+                }
+            }
+            // the sort is stable, so changes within the same millisecond keep their recorded order
+            repository.findRaw(vendor, sku, from, to).forEach(r -> merged.add(toChange(r)));
+            merged.sort(Comparator.comparing(QuantityChange::at));
+            return merged;
+        });
+    }
+
+    /** Folds due raw rows into daily blocks, batch by batch. Returns the number of rows compacted. */
+    public long compact() {
+        OffsetDateTime cutoff = OffsetDateTime.now(ZoneOffset.UTC).minus(compactAfter);
+        long total = 0;
+        int n;
+        do {
+            Integer done = transactionTemplate.execute(status -> compactBatch(cutoff));
+            n = done == null ? 0 : done;
+            total += n;
+        } while (n == batchSize);
+        if (total > 0) log.info("Compacted {} stock changes into daily history blocks", total);
+        return total;
+    }
+
+    public void applyRetention() {
+        OffsetDateTime cutoff = OffsetDateTime.now(ZoneOffset.UTC).minus(retention);
+        int blocks = repository.deleteBlocksBefore(cutoff.toLocalDate());
+        int raw = repository.deleteRawBefore(cutoff.truncatedTo(ChronoUnit.DAYS));
+        if (blocks > 0 || raw > 0) {
+            log.info("History retention removed {} blocks and {} raw changes before {}", blocks, raw, cutoff.toLocalDate());
+        }
+    }
+
+    private int compactBatch(OffsetDateTime cutoff) {
+        List<RawChange> rows = repository.findRawBefore(cutoff, batchSize);
+        if (rows.isEmpty()) return 0;
+
+        Map<BlockKey, List<QuantityChange>> byBlock = new LinkedHashMap<>();
+        for (RawChange r : rows) {
+            byBlock.computeIfAbsent(new BlockKey(r.vendor(), r.sku(), day(r.changedAt())), k -> new ArrayList<>())
+                    .add(toChange(r));
+        }
+
+        // late rows for a day that already has a block are merged into it
+        Map<BlockKey, Block> existing = new LinkedHashMap<>();
+        byBlock.keySet().stream()
+                .collect(Collectors.groupingBy(k -> new BlockKey(k.vendor(), null, k.day()),
+                        Collectors.mapping(BlockKey::sku, Collectors.toList())))
+                .forEach((vendorDay, skus) -> repository.findBlocks(vendorDay.vendor(), vendorDay.day(), skus)
+                        .forEach((sku, b) -> existing.put(new BlockKey(vendorDay.vendor(), sku, vendorDay.day()), b)));
+
+        List<Block> blocks = new ArrayList<>(byBlock.size());
+        byBlock.forEach((key, changes) -> {
+            Block old = existing.get(key);
+            if (old != null) changes.addAll(0, StockHistoryCodec.decode(old.payload(), dayStart(key.day())));
+            changes.sort(Comparator.comparing(QuantityChange::at));
+            blocks.add(new Block(key.vendor(), key.sku(), key.day(), changes.size(),
+                    changes.get(0).at(), changes.get(changes.size() - 1).at(),
+                    StockHistoryCodec.encode(changes, dayStart(key.day()))));
+        });
+        repository.upsertBlocks(blocks);
+        repository.deleteRaw(rows.stream().map(RawChange::id).toList());
+        return rows.size();
+    }
+
+    private static QuantityChange toChange(RawChange r) {
+        // blocks keep millisecond precision; truncate raw rows the same way so both compare equal
+        OffsetDateTime at = r.changedAt().withOffsetSameInstant(ZoneOffset.UTC).truncatedTo(ChronoUnit.MILLIS);
+        return new QuantityChange(at, r.oldQuantity(), r.newQuantity());
+    }
+
+    private static LocalDate day(OffsetDateTime t) {
+        return t.withOffsetSameInstant(ZoneOffset.UTC).toLocalDate();
+    }
+
+    private static Instant dayStart(LocalDate day) {
+        return day.atStartOfDay().toInstant(ZoneOffset.UTC);
+    }
+}
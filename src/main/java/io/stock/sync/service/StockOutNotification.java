@@ -0,0 +1,15 @@
+package io.stock.sync.service;
+
+import io.stock.sync.model.OutboxMessage;
+
+import java.time.OffsetDateTime;
+
+/** What outbox subscribers receive; {@code eventId} identifies redeliveries. */
+public record StockOutNotification(long eventId, String sku, String vendor, int previousQuantity,
+                                   OffsetDateTime occurredAt) {
+
+    static StockOutNotification of(OutboxMessage m) {
+        return new StockOutNotification(m.getEventId(), m.getSku(), m.getVendor(), m.getPreviousQuantity(),
+                m.getOccurredAt());
+    }
+}
@@ -0,0 +1,39 @@
+package io.stock.sync.service;
+
+import io.stock.sync.model.OutboxMessage;
+import io.stock.sync.model.StockOutEvent;
+import io.stock.sync.repository.OutboxMessageRepository;
+import io.stock.sync.repository.StockOutCountRepository;
+import io.stock.sync.repository.StockOutEventRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Persists the stock-out events a sync detected together with everything derived from them,
+ * in the caller's transaction: the events, their hour/day counts and one outbox message each.
+ * Events and outbox messages use pooled sequence ids, so both are written as JDBC batches at
+ * the next flush (see {@code hibernate.jdbc.batch_size}).
+ */
+@Component
+public class StockOutRecorder {
+
+    private final StockOutEventRepository stockOutEventRepository;
+    private final StockOutCountRepository stockOutCountRepository;
+    private final OutboxMessageRepository outboxMessageRepository;
+
+    public StockOutRecorder(StockOutEventRepository stockOutEventRepository,
+                            StockOutCountRepository stockOutCountRepository,
+                            OutboxMessageRepository outboxMessageRepository) {
+        this.stockOutEventRepository = stockOutEventRepository;
+        this.stockOutCountRepository = stockOutCountRepository;
+        this.outboxMessageRepository = outboxMessageRepository;
+    }
+
+    public void record(List<StockOutEvent> events) {
+        if (events.isEmpty()) return;
+        stockOutEventRepository.saveAll(events);   // ids are assigned here, before the insert
+        outboxMessageRepository.saveAll(events.stream().map(OutboxMessage::of).toList());
+        stockOutCountRepository.increment(events);
+    }
+}
@@ -0,0 +1,312 @@
+package io.stock.sync.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process copy of (vendor, sku) → (stockQuantity, name digest), so a sync can tell inserts,
+ * updates, no-ops and stock-out transitions apart without reading the products table.
+ *
+ * <p>Each vendor's snapshot is complete or absent: it is loaded with one query the first time the
+ * vendor is synced (or by the startup warm-up scan) and then kept current by {@link SyncService}.
+ * A sync's writes are buffered per transaction and applied once it commits, so readers never see
+ * rows that could still roll back; the sync itself reads its own buffered writes first.
+ * Entries live in flat open-addressing arrays per vendor (no boxed map entries). Memory is
+ * bounded by {@code sync.snapshot.max-entries}: least recently synced vendors are evicted first,
+ * vendors idle for {@code sync.snapshot.idle-eviction} are dropped, and a vendor larger than the
+ * whole budget is simply not cached (its syncs fall back to chunked DB lookups).
+ *
+ * <p>Names are compared by 64-bit digest, so a rename that collides with the old name's digest
+ * would be missed; the odds are negligible.
+ */
+@Component
+public class StockSnapshotCache {
+
+    private static final Logger log = LoggerFactory.getLogger(StockSnapshotCache.class);
+
+    private static final String SELECT_ALL = "SELECT vendor, sku, name, stock_quantity FROM products";
+    private static final String SELECT_VENDOR = "SELECT sku, name, stock_quantity FROM products WHERE vendor = ?";
+
+    /** What the cache knows about one stored product. */
+    public record Stored(Integer stockQuantity, long nameDigest) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final long maxEntries;
+    private final long idleEvictionMillis;
+    private final boolean warmOnStartup;
+
+    private final ConcurrentHashMap<String, VendorSnapshot> snapshots = new ConcurrentHashMap<>();
+    private final AtomicLong totalEntries = new AtomicLong();
+    // vendors with an open transaction writing them; the vendor writer lock allows one at a time
+    private final Set<String> writing = ConcurrentHashMap.newKeySet();
+    private volatile Set<String> writtenWhileWarming;   // non-null while warm() scans
+
+    public StockSnapshotCache(JdbcTemplate jdbcTemplate,
+                              @Value("${sync.snapshot.enabled:true}") boolean enabled,
+                              @Value("${sync.snapshot.max-entries:5000000}") long maxEntries,
+                              @Value("${sync.snapshot.idle-eviction:6h}") Duration idleEviction,
+                              @Value("${sync.snapshot.warm-on-startup:true}") boolean warmOnStartup) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.idleEvictionMillis = idleEviction.toMillis();
+        this.warmOnStartup = warmOnStartup;
+    }
+
+    /**
+     * One scan of products; vendors that do not fit in the budget are left to lazy loading.
+     * Vendors written while the scan runs are skipped too, since the scan may predate their writes.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        if (!enabled || !warmOnStartup) return;
+        long started = System.currentTimeMillis();
+        Set<String> written = ConcurrentHashMap.newKeySet();
+        writtenWhileWarming = written;
+        written.addAll(writing);
+        Map<String, VendorSnapshot> loaded = new HashMap<>();
+        JdbcTemplate scan = new JdbcTemplate(jdbcTemplate.getDataSource());
+        scan.setFetchSize(10_000);
+        scan.query(SELECT_ALL, rs -> {
+            loaded.computeIfAbsent(rs.getString(1), v -> new VendorSnapshot())
+                    .put(rs.getString(2), rs.getObject(4, Integer.class), nameDigest(rs.getString(3)));
+        });
+        writtenWhileWarming = null;
+        loaded.entrySet().stream()
+                .filter(e -> !written.contains(e.getKey()) && !writing.contains(e.getKey()))
+                .sorted(Comparator.comparingInt(e -> e.getValue().size()))
+                .forEach(e -> {
+                    if (totalEntries.get() + e.getValue().size() <= maxEntries
+                            && snapshots.putIfAbsent(e.getKey(), e.getValue()) == null) {
+                        totalEntries.addAndGet(e.getValue().size());
+                    }
+                });
+        log.info("Stock snapshot warmed: {} vendors, {} products in {} ms",
+                snapshots.size(), totalEntries.get(), System.currentTimeMillis() - started);
+    }
+
+    /**
+     * The vendor's complete snapshot, loading it from the DB on first use. Returns null when the
+     * cache is disabled or the vendor does not fit; callers then read the DB instead.
+     */
+    public VendorSnapshot forVendor(String vendor) {
+        if (!enabled) return null;
+        evictIdle();
+        VendorSnapshot snapshot = snapshots.get(vendor);
+        if (snapshot == null) {
+            snapshot = load(vendor);
+            if (snapshot == null) return null;
+            VendorSnapshot raced = snapshots.putIfAbsent(vendor, snapshot);
+            if (raced != null) {
+                snapshot = raced;
+            } else {
+                totalEntries.addAndGet(snapshot.size());
+                evictOverBudget(vendor);
+            }
+        }
+        snapshot.lastAccess = System.currentTimeMillis();
+        return snapshot;
+    }
+
+    /** Drops a vendor; the next sync reloads it from the DB. */
+    public void invalidate(String vendor) {
+        VendorSnapshot removed = snapshots.remove(vendor);
+        if (removed != null) totalEntries.addAndGet(-removed.size());
+    }
+
+    /** Drops the vendor's snapshot once the current transaction ends, committed or not. */
+    void invalidateAfterCompletion(String vendor) {
+        PendingWrites pending = pending(vendor);
+        if (pending == null) invalidate(vendor);
+        else pending.dropped.add(vendor);
+    }
+
+    /** What the current transaction has written for the sku, else what the snapshot knows. */
+    Stored lookup(String vendor, VendorSnapshot snapshot, String sku) {
+        PendingWrites pending = (PendingWrites) TransactionSynchronizationManager.getResource(this);
+        Map<String, Stored> rows = pending == null ? null : pending.rows.get(vendor);
+        Stored written = rows == null ? null : rows.get(sku);
+        return written != null ? written : snapshot.get(sku);
+    }
+
+    /** Records a row of the vendor; inside a transaction it reaches the snapshot only on commit. */
+    void recordWrite(String vendor, VendorSnapshot snapshot, String sku, Integer stockQuantity, String name) {
+        Stored stored = new Stored(stockQuantity, nameDigest(name));
+        PendingWrites pending = pending(vendor);
+        if (pending == null) {
+            apply(vendor, snapshot, sku, stored);
+        } else {
+            pending.snapshots.put(vendor, snapshot);
+            pending.rows.computeIfAbsent(vendor, v -> new HashMap<>()).put(sku, stored);
+        }
+    }
+
+    private void apply(String vendor, VendorSnapshot snapshot, String sku, Stored stored) {
+        // a snapshot evicted mid-sync is garbage already; only count entries of the live one
+        if (snapshot.put(sku, stored.stockQuantity(), stored.nameDigest()) && snapshots.get(vendor) == snapshot) {
+            totalEntries.incrementAndGet();
+        }
+    }
+
+    /** The current transaction's buffer, registered on first use; null outside a transaction. */
+    private PendingWrites pending(String vendor) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return null;
+        PendingWrites pending = (PendingWrites) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingWrites();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        if (pending.vendors.add(vendor)) {
+            writing.add(vendor);
+            Set<String> written = writtenWhileWarming;
+            if (written != null) written.add(vendor);
+        }
+        return pending;
+    }
+
+    /** One transaction's writes, applied to the snapshots after commit and discarded otherwise. */
+    private final class PendingWrites implements TransactionSynchronization {
+        final Set<String> vendors = new HashSet<>();
+        final Map<String, VendorSnapshot> snapshots = new HashMap<>();
+        final Map<String, Map<String, Stored>> rows = new HashMap<>();
+        final Set<String> dropped = new HashSet<>();
+
+        @Override
+        public void afterCommit() {
+            rows.forEach((vendor, written) -> {
+                VendorSnapshot snapshot = snapshots.get(vendor);
+                written.forEach((sku, stored) -> apply(vendor, snapshot, sku, stored));
+            });
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(StockSnapshotCache.this);
+            dropped.forEach(StockSnapshotCache.this::invalidate);
+            writing.removeAll(vendors);
+        }
+    }
+
+    public static long nameDigest(String name) {
+        long h = 0xcbf29ce484222325L;
+        if (name == null) return h;
+        for (int i = 0; i < name.length(); i++) {
+            h = (h ^ name.charAt(i)) * 0x100000001b3L;
+        }
+        return h ^ name.length();
+    }
+
+    private VendorSnapshot load(String vendor) {
+        VendorSnapshot snapshot = new VendorSnapshot();
+        Boolean fits = jdbcTemplate.query(SELECT_VENDOR, rs -> {
+            while (rs.next()) {
+                if (snapshot.size() >= maxEntries) return false;
+                snapshot.put(rs.getString(1), rs.getObject(3, Integer.class), nameDigest(rs.getString(2)));
+            }
+            return true;
+        }, vendor);
+        if (!Boolean.TRUE.equals(fits)) {
+            log.warn("Vendor {} has more than {} products, not caching its stock snapshot", vendor, maxEntries);
+            return null;
+        }
+        return snapshot;
+    }
+
+    private void evictOverBudget(String keep) {
+        while (totalEntries.get() > maxEntries) {
+            String coldest = snapshots.entrySet().stream()
+                    .filter(e -> !e.getKey().equals(keep))
+                    .min(Comparator.comparingLong(e -> e.getValue().lastAccess))
+                    .map(Map.Entry::getKey)
+                    .orElse(null);
+            if (coldest == null) return;
+            log.info("Evicting stock snapshot of {} to stay within {} entries", coldest, maxEntries);
+            invalidate(coldest);
+        }
+    }
+
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleEvictionMillis;
+        snapshots.forEach((vendor, snapshot) -> {
+            if (snapshot.lastAccess < cutoff) invalidate(vendor);
+        });
+    }
+
+    /**
+     * Open-addressing sku table for one vendor; quantities and name digests in parallel primitive
+     * arrays. Quantities are widened to long so a null quantity has a sentinel outside the int range.
+     */
+    public static final class VendorSnapshot {
+        private String[] keys = new String[16];
+        private static final long NO_QUANTITY = Long.MIN_VALUE;
+
+        private long[] quantities = new long[16];
+        private long[] nameDigests = new long[16];
+        private int size;
+        volatile long lastAccess = System.currentTimeMillis();
+
+        public synchronized Stored get(String sku) {
+            int i = indexOf(sku);
+            if (keys[i] == null) return null;
+            long q = quantities[i];
+            return new Stored(q == NO_QUANTITY ? null : (int) q, nameDigests[i]);
+        }
+
+        /** Returns true if the sku was new. */
+        synchronized boolean put(String sku, Integer stockQuantity, long nameDigest) {
+            int i = indexOf(sku);
+            boolean added = keys[i] == null;
+            keys[i] = sku;
+            quantities[i] = stockQuantity == null ? NO_QUANTITY : stockQuantity;
+            nameDigests[i] = nameDigest;
+            if (added && ++size * 2 > keys.length) grow();
+            return added;
+        }
+
+        public synchronized int size() {
+            return size;
+        }
+
+        private int indexOf(String sku) {
+            int mask = keys.length - 1;
+            int h = sku.hashCode();
+            int i = (h ^ (h >>> 16)) & mask;
+            while (keys[i] != null && !keys[i].equals(sku)) i = (i + 1) & mask;
+            return i;
+        }
+
+        private void grow() {
+            String[] oldKeys = keys;
+            long[] oldQuantities = quantities;
+            long[] oldDigests = nameDigests;
+            keys = new String[oldKeys.length * 2];
+            quantities = new long[keys.length];
+            nameDigests = new long[keys.length];
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] == null) continue;
+                int i = indexOf(oldKeys[j]);
+                keys[i] = oldKeys[j];
+                quantities[i] = oldQuantities[j];
+                nameDigests[i] = oldDigests[j];
+            }
+        }
+    }
+}
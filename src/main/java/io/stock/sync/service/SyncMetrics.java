@@ -0,0 +1,182 @@
+package io.stock.sync.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.stock.sync.service.SyncStats.Stage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sync cycle metrics, exported through Actuator ({@code /actuator/metrics}, {@code /actuator/prometheus}).
+ * All vendor meters are tagged with {@code vendor}:
+ * <ul>
+ *   <li>{@code sync.vendor} — observation (timer, and a span once a tracer is on the classpath) per vendor sync, tagged {@code error}</li>
+ *   <li>{@code sync.vendor.stage} — time per {@link Stage}, tagged {@code stage}</li>
+ *   <li>{@code sync.vendor.rows} — rows of committed syncs, tagged {@code result} = inserted / updated / unchanged</li>
+ *   <li>{@code sync.vendor.stock_outs}, {@code sync.vendor.restocks} — detected transitions</li>
+ *   <li>{@code sync.vendor.rows_per_second} — gauge, throughput of the vendor's last committed sync</li>
+ *   <li>{@code sync.vendor.retries} — fetch attempts repeated by a REST client's retry policy</li>
+ *   <li>{@code sync.vendor.circuit.state} — gauge, REST vendor circuit breaker: 0 = closed, 1 = half-open, 2 = open</li>
+ *   <li>{@code sync.vendor.circuit.rejected} — requests failed fast because the vendor's circuit was open</li>
+ *   <li>{@code sync.vendor.read_timeout} — gauge, a REST vendor's current (adaptive) read timeout</li>
+ *   <li>{@code sync.vendor.http.active}, {@code .pending}, {@code .max} — gauges, a REST vendor's open requests
+ *       (connections over HTTP/1.1), requests waiting for one, and its {@code http.max-connections}</li>
+ *   <li>{@code sync.vendor.http.wait} — time requests waited for a free connection</li>
+ *   <li>{@code sync.push.flush} — time to commit one micro-batch of pushed rows, tagged {@code outcome}</li>
+ *   <li>{@code sync.push.batch.rows} — rows per pushed micro-batch (pushed rows also count in {@code sync.vendor.rows} etc.)</li>
+ *   <li>{@code sync.push.rejected} — push requests turned away, tagged {@code reason} = buffer_full / not_owner</li>
+ * </ul>
+ * Every vendor sync also logs one {@code key=value} line.
+ */
+@Component
+public class SyncMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(SyncMetrics.class);
+
+    /**
+     * Outcome of one vendor within a cycle. {@code rejected} marks a failure caused by the vendor's
+     * data ({@link VendorDataException}), which a retry of the same input would repeat.
+     */
+    public record VendorResult(String vendor, SyncStats stats, boolean failed, boolean rejected, long nanos) {}
+
+    private static final Map<String, AtomicInteger> CIRCUIT_STATES = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicLong> READ_TIMEOUTS = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicInteger> HTTP_ACTIVE = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicInteger> HTTP_PENDING = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicInteger> HTTP_MAX = new ConcurrentHashMap<>();
+
+    private final MeterRegistry registry;
+    private final ObservationRegistry observations;
+    private final Map<String, AtomicLong> rowsPerSecond = new ConcurrentHashMap<>();
+
+    public SyncMetrics(MeterRegistry registry, ObservationRegistry observations) {
+        this.registry = registry;
+        this.observations = observations;
+    }
+
+    /** Counts a repeated fetch attempt; used by clients that are not Spring beans, hence the global registry. */
+    static Counter retries(String vendor) {
+        return Metrics.counter("sync.vendor.retries", "vendor", vendor);
+    }
+
+    /** Breaker state per vendor; one gauge per vendor that follows whichever client is current. */
+    static AtomicInteger circuitState(String vendor) {
+        return gauge(CIRCUIT_STATES, "sync.vendor.circuit.state", vendor);
+    }
+
+    static Counter circuitRejected(String vendor) {
+        return Metrics.counter("sync.vendor.circuit.rejected", "vendor", vendor);
+    }
+
+    /** Read timeout in milliseconds per vendor. */
+    static AtomicLong readTimeout(String vendor) {
+        return READ_TIMEOUTS.computeIfAbsent(vendor, v -> {
+            AtomicLong millis = new AtomicLong();
+            TimeGauge.builder("sync.vendor.read_timeout", millis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                    .tag("vendor", v)
+                    .register(Metrics.globalRegistry);
+            return millis;
+        });
+    }
+
+    static AtomicInteger httpActive(String vendor) {
+        return gauge(HTTP_ACTIVE, "sync.vendor.http.active", vendor);
+    }
+
+    static AtomicInteger httpPending(String vendor) {
+        return gauge(HTTP_PENDING, "sync.vendor.http.pending", vendor);
+    }
+
+    static AtomicInteger httpMax(String vendor) {
+        return gauge(HTTP_MAX, "sync.vendor.http.max", vendor);
+    }
+
+    static Timer httpWait(String vendor) {
+        return Metrics.timer("sync.vendor.http.wait", "vendor", vendor);
+    }
+
+    private static AtomicInteger gauge(Map<String, AtomicInteger> gauges, String name, String vendor) {
+        return gauges.computeIfAbsent(vendor, v -> Metrics.gauge(name, Tags.of("vendor", v), new AtomicInteger()));
+    }
+
+    Observation startVendor(String vendor) {
+        return Observation.createNotStarted("sync.vendor", observations)
+                .lowCardinalityKeyValue("vendor", vendor)
+                .start();
+    }
+
+    void vendorFinished(VendorResult result) {
+        String vendor = result.vendor();
+        SyncStats stats = result.stats();
+        for (Stage stage : Stage.values()) {
+            Timer.builder("sync.vendor.stage")
+                    .tags("vendor", vendor, "stage", stage.tag())
+                    .register(registry)
+                    .record(stats.nanos(stage), TimeUnit.NANOSECONDS);
+        }
+        // a failed sync rolled its writes back; only committed rows count
+        if (!result.failed()) {
+            countRows(vendor, stats);
+            rowsPerSecond.computeIfAbsent(vendor, v -> registry.gauge("sync.vendor.rows_per_second",
+                            Tags.of("vendor", v), new AtomicLong()))
+                    .set(perSecond(stats.rows(), result.nanos()));
+        }
+
+        log.info("sync vendor={} outcome={} total_ms={} fetch_ms={} parse_ms={} write_ms={} flush_ms={} "
+                        + "rows={} rows_per_s={} inserted={} updated={} unchanged={} stock_outs={} restocks={}",
+                vendor, result.failed() ? "failed" : "ok", millis(result.nanos()),
+                millis(stats.nanos(Stage.FETCH)), millis(stats.nanos(Stage.PARSE)),
+                millis(stats.nanos(Stage.WRITE)), millis(stats.nanos(Stage.FLUSH)),
+                stats.rows(), perSecond(stats.rows(), result.nanos()),
+                stats.inserted(), stats.updated(), stats.unchanged(), stats.stockOuts(), stats.restocks());
+    }
+
+    void pushFlushed(String vendor, SyncStats stats, int rows, int requests, boolean failed, long nanos) {
+        Timer.builder("sync.push.flush")
+                .tags("vendor", vendor, "outcome", failed ? "failed" : "ok")
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        registry.summary("sync.push.batch.rows", "vendor", vendor).record(rows);
+        if (!failed) countRows(vendor, stats);
+        log.debug("push vendor={} outcome={} total_ms={} rows={} requests={} inserted={} updated={} unchanged={} stock_outs={}",
+                vendor, failed ? "failed" : "ok", millis(nanos), rows, requests,
+                stats.inserted(), stats.updated(), stats.unchanged(), stats.stockOuts());
+    }
+
+    void pushRejected(String vendor, String reason) {
+        registry.counter("sync.push.rejected", "vendor", vendor, "reason", reason).increment();
+    }
+
+    private void countRows(String vendor, SyncStats stats) {
+        rows(vendor, "inserted").increment(stats.inserted());
+        rows(vendor, "updated").increment(stats.updated());
+        rows(vendor, "unchanged").increment(stats.unchanged());
+        registry.counter("sync.vendor.stock_outs", "vendor", vendor).increment(stats.stockOuts());
+        registry.counter("sync.vendor.restocks", "vendor", vendor).increment(stats.restocks());
+    }
+
+    private Counter rows(String vendor, String result) {
+        return registry.counter("sync.vendor.rows", "vendor", vendor, "result", result);
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private static long perSecond(long rows, long nanos) {
+        return nanos <= 0 ? 0 : rows * 1_000_000_000L / nanos;
+    }
+}
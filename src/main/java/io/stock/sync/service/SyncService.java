@@ -1,70 +1,396 @@
 package io.stock.sync.service;
 
-import io.stock.sync.model.Product;
+import io.micrometer.observation.Observation;
 import io.stock.sync.model.StockOutEvent;
-import io.stock.sync.repository.ProductRepository;
-import io.stock.sync.repository.StockOutEventRepository;
+import io.stock.sync.repository.ProductJdbcRepository;
+import io.stock.sync.repository.ProductStagingRepository;
+import io.stock.sync.repository.ProductStagingRepository.Difference;
+import io.stock.sync.repository.StockHistoryRepository.RawChange;
+import io.stock.sync.service.StockSnapshotCache.Stored;
+import io.stock.sync.service.StockSnapshotCache.VendorSnapshot;
+import io.stock.sync.service.SyncMetrics.VendorResult;
+import io.stock.sync.service.SyncStats.Stage;
 import io.stock.sync.service.dto.VendorProduct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class SyncService {
 
     private static final Logger log = LoggerFactory.getLogger(SyncService.class);
 
-    private final List<VendorClient> vendorClients;     // <-- all vendors discovered by Spring
-    private final ProductRepository productRepository;
-    private final StockOutEventRepository stockOutEventRepository;
+    private final VendorRegistry vendors;
+    private final ProductJdbcRepository productJdbcRepository;
+    private final ProductStagingRepository productStagingRepository;
+    private final StockOutRecorder stockOutRecorder;
+    private final StockSnapshotCache snapshotCache;
+    private final StockHistoryService historyService;
+    private final ApplicationEventPublisher events;
+    private final SyncMetrics metrics;
+    private final ClusterCoordinator cluster;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final boolean staging;           // diff and write chunks inside the DB instead of in memory
+    private final Semaphore vendorPermits;   // global cap on vendors fetched/ingested at the same time
+    private final Set<String> running = ConcurrentHashMap.newKeySet();   // vendors with a sync in progress
+    private final Map<String, ReentrantLock> writers = new ConcurrentHashMap<>();   // one writer per vendor: sync or push
 
-    public SyncService(List<VendorClient> vendorClients,     // <-- all vendors discovered by Spring
-                       ProductRepository productRepository, StockOutEventRepository stockOutEventRepository) {
-        this.vendorClients = vendorClients;
-        this.productRepository = productRepository;
-        this.stockOutEventRepository = stockOutEventRepository;
+    public SyncService(VendorRegistry vendors,
+                       ProductJdbcRepository productJdbcRepository,
+                       ProductStagingRepository productStagingRepository,
+                       StockOutRecorder stockOutRecorder,
+                       StockSnapshotCache snapshotCache,
+                       StockHistoryService historyService,
+                       ApplicationEventPublisher events,
+                       SyncMetrics metrics,
+                       ClusterCoordinator cluster,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${sync.chunk-size:1000}") int chunkSize,
+                       @Value("${sync.max-concurrent-vendors:4}") int maxConcurrentVendors,
+                       @Value("${sync.staging.enabled:false}") boolean staging) {
+        this.vendors = vendors;
+        this.productJdbcRepository = productJdbcRepository;
+        this.productStagingRepository = productStagingRepository;
+        this.stockOutRecorder = stockOutRecorder;
+        this.snapshotCache = snapshotCache;
+        this.historyService = historyService;
+        this.events = events;
+        this.metrics = metrics;
+        this.cluster = cluster;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.staging = staging;
+        this.vendorPermits = new Semaphore(maxConcurrentVendors);
     }
 
-    @Transactional
-    public void syncAll() {
-        vendorClients.forEach(client -> {
-            List<VendorProduct> batch = client.fetch();
-            log.info("Fetched {} items from {}", batch.size(), client.vendorName());
-            processBatch(batch);
-        });
+    /** The vendors currently configured; may differ from one call to the next. */
+    public List<VendorClient> vendorClients() {
+        return vendors.clients();
+    }
+
+    public boolean isRunning(String vendor) {
+        return running.contains(vendor);
+    }
+
+    /**
+     * Syncs one vendor in its own transaction. Returns null without doing anything if a sync of
+     * the same vendor is already in progress (so scheduled, manual and inbox runs never overlap
+     * per vendor), or if interrupted while waiting for a permit.
+     */
+    public VendorResult syncVendor(VendorClient client) {
+        if (!claim(client.vendorName())) {
+            log.info("Sync of {} is still running, skipping this run", client.vendorName());
+            return null;
+        }
+        return syncClaimedVendor(client);
+    }
+
+    /**
+     * Marks the vendor as syncing, for a caller that answers before the sync starts; false if a
+     * sync of it is already running. The claim must be handed to {@link #syncClaimedVendor}.
+     */
+    public boolean claim(String vendor) {
+        return running.add(vendor);
+    }
+
+    /** Runs a sync claimed with {@link #claim} and releases the claim when done. */
+    public VendorResult syncClaimedVendor(VendorClient client) {
+        try {
+            return syncClaimed(client);
+        } finally {
+            running.remove(client.vendorName());
+        }
+    }
+
+    /**
+     * Applies rows pushed by a vendor (see {@link PushIngestBuffer}) in one transaction, through the
+     * same diff, stock-out detection and history as a sync. Waits while a sync of the vendor is
+     * applying its rows (not while it fetches), since the snapshot cache expects one
+     * writer per vendor. Throws if the rows could not be committed; nothing is written then.
+     */
+    public SyncStats ingestPushed(String vendor, List<VendorProduct> rows) {
+        SyncStats stats = new SyncStats();
+        ReentrantLock writer = writer(vendor);
+        writer.lock();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                apply(rows, stats);
+                cluster.verifyLease(vendor);
+            });
+            vendors.find(vendor).ifPresent(VendorClient::forgetDelivered);
+        } finally {
+            writer.unlock();
+        }
+        return stats;
+    }
+
+    private ReentrantLock writer(String vendor) {
+        return writers.computeIfAbsent(vendor, v -> new ReentrantLock());
+    }
+
+    private VendorResult syncClaimed(VendorClient client) {
+        try {
+            vendorPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        String vendor = client.vendorName();
+        Observation observation = metrics.startVendor(vendor);
+        SyncStats stats = new SyncStats();
+        boolean failed = false;
+        boolean rejected = false;
+        long started = System.nanoTime();
+        // the stream is opened outside the transaction, so request/retry time holds no DB connection
+        try (Stream<VendorProduct> products = client.stream()) {
+            stats.time(Stage.FETCH, System.nanoTime() - started);
+            // pushes for the vendor wait only while the rows are applied, not during the permit wait or fetch
+            ReentrantLock writer = writer(vendor);
+            writer.lock();
+            try {
+                transactionTemplate.execute(status -> {
+                    ingest(products, stats);
+                    // clustered: roll back rather than commit if another node took the vendor over meanwhile
+                    cluster.verifyLease(vendor);
+                    return stats;
+                });
+                // still under the lock, so a push cannot commit between these and the client's bookkeeping
+                client.onCommitted();
+                vendors.find(vendor).filter(registered -> registered != client).ifPresent(VendorClient::forgetDelivered);
+            } finally {
+                writer.unlock();
+            }
+        } catch (Exception e) {
+            failed = true;
+            rejected = causedBy(e, VendorDataException.class);
+            observation.error(e);
+            log.error("Sync failed for {}, its changes were rolled back: {}", vendor, e.getMessage(), e);
+        } finally {
+            vendorPermits.release();
+        }
+        VendorResult result = new VendorResult(vendor, stats, failed, rejected, System.nanoTime() - started);
+        metrics.vendorFinished(result);
+        observation.stop();
+        return result;
+    }
+
+    private static boolean causedBy(Throwable e, Class<? extends Throwable> type) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (type.isInstance(t)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Drains the stream in chunks of {@code chunkSize}; only one chunk is held in memory at a time.
+     */
+    private SyncStats ingest(Stream<VendorProduct> products, SyncStats stats) {
+        List<VendorProduct> chunk = new ArrayList<>(chunkSize);
+        Iterator<VendorProduct> it = products.iterator();
+        long pulling = System.nanoTime();
+        while (it.hasNext()) {
+            chunk.add(it.next());
+            if (chunk.size() == chunkSize) {
+                stats.time(Stage.PARSE, System.nanoTime() - pulling);
+                processChunk(chunk, stats);
+                chunk.clear();
+                pulling = System.nanoTime();
+            }
+        }
+        stats.time(Stage.PARSE, System.nanoTime() - pulling);
+        if (!chunk.isEmpty()) processChunk(chunk, stats);
+        publishChanges(stats);
+        return stats;
     }
 
     @Transactional
     public void processBatch(List<VendorProduct> vendorProducts) {
-        for (VendorProduct vp : vendorProducts) {
-            upsertAndDetect(vp);
+        apply(vendorProducts, new SyncStats());
+    }
+
+    private void apply(List<VendorProduct> vendorProducts, SyncStats stats) {
+        for (int from = 0; from < vendorProducts.size(); from += chunkSize) {
+            processChunk(vendorProducts.subList(from, Math.min(from + chunkSize, vendorProducts.size())), stats);
+        }
+        publishChanges(stats);
+    }
+
+    /** Published inside the transaction; listeners that care about commit use AFTER_COMMIT. */
+    private void publishChanges(SyncStats stats) {
+        stats.changedVendors().forEach(vendor -> events.publishEvent(new ProductsChangedEvent(vendor)));
+    }
+
+    private void processChunk(List<VendorProduct> chunk, SyncStats stats) {
+        Map<String, List<VendorProduct>> byVendor = chunk.stream()
+                .collect(Collectors.groupingBy(VendorProduct::vendor, LinkedHashMap::new, Collectors.toList()));
+        long started = System.nanoTime();
+        byVendor.forEach((vendor, rows) -> {
+            if (staging) upsertStaged(vendor, rows, stats);
+            else upsertAndDetect(vendor, rows, stats);
+        });
+        long written = System.nanoTime();
+        stats.time(Stage.WRITE, written - started);
+        // nothing from this chunk is needed any more; keep the session from growing across chunks
+        productJdbcRepository.flushAndClear();
+        stats.time(Stage.FLUSH, System.nanoTime() - written);
+    }
+
+    /**
+     * Upserts one vendor's slice of a chunk with a single lookup query and batched writes.
+     * Rows are replayed in order against the stored state, so repeated skus inside a chunk
+     * behave exactly as they would row by row. Only rows whose final name or quantity differs
+     * from the stored values are written; unchanged rows cost no DB writes.
+     */
+    private void upsertAndDetect(String vendor, List<VendorProduct> rows, SyncStats stats) {
+        VendorSnapshot snapshot = snapshotCache.forVendor(vendor);
+        Map<String, Stored> stored = findStored(vendor, snapshot,
+                rows.stream().map(VendorProduct::sku).collect(Collectors.toSet()));
+
+        Map<String, VendorProduct> latest = new LinkedHashMap<>();   // sku -> last row seen in this chunk
+        List<StockOutEvent> events = new ArrayList<>();
+        List<RawChange> changes = new ArrayList<>();
+        int restocks = 0;
+        OffsetDateTime now = OffsetDateTime.now();
+
+        for (VendorProduct vp : rows) {
+            VendorProduct previous = latest.put(vp.sku(), vp);
+            Stored before = stored.get(vp.sku());
+            Integer newQty = vp.stockQuantity();
+            if (previous == null && before == null) {
+                if (newQty != null && newQty == 0) {
+                    // initial snapshot zero does not count as a transition (spec ambiguous; we consider no event on first insert)
+                    log.info("Inserted product {}:{} with zero stock (no transition).", vp.vendor(), vp.sku());
+                }
+                if (newQty != null) changes.add(new RawChange(null, vendor, vp.sku(), now, null, newQty));
+                continue;
+            }
+            Integer oldQty = previous != null ? previous.stockQuantity() : before.stockQuantity();
+            if (newQty == null || newQty.equals(oldQty)) continue;
+            changes.add(new RawChange(null, vendor, vp.sku(), now, oldQty, newQty));
+            if (detectTransition(vendor, vp.sku(), oldQty, newQty, events)) restocks++;
+        }
+
+        List<VendorProduct> inserts = new ArrayList<>();
+        List<VendorProduct> updates = new ArrayList<>();
+        for (VendorProduct vp : latest.values()) {
+            Stored before = stored.get(vp.sku());
+            if (before == null) {
+                inserts.add(vp);
+            } else if (before.nameDigest() != StockSnapshotCache.nameDigest(vp.name())
+                    || !Objects.equals(before.stockQuantity(), vp.stockQuantity())) {
+                updates.add(vp);
+            }
+        }
+
+        productJdbcRepository.insertAll(inserts, now);
+        productJdbcRepository.updateAll(updates, now);
+        stockOutRecorder.record(events);
+        historyService.record(changes);
+        if (snapshot != null && (!inserts.isEmpty() || !updates.isEmpty())) {
+            // buffered until this transaction commits; later chunks of the sync read it back
+            inserts.forEach(vp -> snapshotCache.recordWrite(vendor, snapshot, vp.sku(), vp.stockQuantity(), vp.name()));
+            updates.forEach(vp -> snapshotCache.recordWrite(vendor, snapshot, vp.sku(), vp.stockQuantity(), vp.name()));
         }
+        if (!inserts.isEmpty() || !updates.isEmpty()) stats.vendorChanged(vendor);
+        stats.add(rows.size(), inserts.size(), updates.size(),
+                latest.size() - inserts.size() - updates.size(), events.size(), restocks);
     }
 
-    private void upsertAndDetect(VendorProduct vp) {
-        Optional<Product> existingOpt = productRepository.findBySkuAndVendor(vp.sku(), vp.vendor());
-        if (existingOpt.isEmpty()) {
-            Product p = new Product(vp.sku(), vp.name(), vp.stockQuantity(), vp.vendor());
-            productRepository.save(p);
-            if (vp.stockQuantity() != null && vp.stockQuantity() == 0) {
-                // initial snapshot zero does not count as a transition (spec ambiguous; we consider no event on first insert)
-                log.info("Inserted product {}:{} with zero stock (no transition).", vp.vendor(), vp.sku());
+    /**
+     * Staging variant of {@link #upsertAndDetect}: the slice is loaded into the staging table, the
+     * rows that differ from products come back from one join, and one MERGE writes them. Unlike
+     * the in-memory path, a sku repeated inside the chunk only counts with its last row, so
+     * intermediate quantities are neither recorded in the history nor checked for stock-outs.
+     */
+    private void upsertStaged(String vendor, List<VendorProduct> rows, SyncStats stats) {
+        Map<String, VendorProduct> latest = new LinkedHashMap<>();
+        rows.forEach(vp -> latest.put(vp.sku(), vp));
+        productStagingRepository.stage(latest.values());
+        List<Difference> differences = productStagingRepository.differences();
+
+        List<StockOutEvent> events = new ArrayList<>();
+        List<RawChange> changes = new ArrayList<>();
+        int inserts = 0;
+        int restocks = 0;
+        OffsetDateTime now = OffsetDateTime.now();
+        for (Difference d : differences) {
+            Integer newQty = d.newQuantity();
+            if (!d.stored()) {
+                inserts++;
+                if (newQty != null) changes.add(new RawChange(null, vendor, d.sku(), now, null, newQty));
+                continue;
             }
-        } else {
-            Product existing = existingOpt.get();
-            Integer oldQty = existing.getStockQuantity();
-            existing.setName(vp.name());
-            existing.setStockQuantity(vp.stockQuantity());
-            productRepository.save(existing);
-
-            if (oldQty != null && oldQty > 0 && vp.stockQuantity() != null && vp.stockQuantity() == 0) {
-                log.warn("STOCK-OUT detected for {}:{} ({} -> 0)", vp.vendor(), vp.sku(), oldQty);
-                stockOutEventRepository.save(new StockOutEvent(existing.getSku(), existing.getVendor(), oldQty));
+            if (newQty == null || newQty.equals(d.oldQuantity())) continue;
+            changes.add(new RawChange(null, vendor, d.sku(), now, d.oldQuantity(), newQty));
+            if (detectTransition(vendor, d.sku(), d.oldQuantity(), newQty, events)) restocks++;
+        }
+
+        productStagingRepository.merge(now);
+        stockOutRecorder.record(events);
+        historyService.record(changes);
+        if (!differences.isEmpty()) {
+            // this path never reads the snapshot; make sure no stale one outlives the write
+            snapshotCache.invalidateAfterCompletion(vendor);
+            stats.vendorChanged(vendor);
+        }
+        stats.add(rows.size(), inserts, differences.size() - inserts,
+                latest.size() - differences.size(), events.size(), restocks);
+    }
+
+    /** Adds a stock-out event for a drop to zero; returns true for a restock from zero. */
+    private static boolean detectTransition(String vendor, String sku, Integer oldQty, int newQty, List<StockOutEvent> events) {
+        if (oldQty != null && oldQty > 0 && newQty == 0) {
+            log.warn("STOCK-OUT detected for {}:{} ({} -> 0)", vendor, sku, oldQty);
+            events.add(new StockOutEvent(sku, vendor, oldQty));
+        } else if (oldQty != null && oldQty == 0 && newQty > 0) {
+            log.info("RESTOCK detected for {}:{} (0 -> {})", vendor, sku, newQty);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Stored state for the given skus, from the snapshot cache when the vendor is cached. Skus
+     * the snapshot does not know are confirmed against the DB (inserts are rare once a vendor is
+     * loaded), so a row written outside the sync cannot turn into a duplicate insert.
+     */
+    private Map<String, Stored> findStored(String vendor, VendorSnapshot snapshot, Set<String> skus) {
+        Map<String, Stored> result = new HashMap<>(skus.size() * 2);
+        Set<String> unknown = skus;
+        if (snapshot != null) {
+            unknown = new HashSet<>();
+            for (String sku : skus) {
+                Stored s = snapshotCache.lookup(vendor, snapshot, sku);
+                if (s != null) result.put(sku, s);
+                else unknown.add(sku);
             }
         }
+        productJdbcRepository.findStored(vendor, unknown).forEach((sku, p) -> {
+            result.put(sku, new Stored(p.stockQuantity(), StockSnapshotCache.nameDigest(p.name())));
+            if (snapshot != null) snapshotCache.recordWrite(vendor, snapshot, sku, p.stockQuantity(), p.name());
+        });
+        return result;
     }
 }
@@ -0,0 +1,68 @@
+package io.stock.sync.service;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/** Row counts and stage timings for one vendor sync (or one pushed batch). Not thread-safe; owned by one sync. */
+public class SyncStats {
+
+    /** Where a vendor sync spends its time; see {@link SyncMetrics}. */
+    public enum Stage {
+        /** Opening the vendor stream: the HTTP request up to the response headers, or opening the file. */
+        FETCH,
+        /** Pulling rows off the stream: body transfer, decompression and parsing. */
+        PARSE,
+        /** Lookups, change detection and the batched writes of each chunk. */
+        WRITE,
+        /** Flushing and clearing the persistence context after each chunk. */
+        FLUSH;
+
+        public String tag() { return name().toLowerCase(); }
+    }
+
+    private long rows;
+    private long inserted;
+    private long updated;
+    private long unchanged;
+    private long stockOuts;
+    private long restocks;
+    private final long[] stageNanos = new long[Stage.values().length];
+    private final Set<String> changedVendors = new LinkedHashSet<>();
+
+    void add(long rows, long inserted, long updated, long unchanged, long stockOuts, long restocks) {
+        this.rows += rows;
+        this.inserted += inserted;
+        this.updated += updated;
+        this.unchanged += unchanged;
+        this.stockOuts += stockOuts;
+        this.restocks += restocks;
+    }
+
+    void time(Stage stage, long nanos) {
+        stageNanos[stage.ordinal()] += nanos;
+    }
+
+    void vendorChanged(String vendor) {
+        changedVendors.add(vendor);
+    }
+
+    public long rows() { return rows; }
+    public long inserted() { return inserted; }
+    public long updated() { return updated; }
+    public long unchanged() { return unchanged; }
+    public long stockOuts() { return stockOuts; }
+    public long restocks() { return restocks; }
+    public long nanos(Stage stage) { return stageNanos[stage.ordinal()]; }
+
+    /** True when the sync wrote anything. */
+    public boolean changed() { return inserted > 0 || updated > 0; }
+
+    /** Vendors that had at least one product inserted or updated. */
+    public Set<String> changedVendors() { return changedVendors; }
+
+    @Override
+    public String toString() {
+        return rows + " rows: " + inserted + " inserted, " + updated + " updated, "
+                + unchanged + " unchanged, " + stockOuts + " stock-outs, " + restocks + " restocks";
+    }
+}
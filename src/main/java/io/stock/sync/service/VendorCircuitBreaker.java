@@ -0,0 +1,122 @@
+package io.stock.sync.service;
+
+import io.micrometer.core.instrument.Counter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Circuit breaker of one REST vendor. After {@code failureThreshold} consecutive failed requests
+ * it opens, and requests fail at once with {@link OpenException} instead of waiting for timeouts
+ * and retry backoff. Once {@code openDuration} has passed, a single probe request is let through
+ * (half-open): if it succeeds the breaker closes, otherwise it opens again for twice as long, up
+ * to {@code maxOpenDuration}. The state is exported as {@code sync.vendor.circuit.state}.
+ */
+public class VendorCircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(VendorCircuitBreaker.class);
+
+    /** Gauge values: 0 = closed, 1 = half-open, 2 = open. */
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    /** Thrown instead of sending a request while the breaker is open. */
+    public static class OpenException extends RuntimeException {
+        public OpenException(String vendor, Instant retryAt) {
+            super("Circuit of " + vendor + " is open until " + retryAt);
+        }
+    }
+
+    private final String vendor;
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Duration maxOpenDuration;
+    private final Clock clock;
+    private final AtomicInteger stateGauge;
+    private final Counter rejected;
+
+    private State state = State.CLOSED;         // guarded by this
+    private int failures;                       // consecutive, guarded by this
+    private Duration currentOpen;               // guarded by this
+    private Instant openUntil = Instant.MIN;    // guarded by this
+    private boolean probing;                    // a half-open probe is in flight, guarded by this
+
+    public VendorCircuitBreaker(String vendor, int failureThreshold, Duration openDuration, Duration maxOpenDuration) {
+        this(vendor, failureThreshold, openDuration, maxOpenDuration, Clock.systemUTC());
+    }
+
+    VendorCircuitBreaker(String vendor, int failureThreshold, Duration openDuration, Duration maxOpenDuration, Clock clock) {
+        this.vendor = vendor;
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.maxOpenDuration = maxOpenDuration;
+        this.clock = clock;
+        this.currentOpen = openDuration;
+        this.stateGauge = SyncMetrics.circuitState(vendor);
+        this.rejected = SyncMetrics.circuitRejected(vendor);
+        stateGauge.set(State.CLOSED.ordinal());
+    }
+
+    /** Throws {@link OpenException} if no request may be sent now; otherwise the caller must report the outcome. */
+    public synchronized void acquire() {
+        if (state == State.OPEN && !clock.instant().isBefore(openUntil)) {
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.OPEN || (state == State.HALF_OPEN && probing)) {
+            rejected.increment();
+            throw new OpenException(vendor, openUntil);
+        }
+        if (state == State.HALF_OPEN) probing = true;
+    }
+
+    /** True unless the breaker is open or probing; retries stop once it is not. */
+    public synchronized boolean isClosed() {
+        return state == State.CLOSED;
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    public synchronized void onSuccess() {
+        failures = 0;
+        probing = false;
+        if (state != State.CLOSED) {
+            currentOpen = openDuration;
+            transition(State.CLOSED);
+        }
+    }
+
+    public synchronized void onFailure() {
+        failures++;
+        if (state == State.HALF_OPEN) {
+            probing = false;
+            currentOpen = min(currentOpen.multipliedBy(2), maxOpenDuration);
+            open();
+        } else if (state == State.CLOSED && failures >= failureThreshold) {
+            open();
+        }
+    }
+
+    private void open() {
+        openUntil = clock.instant().plus(currentOpen);
+        transition(State.OPEN);
+    }
+
+    private void transition(State next) {
+        if (next == State.OPEN) {
+            log.warn("Circuit of {} opened after {} consecutive failures, failing fast for {}", vendor, failures, currentOpen);
+        } else {
+            log.info("Circuit of {} {}", vendor, next == State.CLOSED ? "closed" : "half-open, sending a probe");
+        }
+        state = next;
+        stateGauge.set(next.ordinal());
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+}
@@ -3,6 +3,7 @@ package io.stock.sync.service;
 import io.stock.sync.service.dto.VendorProduct;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 /** Strategy for pulling stock from a single vendor. */
 public interface VendorClient {
@@ -12,7 +13,32 @@ public interface VendorClient {
     String vendorName();
 
     /**
-     * Pull the full product list for this vendor. Must never throw; return empty on failure.
+     * Open a lazy, pull-based stream over this vendor's products; rows are read only as the
+     * consumer asks for them. Must never throw; on failure the stream ends early or is empty.
+     * Callers must close the stream to release the underlying file/connection.
      */
-    List<VendorProduct> fetch();
-}
\ No newline at end of file
+    Stream<VendorProduct> stream();
+
+    /**
+     * Called after everything read from the last {@link #stream()} has been committed. Clients that
+     * remember what they already delivered record it here, so a rolled back sync is redone in full.
+     */
+    default void onCommitted() {}
+
+    /**
+     * Called after something other than this client wrote the vendor's products: a push, another
+     * client such as a dropped file, or another node while this one did not hold the vendor's
+     * lease. Clients that remember what they already delivered must forget it, since the stored
+     * rows may no longer match.
+     */
+    default void forgetDelivered() {}
+
+    /**
+     * Pull the full product list for this vendor into memory. Must never throw; return empty on failure.
+     */
+    default List<VendorProduct> fetch() {
+        try (Stream<VendorProduct> products = stream()) {
+            return products.toList();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package io.stock.sync.service;
+
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caps the requests one REST vendor has open at the same time, from sending until the response
+ * is closed, at {@code http.max-connections}. The JDK client has no per-host pool limit, so this
+ * is what bounds a vendor's connections over HTTP/1.1 (and its concurrent streams over HTTP/2).
+ * A request waits up to {@code maxWait} for a free slot, then fails like an I/O error. Exported
+ * as {@code sync.vendor.http.active}, {@code .pending}, {@code .max} and the {@code .wait} timer.
+ */
+public class VendorConnectionLimit implements ClientHttpRequestInterceptor {
+
+    private final String vendor;
+    private final Semaphore slots;
+    private final Duration maxWait;
+    private final AtomicInteger active;
+    private final AtomicInteger pending;
+    private final Timer waits;
+
+    public VendorConnectionLimit(String vendor, int maxConnections, Duration maxWait) {
+        this.vendor = vendor;
+        this.slots = new Semaphore(maxConnections, true);
+        this.maxWait = maxWait;
+        this.active = SyncMetrics.httpActive(vendor);
+        this.pending = SyncMetrics.httpPending(vendor);
+        this.waits = SyncMetrics.httpWait(vendor);
+        SyncMetrics.httpMax(vendor).set(maxConnections);
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        long started = System.nanoTime();
+        pending.incrementAndGet();
+        boolean acquired;
+        try {
+            acquired = slots.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceAccessException("Interrupted while waiting for a connection to " + vendor);
+        } finally {
+            pending.decrementAndGet();
+            waits.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+        if (!acquired) {
+            throw new ResourceAccessException("No free connection to " + vendor + " within " + maxWait);
+        }
+        active.incrementAndGet();
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                active.decrementAndGet();
+                slots.release();
+            }
+        };
+        try {
+            return new Released(execution.execute(request, body), release);
+        } catch (IOException | RuntimeException e) {
+            release.run();
+            throw e;
+        }
+    }
+
+    /** Gives the slot back when the response is closed. */
+    private record Released(ClientHttpResponse delegate, Runnable release) implements ClientHttpResponse {
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                release.run();
+            }
+        }
+    }
+}
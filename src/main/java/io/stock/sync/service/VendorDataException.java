@@ -0,0 +1,12 @@
+package io.stock.sync.service;
+
+/**
+ * The vendor's data itself is unusable, e.g. a malformed CSV row. Unlike I/O, DB or lease errors,
+ * retrying the same input fails the same way, so a sync failing with it is reported as
+ * {@link SyncMetrics.VendorResult#rejected() rejected}.
+ */
+public class VendorDataException extends RuntimeException {
+    public VendorDataException(String message) {
+        super(message);
+    }
+}
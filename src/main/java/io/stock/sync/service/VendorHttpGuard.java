@@ -0,0 +1,54 @@
+package io.stock.sync.service;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+
+/**
+ * Wraps every request of one REST vendor: refuses it while the vendor's circuit is open, and
+ * reports the outcome to the breaker and, for successful responses, the latency to the adaptive
+ * timeout. I/O errors (including timeouts), {@code 5xx} and {@code 429} count as failures; other
+ * statuses prove the vendor is reachable and count as successes.
+ */
+public class VendorHttpGuard implements ClientHttpRequestInterceptor {
+
+    private final VendorCircuitBreaker breaker;
+    private final AdaptiveTimeout timeout;   // null = static read timeout
+
+    public VendorHttpGuard(VendorCircuitBreaker breaker, AdaptiveTimeout timeout) {
+        this.breaker = breaker;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        if (breaker != null) breaker.acquire();
+        long started = System.nanoTime();
+        ClientHttpResponse response;
+        try {
+            response = execution.execute(request, body);
+        } catch (IOException | RuntimeException e) {
+            if (breaker != null) breaker.onFailure();
+            throw e;
+        }
+        boolean failed;
+        try {
+            failed = response.getStatusCode().is5xxServerError()
+                    || response.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS);
+        } catch (IOException | RuntimeException e) {
+            if (breaker != null) breaker.onFailure();
+            response.close();
+            throw e;
+        }
+        if (breaker != null) {
+            if (failed) breaker.onFailure();
+            else breaker.onSuccess();
+        }
+        if (!failed && timeout != null && !response.getStatusCode().isError()) timeout.record(System.nanoTime() - started);
+        return response;
+    }
+}
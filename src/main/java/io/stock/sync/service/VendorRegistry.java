@@ -0,0 +1,16 @@
+package io.stock.sync.service;
+
+import java.util.List;
+import java.util.Optional;
+
+/** The vendors to sync right now. The set may change between two calls, so callers must not cache it. */
+@FunctionalInterface
+public interface VendorRegistry {
+
+    /** Clients of the enabled vendors. A vendor keeps the same client instance until its configuration changes. */
+    List<VendorClient> clients();
+
+    default Optional<VendorClient> find(String vendor) {
+        return clients().stream().filter(c -> c.vendorName().equals(vendor)).findFirst();
+    }
+}
@@ -0,0 +1,30 @@
+package io.stock.sync.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+
+/** POSTs each batch as a JSON array to {@code outbox.webhook.url}; any non-2xx rejects the batch. */
+@Component
+@ConditionalOnProperty(name = "outbox.webhook.url")
+public class WebhookOutboxSubscriber implements OutboxSubscriber {
+
+    private final RestTemplate restTemplate;
+    private final String url;
+
+    public WebhookOutboxSubscriber(RestTemplate restTemplate, @Value("${outbox.webhook.url}") String url) {
+        this.restTemplate = restTemplate;
+        this.url = url;
+    }
+
+    @Override
+    public String name() { return "webhook"; }
+
+    @Override
+    public void deliver(List<StockOutNotification> notifications) {
+        restTemplate.postForEntity(url, notifications, Void.class);
+    }
+}
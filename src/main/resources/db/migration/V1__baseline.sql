@@ -0,0 +1,101 @@
+-- Baseline schema, as Hibernate maps the entities (ddl-auto=validate checks it on startup).
+-- Kept to SQL that PostgreSQL and H2 (MODE=PostgreSQL) both accept.
+
+create sequence stock_out_events_seq start with 1 increment by 50;
+create sequence stock_out_outbox_seq start with 1 increment by 50;
+
+create table products (
+    id bigint generated by default as identity,
+    vendor varchar(255) not null,
+    sku varchar(255) not null,
+    name varchar(255) not null,
+    stock_quantity integer not null,
+    updated_at timestamp(6) with time zone not null,
+    primary key (id),
+    constraint uk_sku_vendor unique (sku, vendor)
+);
+create index idx_products_vendor_id on products (vendor, id);
+create index idx_products_updated_at on products (updated_at);
+
+create table stock_changes (
+    id bigint generated by default as identity,
+    vendor varchar(255) not null,
+    sku varchar(255) not null,
+    changed_at timestamp(6) with time zone not null,
+    old_quantity integer,
+    new_quantity integer not null,
+    primary key (id)
+);
+create index idx_changes_vendor_sku_time on stock_changes (vendor, sku, changed_at);
+create index idx_changes_time on stock_changes (changed_at);
+
+create table stock_history_blocks (
+    vendor varchar(255) not null,
+    sku varchar(255) not null,
+    bucket_day date not null,
+    first_at timestamp(6) with time zone not null,
+    last_at timestamp(6) with time zone not null,
+    change_count integer not null,
+    payload bytea not null,
+    primary key (bucket_day, sku, vendor)
+);
+create index idx_blocks_day on stock_history_blocks (bucket_day);
+
+create table stock_out_events (
+    id bigint not null,
+    vendor varchar(255) not null,
+    sku varchar(255) not null,
+    previous_quantity integer not null,
+    occurred_at timestamp(6) with time zone not null,
+    primary key (id)
+);
+create index idx_sku_vendor_time on stock_out_events (sku, vendor, occurred_at);
+create index idx_vendor_time on stock_out_events (vendor, occurred_at, id);
+create index idx_time on stock_out_events (occurred_at, id);
+
+create table stock_out_counts (
+    vendor varchar(255) not null,
+    granularity varchar(8) not null check (granularity in ('HOUR', 'DAY')),
+    bucket_start timestamp(6) with time zone not null,
+    event_count bigint not null,
+    primary key (bucket_start, granularity, vendor)
+);
+create index idx_counts_granularity_bucket on stock_out_counts (granularity, bucket_start);
+
+create table stock_out_outbox (
+    id bigint not null,
+    event_id bigint not null,
+    vendor varchar(255) not null,
+    sku varchar(255) not null,
+    previous_quantity integer not null,
+    occurred_at timestamp(6) with time zone not null,
+    attempts integer not null,
+    next_attempt_at timestamp(6) with time zone not null,
+    last_error varchar(1000),
+    primary key (id)
+);
+create index idx_outbox_due on stock_out_outbox (next_attempt_at, id);
+
+create table sync_nodes (
+    node_id varchar(255) not null,
+    heartbeat_at timestamp(6) with time zone not null,
+    primary key (node_id)
+);
+
+create table sync_leases (
+    name varchar(255) not null,
+    owner_node varchar(255) not null,
+    expires_at timestamp(6) with time zone not null,
+    primary key (name)
+);
+create index idx_leases_owner on sync_leases (owner_node);
+
+create table vendor_configs (
+    name varchar(255) not null,
+    spec varchar(8192) not null,
+    enabled boolean not null,
+    push_token_sha256 varchar(64),
+    updated_at timestamp(6) with time zone not null,
+    version bigint,
+    primary key (name)
+);
@@ -0,0 +1,53 @@
+package io.stock.sync;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.annotation.AliasFor;
+import org.springframework.test.context.ContextConfigurationAttributes;
+import org.springframework.test.context.ContextCustomizer;
+import org.springframework.test.context.ContextCustomizerFactories;
+import org.springframework.test.context.ContextCustomizerFactory;
+import org.springframework.test.context.MergedContextConfiguration;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.List;
+
+/**
+ * A {@link SpringBootTest} whose context gets an in-memory H2 database of its own, named after the
+ * test class, and no scheduled vendor syncs. Rows committed by such a test stay out of the shared
+ * database, and background relays of other cached contexts never see its tables.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@SpringBootTest
+@ContextCustomizerFactories(OwnDatabaseTest.Factory.class)
+public @interface OwnDatabaseTest {
+
+    /** Further properties for the test context, as in {@link SpringBootTest#properties()}. */
+    @AliasFor(annotation = SpringBootTest.class, attribute = "properties")
+    String[] properties() default {};
+
+    class Factory implements ContextCustomizerFactory {
+        @Override
+        public ContextCustomizer createContextCustomizer(Class<?> testClass,
+                                                         List<ContextConfigurationAttributes> configAttributes) {
+            return new OwnDatabase(testClass.getSimpleName());
+        }
+    }
+
+    /** A record, so contexts are cached per database name. */
+    record OwnDatabase(String name) implements ContextCustomizer {
+        @Override
+        public void customizeContext(ConfigurableApplicationContext context, MergedContextConfiguration config) {
+            TestPropertyValues.of(
+                    "spring.datasource.url=jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                    "sync.enabled=false").applyTo(context);
+        }
+    }
+}
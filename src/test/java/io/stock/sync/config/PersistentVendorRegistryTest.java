@@ -0,0 +1,102 @@
+package io.stock.sync.config;
+
+import io.stock.sync.OwnDatabaseTest;
+import io.stock.sync.config.VendorsProperties.CsvSpec;
+import io.stock.sync.config.VendorsProperties.RestSpec;
+import io.stock.sync.service.VendorClient;
+import io.stock.sync.service.dto.VendorProduct;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@OwnDatabaseTest(properties = {
+        "vendors.rest[0].name=VENDOR_A",
+        "vendors.rest[0].url=http://example/a",
+        "vendors.csv[0].name=VENDOR_B",
+        "vendors.csv[0].path=/tmp/vendor-b/stock.csv"
+})
+class PersistentVendorRegistryTest {
+
+    @Autowired
+    PersistentVendorRegistry registry;
+
+    @Test
+    void buildsClientsFromYaml() {
+        assertThat(registry.clients()).extracting(VendorClient::vendorName)
+                .containsExactlyInAnyOrder("VENDOR_A", "VENDOR_B");
+    }
+
+    @Test
+    void appliesChangesWithoutRestartAndOnlyRebuildsChangedVendors() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            server.start();
+            server.enqueue(new MockResponse().setHeader("Content-Type", "application/json")
+                    .setBody("[{\"sku\":\"S1\",\"name\":\"One\",\"stockQuantity\":3}]"));
+            VendorClient csv = registry.find("VENDOR_B").orElseThrow();
+
+            RestSpec spec = new RestSpec();
+            spec.setUrl(server.url("/products").toString());
+            spec.getHttp().setReadTimeout(Duration.ofSeconds(2));
+            spec.getRetry().setMaxAttempts(1);
+            PersistentVendorRegistry.Definition created = registry.put("VENDOR_HOT", spec);
+            assertThat(created.active()).isTrue();
+
+            VendorClient hot = registry.find("VENDOR_HOT").orElseThrow();
+            assertThat(hot.fetch()).extracting(VendorProduct::sku).containsExactly("S1");
+            assertThat(server.takeRequest().getHeader("Accept-Encoding")).isEqualTo("gzip, deflate");
+
+            // an edit rebuilds only that vendor's client
+            spec.setUrl(server.url("/v2/products").toString());
+            assertThat(registry.put("VENDOR_HOT", spec).version()).isGreaterThan(created.version());
+            assertThat(registry.find("VENDOR_HOT").orElseThrow()).isNotSameAs(hot);
+            assertThat(registry.find("VENDOR_B").orElseThrow()).isSameAs(csv);
+            assertThat(registry.refresh()).isEmpty();
+
+            assertThat(registry.setEnabled("VENDOR_HOT", false)).isTrue();
+            assertThat(registry.find("VENDOR_HOT")).isEmpty();
+            assertThat(registry.definition("VENDOR_HOT").orElseThrow().active()).isFalse();
+
+            assertThat(registry.delete("VENDOR_HOT")).isTrue();
+            assertThat(registry.definition("VENDOR_HOT")).isEmpty();
+            registry.closeRetired(v -> false);
+        }
+    }
+
+    @Test
+    void pushTokensChangeWithoutRebuildingTheClient() {
+        VendorClient csv = registry.find("VENDOR_B").orElseThrow();
+        long version = registry.definition("VENDOR_B").orElseThrow().version();
+
+        String token = registry.issuePushToken("VENDOR_B").orElseThrow();
+        assertThat(registry.acceptsPush("VENDOR_B", token)).isTrue();
+        assertThat(registry.find("VENDOR_B").orElseThrow()).isSameAs(csv);
+        assertThat(registry.definition("VENDOR_B").orElseThrow().version()).isEqualTo(version);
+
+        assertThat(registry.revokePushToken("VENDOR_B")).isTrue();
+        assertThat(registry.acceptsPush("VENDOR_B", token)).isFalse();
+        assertThat(registry.find("VENDOR_B").orElseThrow()).isSameAs(csv);
+        assertThat(registry.issuePushToken("VENDOR_NONE")).isEmpty();
+    }
+
+    @Test
+    void rejectsInvalidSpecs() {
+        RestSpec noUrl = new RestSpec();
+        assertThatThrownBy(() -> registry.put("VENDOR_BAD", noUrl)).isInstanceOf(IllegalArgumentException.class);
+
+        CsvSpec csv = new CsvSpec();
+        csv.setPath("/tmp/x.csv");
+        csv.getSchedule().setMinInterval(Duration.ofMinutes(5));
+        csv.getSchedule().setMaxInterval(Duration.ofMinutes(1));
+        assertThatThrownBy(() -> registry.put("VENDOR_BAD", csv)).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(registry.definition("VENDOR_BAD")).isEmpty();
+        assertThat(registry.clients()).extracting(VendorClient::vendorName).doesNotContain("VENDOR_BAD");
+    }
+}
@@ -0,0 +1,235 @@
+package io.stock.sync.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.stock.sync.OwnDatabaseTest;
+import io.stock.sync.model.StockOutEvent;
+import io.stock.sync.repository.ProductRepository;
+import io.stock.sync.repository.StockOutEventRepository;
+import io.stock.sync.service.SyncService;
+import io.stock.sync.service.VendorClient;
+import io.stock.sync.service.dto.VendorProduct;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@OwnDatabaseTest(properties = {
+        "ingest.max-delay=300ms",
+        "ingest.commit-timeout=2s",
+        "admin.token-sha256=" + VendorAdminControllerTest.ADMIN_TOKEN_SHA256
+})
+@AutoConfigureMockMvc
+class IngestControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    ProductRepository productRepository;
+
+    @Autowired
+    StockOutEventRepository stockOutEventRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    SyncService syncService;
+
+    @Test
+    void authenticatedPushesGoThroughUpsertAndStockOutDetection() throws Exception {
+        String token = pushVendor("VENDOR_PUSH");
+        // only the admin can mint or revoke push tokens
+        mockMvc.perform(post("/admin/vendors/VENDOR_PUSH/push-token")).andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/admin/vendors/VENDOR_PUSH/push-token").header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(delete("/admin/vendors/VENDOR_PUSH/push-token")).andExpect(status().isUnauthorized());
+
+        mockMvc.perform(post("/ingest/VENDOR_PUSH/products").contentType(ProductController.NDJSON).content("""
+                        {"sku": "P1", "name": "One", "stockQuantity": 5}
+                        {"sku": "P2", "name": "Two", "stockQuantity": 3}
+                        """))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/ingest/VENDOR_PUSH/products").header("Authorization", "Bearer nope")
+                        .contentType(ProductController.NDJSON).content("{\"sku\": \"P1\", \"name\": \"One\", \"stockQuantity\": 5}"))
+                .andExpect(status().isUnauthorized());
+
+        mockMvc.perform(post("/ingest/VENDOR_PUSH/products").header("Authorization", "Bearer " + token)
+                        .contentType(ProductController.NDJSON).content("""
+                        {"sku": "P1", "name": "One", "stockQuantity": 5}
+                        {"sku": "P2", "name": "Two", "stockQuantity": 3}
+                        """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(2));
+        assertThat(productRepository.findBySkuAndVendor("P2", "VENDOR_PUSH").orElseThrow().getStockQuantity()).isEqualTo(3);
+
+        mockMvc.perform(put("/ingest/VENDOR_PUSH/products/P1").header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"name\": \"One\", \"stockQuantity\": 0}"))
+                .andExpect(status().isOk());
+        assertThat(productRepository.findBySkuAndVendor("P1", "VENDOR_PUSH").orElseThrow().getStockQuantity()).isZero();
+        assertThat(stockOutEventRepository.findAll()).extracting(StockOutEvent::getSku, StockOutEvent::getVendor)
+                .contains(tuple("P1", "VENDOR_PUSH"));
+
+        mockMvc.perform(post("/ingest/VENDOR_PUSH/products").header("Authorization", "Bearer " + token)
+                        .contentType(ProductController.NDJSON).content("{\"sku\": \"P3\", \"name\": \"Three\"}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/ingest/VENDOR_PUSH/products").header("Authorization", "Bearer " + token)
+                        .contentType(ProductController.NDJSON).content("{\"sku\": \"P3\", "))
+                .andExpect(status().isBadRequest());
+
+        // a revoked token stops working
+        mockMvc.perform(delete("/admin/vendors/VENDOR_PUSH/push-token").with(VendorAdminControllerTest.admin())).andExpect(status().isNoContent());
+        mockMvc.perform(put("/ingest/VENDOR_PUSH/products/P1").header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"name\": \"One\", \"stockQuantity\": 1}"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void concurrentPushesAreCoalescedIntoFewBatches() throws Exception {
+        String token = pushVendor("VENDOR_BURST");
+        int requests = 20;
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Integer>> statuses = IntStream.range(0, requests)
+                    .mapToObj(i -> pool.submit(() -> mockMvc.perform(put("/ingest/VENDOR_BURST/products/B" + i)
+                                    .header("Authorization", "Bearer " + token)
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content("{\"name\": \"Burst\", \"stockQuantity\": " + (i + 1) + "}"))
+                            .andReturn().getResponse().getStatus()))
+                    .toList();
+            for (Future<Integer> s : statuses) assertThat(s.get()).isEqualTo(200);
+        }
+        assertThat(productRepository.findBySkuAndVendor("B19", "VENDOR_BURST").orElseThrow().getStockQuantity()).isEqualTo(20);
+        long flushes = meterRegistry.get("sync.push.flush").tag("vendor", "VENDOR_BURST").timer().count();
+        assertThat(flushes).isBetween(1L, (long) requests - 1);
+        assertThat(meterRegistry.get("sync.push.batch.rows").tag("vendor", "VENDOR_BURST").summary().totalAmount())
+                .isEqualTo(requests);
+    }
+
+    @Test
+    void commitTimeoutAnswersAcceptedAndTheRowsStillCommit() throws Exception {
+        String token = pushVendor("VENDOR_SLOW_COMMIT");
+        CountDownLatch applying = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // a sync that holds the vendor's writer lock while it applies its rows
+        VendorClient blocking = new VendorClient() {
+            @Override
+            public String vendorName() { return "VENDOR_SLOW_COMMIT"; }
+
+            @Override
+            public Stream<VendorProduct> stream() {
+                return Stream.of(new VendorProduct("S0", "Synced", 1, "VENDOR_SLOW_COMMIT")).peek(row -> {
+                    applying.countDown();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+        };
+        CompletableFuture<?> sync = CompletableFuture.runAsync(() -> syncService.syncVendor(blocking));
+        assertThat(applying.await(5, TimeUnit.SECONDS)).isTrue();
+
+        mockMvc.perform(put("/ingest/VENDOR_SLOW_COMMIT/products/S1").header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"name\": \"Late\", \"stockQuantity\": 2}"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().doesNotExist("Retry-After"));
+
+        release.countDown();
+        sync.get(10, TimeUnit.SECONDS);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (productRepository.findBySkuAndVendor("S1", "VENDOR_SLOW_COMMIT").isEmpty()) {
+            assertThat(System.nanoTime()).as("pushed row not committed within 10s").isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+
+    @Test
+    void interruptedWaitAnswersUnavailableNotAccepted() throws Exception {
+        String token = pushVendor("VENDOR_INTERRUPTED");
+        CountDownLatch applying = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        VendorClient blocking = new VendorClient() {
+            @Override
+            public String vendorName() { return "VENDOR_INTERRUPTED"; }
+
+            @Override
+            public Stream<VendorProduct> stream() {
+                return Stream.of(new VendorProduct("I0", "Synced", 1, "VENDOR_INTERRUPTED")).peek(row -> {
+                    applying.countDown();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+        };
+        CompletableFuture<?> sync = CompletableFuture.runAsync(() -> syncService.syncVendor(blocking));
+        assertThat(applying.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<MockHttpServletResponse> response = new CompletableFuture<>();
+        AtomicBoolean stillInterrupted = new AtomicBoolean();
+        Thread request = new Thread(() -> {
+            try {
+                response.complete(mockMvc.perform(put("/ingest/VENDOR_INTERRUPTED/products/I1")
+                                .header("Authorization", "Bearer " + token)
+                                .contentType(MediaType.APPLICATION_JSON).content("{\"name\": \"Cut\", \"stockQuantity\": 2}"))
+                        .andReturn().getResponse());
+                stillInterrupted.set(Thread.currentThread().isInterrupted());
+            } catch (Exception e) {
+                response.completeExceptionally(e);
+            }
+        });
+        request.start();
+        // interrupted while it waits for the commit that the blocked sync holds up
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (request.getState() != Thread.State.TIMED_WAITING) {
+            assertThat(System.nanoTime()).as("request never waited for its commit").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+        request.interrupt();
+        request.join(5000);
+
+        assertThat(response.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(503);
+        assertThat(response.get().getHeader("Retry-After")).isNotNull();
+        assertThat(stillInterrupted).isTrue();
+        release.countDown();
+        sync.get(10, TimeUnit.SECONDS);
+    }
+
+    private String pushVendor(String vendor) throws Exception {
+        mockMvc.perform(put("/admin/vendors/" + vendor).with(VendorAdminControllerTest.admin()).contentType(MediaType.APPLICATION_JSON).content("{\"type\": \"PUSH\"}"))
+                .andExpect(status().isOk());
+        String body = mockMvc.perform(post("/admin/vendors/" + vendor + "/push-token").with(VendorAdminControllerTest.admin()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("token").asText();
+    }
+}
@@ -0,0 +1,30 @@
+package io.stock.sync.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class MockVendorAControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    void answers304WhenEtagMatches() throws Exception {
+        String etag = mockMvc.perform(get("/mock/vendor-a/products"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(header().exists("Last-Modified"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/mock/vendor-a/products").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+    }
+}
@@ -2,6 +2,9 @@ package io.stock.sync.controller;
 
 import io.stock.sync.model.Product;
 import io.stock.sync.repository.ProductRepository;
+import io.stock.sync.service.ProductReadCache;
+import io.stock.sync.service.SyncService;
+import io.stock.sync.service.dto.VendorProduct;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,7 +12,13 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -23,9 +32,16 @@ class ProductControllerTest {
     @Autowired
     ProductRepository productRepository;
 
+    @Autowired
+    ProductReadCache productReadCache;
+
+    @Autowired
+    SyncService syncService;
+
     @BeforeEach
     void setUp() {
         productRepository.deleteAll();
+        productReadCache.invalidateAll();  // writes below bypass the sync
         productRepository.save(new Product("ABC123", "Product A", 10, "VENDOR_B"));
     }
 
@@ -36,4 +52,67 @@ class ProductControllerTest {
                 .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
                 .andExpect(content().string(org.hamcrest.Matchers.containsString("ABC123")));
     }
+
+    @Test
+    void pagesFollowTheCursorAndApplyFilters() throws Exception {
+        productRepository.save(new Product("ABC124", "Product A2", 0, "VENDOR_B"));
+        productRepository.save(new Product("ABC125", "Product A3", 0, "VENDOR_B"));
+        productRepository.save(new Product("A_C999", "Other vendor", 0, "VENDOR_X"));
+
+        String cursor = mockMvc.perform(get("/products").param("vendor", "VENDOR_B").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].sku", contains("ABC123", "ABC124")))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andReturn().getResponse().getHeader("X-Next-Cursor");
+
+        mockMvc.perform(get("/products").param("vendor", "VENDOR_B").param("limit", "2").param("cursor", cursor))
+                .andExpect(jsonPath("$[*].sku", contains("ABC125")))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+
+        // "_" in the prefix is literal, not a LIKE wildcard
+        mockMvc.perform(get("/products").param("skuPrefix", "A_C").param("zeroStock", "true"))
+                .andExpect(jsonPath("$[*].sku", contains("A_C999")));
+
+        mockMvc.perform(get("/products").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void exportStreamsNdjson() throws Exception {
+        productRepository.save(new Product("XYZ456", "Product B", 0, "VENDOR_B"));
+
+        MvcResult started = mockMvc.perform(get("/products/export").param("vendor", "VENDOR_B"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(body.split("\n"))
+                .hasSize(2)
+                .satisfies(lines -> {
+                    assertThat(lines[0]).startsWith("{").contains("\"sku\":\"ABC123\"");
+                    assertThat(lines[1]).contains("\"sku\":\"XYZ456\"");
+                });
+    }
+
+    @Test
+    void cachedLookupsAreRefreshedBySync() throws Exception {
+        mockMvc.perform(get("/products/VENDOR_B/ABC123"))
+                .andExpect(jsonPath("$.stockQuantity").value(10));
+        mockMvc.perform(get("/products").param("vendor", "VENDOR_B"))
+                .andExpect(jsonPath("$[0].stockQuantity").value(10));
+
+        syncService.processBatch(List.of(new VendorProduct("ABC123", "Product A", 3, "VENDOR_B")));
+
+        mockMvc.perform(get("/products/VENDOR_B/ABC123"))
+                .andExpect(jsonPath("$.stockQuantity").value(3));
+        mockMvc.perform(get("/products").param("vendor", "VENDOR_B"))
+                .andExpect(jsonPath("$[0].stockQuantity").value(3));
+        mockMvc.perform(get("/products"))
+                .andExpect(jsonPath("$[0].stockQuantity").value(3));
+        mockMvc.perform(get("/products/VENDOR_B/NOPE"))
+                .andExpect(status().isNotFound());
+    }
 }
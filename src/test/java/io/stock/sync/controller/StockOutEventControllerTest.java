@@ -0,0 +1,66 @@
+package io.stock.sync.controller;
+
+import io.stock.sync.model.Product;
+import io.stock.sync.repository.ProductRepository;
+import io.stock.sync.service.SyncService;
+import io.stock.sync.service.dto.VendorProduct;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class StockOutEventControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ProductRepository productRepository;
+
+    @Autowired
+    SyncService syncService;
+
+    @Test
+    void pagesEventsAndReadsIncrementalCounts() throws Exception {
+        productRepository.save(new Product("E1", "One", 2, "VENDOR_EVT"));
+        productRepository.save(new Product("E2", "Two", 4, "VENDOR_EVT"));
+        productRepository.save(new Product("E3", "Three", 6, "VENDOR_EVT"));
+        syncService.processBatch(List.of(
+                new VendorProduct("E1", "One", 0, "VENDOR_EVT"),
+                new VendorProduct("E2", "Two", 0, "VENDOR_EVT"),
+                new VendorProduct("E3", "Three", 0, "VENDOR_EVT")));
+
+        String first = mockMvc.perform(get("/stock-out-events").param("vendor", "VENDOR_EVT").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andReturn().getResponse().getContentAsString();
+        String cursor = first.replaceAll(".*\"nextCursor\":\"([^\"]+)\".*", "$1");
+        mockMvc.perform(get("/stock-out-events").param("vendor", "VENDOR_EVT").param("limit", "2").param("cursor", cursor))
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.nextCursor", nullValue()));
+
+        mockMvc.perform(get("/stock-out-events").param("vendor", "VENDOR_EVT").param("sku", "E2"))
+                .andExpect(jsonPath("$.items[*].previousQuantity", contains(4)));
+
+        mockMvc.perform(get("/stock-out-events/counts").param("vendor", "VENDOR_EVT"))
+                .andExpect(jsonPath("$[*].count", contains(3)));
+        mockMvc.perform(get("/stock-out-events/counts").param("vendor", "VENDOR_EVT").param("granularity", "DAY"))
+                .andExpect(jsonPath("$[*].count", contains(3)));
+
+        mockMvc.perform(get("/stock-out-events").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+}
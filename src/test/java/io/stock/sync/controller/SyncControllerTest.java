@@ -0,0 +1,101 @@
+package io.stock.sync.controller;
+
+import io.stock.sync.OwnDatabaseTest;
+import io.stock.sync.service.SyncMetrics.VendorResult;
+import io.stock.sync.service.SyncService;
+import io.stock.sync.service.VendorClient;
+import io.stock.sync.service.dto.VendorProduct;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@OwnDatabaseTest(properties = {
+        "vendors.csv[0].name=VENDOR_B",
+        "vendors.csv[0].path=/nonexistent/stock.csv",
+        "vendors.csv[0].schedule.interval=5m",
+        "vendors.csv[0].schedule.adaptive=false",
+        "admin.token-sha256=" + VendorAdminControllerTest.ADMIN_TOKEN_SHA256
+})
+@AutoConfigureMockMvc
+class SyncControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    SyncService syncService;
+
+    @Test
+    void listsVendorSchedulesAndTriggersManualSyncs() throws Exception {
+        mockMvc.perform(get("/sync/vendors"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].vendor", containsInAnyOrder("VENDOR_A", "VENDOR_B")))
+                .andExpect(jsonPath("$[?(@.vendor == 'VENDOR_B')].interval").value("PT5M"));
+
+        // only the admin can force a sync
+        mockMvc.perform(post("/admin/sync/vendors/VENDOR_B")).andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/sync/vendors/VENDOR_B")).andExpect(status().is4xxClientError());
+        mockMvc.perform(post("/admin/sync/vendors/VENDOR_B").with(VendorAdminControllerTest.admin())).andExpect(status().isAccepted());
+        mockMvc.perform(post("/admin/sync/vendors/NOPE").with(VendorAdminControllerTest.admin())).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void runningVendorIsNeitherTriggeredNorSyncedTwice() throws Exception {
+        CountDownLatch fetching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<VendorResult> running = CompletableFuture.supplyAsync(() -> syncService.syncVendor(
+                client("VENDOR_A", () -> {
+                    fetching.countDown();
+                    await(release);
+                })));
+        assertThat(fetching.await(5, TimeUnit.SECONDS)).isTrue();
+
+        mockMvc.perform(post("/admin/sync/vendors/VENDOR_A").with(VendorAdminControllerTest.admin()))
+                .andExpect(status().isConflict())
+                .andExpect(status().reason("Sync of VENDOR_A is already running"));
+        mockMvc.perform(get("/sync/vendors")).andExpect(jsonPath("$[?(@.vendor == 'VENDOR_A')].running").value(true));
+        // a scheduled or inbox run meanwhile is skipped rather than queued
+        AtomicBoolean fetchedAgain = new AtomicBoolean();
+        assertThat(syncService.syncVendor(client("VENDOR_A", () -> fetchedAgain.set(true)))).isNull();
+        assertThat(fetchedAgain).isFalse();
+
+        release.countDown();
+        assertThat(running.get(10, TimeUnit.SECONDS).failed()).isFalse();
+        assertThat(syncService.isRunning("VENDOR_A")).isFalse();
+    }
+
+    private static VendorClient client(String vendor, Runnable onFetch) {
+        return new VendorClient() {
+            @Override
+            public String vendorName() { return vendor; }
+
+            @Override
+            public Stream<VendorProduct> stream() {
+                onFetch.run();
+                return Stream.empty();
+            }
+        };
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
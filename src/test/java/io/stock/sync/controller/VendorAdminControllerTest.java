@@ -0,0 +1,89 @@
+package io.stock.sync.controller;
+
+import io.stock.sync.OwnDatabaseTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@OwnDatabaseTest(properties = {
+        "admin.token-sha256=" + VendorAdminControllerTest.ADMIN_TOKEN_SHA256,
+        "admin.csv-base-dir=/data/vendors"
+})
+@AutoConfigureMockMvc
+class VendorAdminControllerTest {
+
+    /** SHA-256 of {@link #ADMIN_TOKEN}. */
+    static final String ADMIN_TOKEN_SHA256 = "17d6bfe05d1b1fb7bc499f8e3f639c7b3eda4c40f321eef8887a0c04c89a99c5";
+    static final String ADMIN_TOKEN = "test-admin-token";
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    void requiresTheAdminTokenAndKeepsCsvFilesUnderTheBaseDir() throws Exception {
+        mockMvc.perform(get("/admin/vendors")).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/admin/vendors").header("Authorization", "Bearer wrong")).andExpect(status().isUnauthorized());
+        mockMvc.perform(put("/admin/vendors/VENDOR_X").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"type\": \"CSV\", \"path\": \"/etc/passwd\"}"))
+                .andExpect(status().isUnauthorized());
+
+        mockMvc.perform(put("/admin/vendors/VENDOR_X").with(admin()).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"type\": \"CSV\", \"path\": \"/data/vendors/../../etc/passwd\"}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(put("/admin/vendors/VENDOR_X").with(admin()).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"type\": \"CSV\", \"watch\": {\"dir\": \"/data/vendors/x\", \"archiveDir\": \"/var/www\"}}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/admin/vendors/VENDOR_X").with(admin())).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void managesVendorsAtRuntime() throws Exception {
+        mockMvc.perform(put("/admin/vendors/VENDOR_C").with(admin()).contentType(MediaType.APPLICATION_JSON).content("""
+                        {"type": "CSV", "path": "/data/vendors/c.csv", "schedule": {"interval": "PT2M", "adaptive": false}}
+                        """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.active").value(true))
+                .andExpect(jsonPath("$.spec.name").value("VENDOR_C"))
+                .andExpect(jsonPath("$.spec.type").value("CSV"));
+
+        // picked up by the scheduler without a restart
+        mockMvc.perform(get("/sync/vendors"))
+                .andExpect(jsonPath("$[*].vendor", hasItem("VENDOR_C")))
+                .andExpect(jsonPath("$[?(@.vendor == 'VENDOR_C')].interval").value("PT2M"));
+        mockMvc.perform(post("/admin/sync/vendors/VENDOR_C").with(admin())).andExpect(status().isAccepted());
+
+        mockMvc.perform(post("/admin/vendors/VENDOR_C/disable").with(admin())).andExpect(status().isNoContent());
+        mockMvc.perform(get("/sync/vendors")).andExpect(jsonPath("$[*].vendor", not(hasItem("VENDOR_C"))));
+        mockMvc.perform(get("/admin/vendors/VENDOR_C").with(admin()))
+                .andExpect(jsonPath("$.spec.enabled").value(false))
+                .andExpect(jsonPath("$.active").value(false));
+
+        mockMvc.perform(put("/admin/vendors/VENDOR_D").with(admin()).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"type\": \"REST\", \"url\": \"ftp://nope\"}"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/admin/vendors").with(admin())).andExpect(jsonPath("$[*].spec.name", hasItem("VENDOR_A")));
+        mockMvc.perform(delete("/admin/vendors/VENDOR_C").with(admin())).andExpect(status().isNoContent());
+        mockMvc.perform(get("/admin/vendors/VENDOR_C").with(admin())).andExpect(status().isNotFound());
+    }
+
+    /** Sends the admin token. */
+    static RequestPostProcessor admin() {
+        return request -> {
+            request.addHeader("Authorization", "Bearer " + ADMIN_TOKEN);
+            return request;
+        };
+    }
+}
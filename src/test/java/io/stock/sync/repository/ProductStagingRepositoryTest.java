@@ -0,0 +1,25 @@
+package io.stock.sync.repository;
+
+import io.stock.sync.service.dto.VendorProduct;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductStagingRepositoryTest {
+
+    @Test
+    void copyCsvKeepsNullApartFromTheEmptyString() {
+        String csv = ProductStagingRepository.copyCsv(List.of(
+                new VendorProduct("A1", null, null, "V"),
+                new VendorProduct("A2", "", 0, "V"),
+                new VendorProduct("A3", "Say \"hi\", twice", 7, "V")));
+
+        assertThat(csv).isEqualTo("""
+                0,"V","A1",,
+                1,"V","A2","",0
+                2,"V","A3","Say ""hi"", twice",7
+                """);
+    }
+}
@@ -0,0 +1,72 @@
+package io.stock.sync.repository;
+
+import io.stock.sync.OwnDatabaseTest;
+import io.stock.sync.model.StockOutCount.Granularity;
+import io.stock.sync.model.StockOutEvent;
+import io.stock.sync.repository.StockOutCountRepository.Bucket;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@OwnDatabaseTest
+class StockOutCountRepositoryTest {
+
+    @Autowired
+    StockOutCountRepository repository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    void concurrentSyncsCreatingTheSameBucketBothCount() throws Exception {
+        OffsetDateTime at = OffsetDateTime.of(2024, 3, 1, 10, 15, 0, 0, ZoneOffset.UTC);
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        CountDownLatch inserted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // the first sync creates the buckets but has not committed yet when the second one merges
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> tx.executeWithoutResult(status -> {
+            repository.increment(List.of(event("C1", at)));
+            inserted.countDown();
+            await(release);
+        }));
+        assertThat(inserted.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Void> second = CompletableFuture.runAsync(() ->
+                tx.executeWithoutResult(status -> repository.increment(List.of(event("C2", at)))));
+        Thread.sleep(200);
+        release.countDown();
+
+        first.get(10, TimeUnit.SECONDS);
+        second.get(10, TimeUnit.SECONDS);
+        assertThat(repository.find(Granularity.HOUR, "VENDOR_RACE", at.minusHours(1), at.plusHours(1), 10))
+                .extracting(Bucket::count)
+                .containsExactly(2L);
+        assertThat(repository.find(Granularity.DAY, "VENDOR_RACE", at.minusDays(1), at.plusDays(1), 10))
+                .extracting(Bucket::count)
+                .containsExactly(2L);
+    }
+
+    private static StockOutEvent event(String sku, OffsetDateTime at) {
+        StockOutEvent event = new StockOutEvent(sku, "VENDOR_RACE", 3);
+        event.setOccurredAt(at);
+        return event;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package io.stock.sync.scheduler;
+
+import io.stock.sync.OwnDatabaseTest;
+import io.stock.sync.config.PersistentVendorRegistry;
+import io.stock.sync.config.VendorsProperties.CsvSpec;
+import io.stock.sync.config.VendorsProperties.Watch;
+import io.stock.sync.repository.ProductJdbcRepository;
+import io.stock.sync.repository.ProductRepository;
+import io.stock.sync.service.SyncMetrics.VendorResult;
+import io.stock.sync.service.SyncService;
+import io.stock.sync.service.VendorClient;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+
+@OwnDatabaseTest(properties = "vendors.watch.rescan-interval=1h")
+class CsvDirectoryWatcherTest {
+
+    @Autowired
+    PersistentVendorRegistry registry;
+
+    @Autowired
+    ProductRepository productRepository;
+
+    @Autowired
+    CsvDirectoryWatcher watcher;
+
+    @SpyBean
+    SyncService syncService;
+
+    @SpyBean
+    ProductJdbcRepository productJdbcRepository;
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void renamedFilesAreIngestedAsTheyLandAndArchived() throws Exception {
+        Path inbox = Files.createDirectories(tmp.resolve("renamed"));
+        Path pending = inbox.resolve("early.csv");
+        Files.writeString(pending, "sku,name,stockQuantity\nW0,Early,1\n");   // dropped before the vendor existed
+        watchVendor("VENDOR_DROP", inbox, null);
+        awaitTrue(() -> productRepository.findBySkuAndVendor("W0", "VENDOR_DROP").isPresent());
+
+        Path temp = inbox.resolve("stock-001.csv.tmp");
+        Files.writeString(temp, "sku,name,stockQuantity\nW1,Watched,7\nW2,Other,3\n");
+        Thread.sleep(300);
+        assertThat(productRepository.findBySkuAndVendor("W1", "VENDOR_DROP")).isEmpty();   // not complete yet
+
+        Files.move(temp, inbox.resolve("stock-001.csv"), StandardCopyOption.ATOMIC_MOVE);
+        awaitTrue(() -> Files.exists(inbox.resolve("archive/stock-001.csv")));
+        assertThat(productRepository.findBySkuAndVendor("W1", "VENDOR_DROP").orElseThrow().getStockQuantity()).isEqualTo(7);
+        assertThat(inbox.resolve("archive/early.csv")).exists();
+        assertThat(inbox.resolve("stock-001.csv")).doesNotExist();
+
+        // a malformed file is rolled back as a whole and set aside
+        Files.writeString(inbox.resolve("x.tmp"), "sku,name,stockQuantity\nW1,Watched,0\nW2,Other,oops\n");
+        Files.move(inbox.resolve("x.tmp"), inbox.resolve("stock-002.csv"), StandardCopyOption.ATOMIC_MOVE);
+        awaitTrue(() -> Files.exists(inbox.resolve("failed/stock-002.csv")));
+        assertThat(productRepository.findBySkuAndVendor("W1", "VENDOR_DROP").orElseThrow().getStockQuantity()).isEqualTo(7);
+    }
+
+    @Test
+    void vendorsRunInParallelAndFilesOfOneVendorInNameOrder() throws Exception {
+        Path slowInbox = Files.createDirectories(tmp.resolve("slow"));
+        Path fastInbox = Files.createDirectories(tmp.resolve("fast"));
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // holds VENDOR_SLOW's first file in flight until released
+        doAnswer(invocation -> {
+            VendorClient client = invocation.getArgument(0);
+            if (client.vendorName().equals("VENDOR_SLOW") && firstStarted.getCount() > 0) {
+                firstStarted.countDown();
+                assertThat(release.await(10, TimeUnit.SECONDS)).isTrue();
+            }
+            return invocation.callRealMethod();
+        }).when(syncService).syncVendor(any());
+        watchVendor("VENDOR_SLOW", slowInbox, ".done");
+        watchVendor("VENDOR_FAST", fastInbox, null);
+
+        Files.writeString(slowInbox.resolve("a.csv"), "sku,name,stockQuantity\nS1,Slow,1\n");
+        Thread.sleep(300);
+        assertThat(firstStarted.getCount()).isEqualTo(1);   // no marker yet
+        Files.createFile(slowInbox.resolve("a.csv.done"));
+        assertThat(firstStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // while a.csv is in flight, c.csv becomes ready before b.csv
+        Files.writeString(slowInbox.resolve("c.csv"), "sku,name,stockQuantity\nS1,Slow,9\n");
+        Files.createFile(slowInbox.resolve("c.csv.done"));
+        Files.writeString(slowInbox.resolve("b.csv"), "sku,name,stockQuantity\nS1,Slow,5\n");
+        Files.createFile(slowInbox.resolve("b.csv.done"));
+        watcher.rescan();   // both are queued behind a.csv now
+
+        // another vendor's file is not held up by it
+        Files.writeString(fastInbox.resolve("f.tmp"), "sku,name,stockQuantity\nF1,Fast,2\n");
+        Files.move(fastInbox.resolve("f.tmp"), fastInbox.resolve("f.csv"), StandardCopyOption.ATOMIC_MOVE);
+        awaitTrue(() -> Files.exists(fastInbox.resolve("archive/f.csv")));
+        assertThat(productRepository.findBySkuAndVendor("F1", "VENDOR_FAST").orElseThrow().getStockQuantity()).isEqualTo(2);
+        assertThat(productRepository.findBySkuAndVendor("S1", "VENDOR_SLOW")).isEmpty();
+
+        release.countDown();
+        awaitTrue(() -> Files.exists(slowInbox.resolve("archive/c.csv")));
+        // b.csv landed last but sorts first, so c.csv's quantity wins
+        assertThat(productRepository.findBySkuAndVendor("S1", "VENDOR_SLOW").orElseThrow().getStockQuantity()).isEqualTo(9);
+        assertThat(slowInbox.resolve("archive/a.csv")).exists();
+        assertThat(slowInbox.resolve("archive/b.csv")).exists();
+        assertThat(slowInbox.resolve("a.csv.done")).doesNotExist();
+        assertThat(slowInbox.resolve("c.csv.done")).doesNotExist();
+    }
+
+    @Test
+    void fileStaysInTheInboxWhenTheWriteFailsAndIsRetried() throws Exception {
+        doThrow(new CannotGetJdbcConnectionException("Connection refused")).doCallRealMethod()
+                .when(productJdbcRepository).insertAll(anyList(), any());
+        List<VendorResult> results = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            VendorResult result = (VendorResult) invocation.callRealMethod();
+            results.add(result);
+            return result;
+        }).when(syncService).syncVendor(any());
+        Path inbox = Files.createDirectories(tmp.resolve("flaky"));
+        Path file = inbox.resolve("stock.csv");
+        Files.writeString(file, "sku,name,stockQuantity\nF1,Flaky,3\n");
+
+        watchVendor("VENDOR_FLAKY", inbox, null);
+        awaitTrue(() -> !results.isEmpty());
+        assertThat(results.get(0).failed()).isTrue();
+        assertThat(results.get(0).rejected()).isFalse();
+        assertThat(file).exists();
+
+        watcher.rescan();
+        awaitTrue(() -> Files.exists(inbox.resolve("archive/stock.csv")));
+        assertThat(productRepository.findBySkuAndVendor("F1", "VENDOR_FLAKY").orElseThrow().getStockQuantity()).isEqualTo(3);
+        assertThat(inbox.resolve("failed")).doesNotExist();
+    }
+
+    private void watchVendor(String vendor, Path dir, String doneSuffix) {
+        Watch watch = new Watch();
+        watch.setDir(dir.toString());
+        watch.setDoneSuffix(doneSuffix);
+        CsvSpec spec = new CsvSpec();
+        spec.setWatch(watch);
+        registry.put(vendor, spec);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 10s").isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+}
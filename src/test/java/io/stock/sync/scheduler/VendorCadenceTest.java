@@ -0,0 +1,61 @@
+package io.stock.sync.scheduler;
+
+import io.stock.sync.service.VendorClient;
+import io.stock.sync.service.dto.VendorProduct;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class VendorCadenceTest {
+
+    private static final VendorClient CLIENT = new VendorClient() {
+        @Override
+        public String vendorName() { return "V"; }
+
+        @Override
+        public Stream<VendorProduct> stream() { return Stream.empty(); }
+    };
+
+    @Test
+    void speedsUpOnChangesAndBacksOffOtherwiseWithinBounds() {
+        VendorCadence cadence = new VendorCadence(CLIENT, Duration.ofMinutes(1),
+                Duration.ofSeconds(20), Duration.ofMinutes(2), true);
+
+        cadence.record(true, false, Instant.now());
+        assertThat(cadence.interval()).isEqualTo(Duration.ofSeconds(30));
+        cadence.record(true, false, Instant.now());
+        assertThat(cadence.interval()).isEqualTo(Duration.ofSeconds(20));   // clamped to min
+
+        cadence.record(false, false, Instant.now());
+        assertThat(cadence.interval()).isEqualTo(Duration.ofSeconds(30));
+        cadence.record(false, true, Instant.now());                // failures back off too
+        assertThat(cadence.interval()).isEqualTo(Duration.ofSeconds(45));
+        for (int i = 0; i < 5; i++) cadence.record(false, false, Instant.now());
+        assertThat(cadence.interval()).isEqualTo(Duration.ofMinutes(2));    // clamped to max
+
+        SyncScheduler.VendorStatus status = cadence.status(false, null);
+        assertThat(status.vendor()).isEqualTo("V");
+        assertThat(status.lastOutcome()).isEqualTo("unchanged");
+    }
+
+    @Test
+    void fixedIntervalWhenNotAdaptive() {
+        VendorCadence cadence = new VendorCadence(CLIENT, Duration.ofMinutes(1),
+                Duration.ofSeconds(20), Duration.ofMinutes(2), false);
+        cadence.record(true, false, Instant.now());
+        cadence.record(false, false, Instant.now());
+        assertThat(cadence.interval()).isEqualTo(Duration.ofMinutes(1));
+    }
+
+    @Test
+    void rejectsInvertedBounds() {
+        assertThatThrownBy(() -> new VendorCadence(CLIENT, Duration.ofMinutes(1),
+                Duration.ofMinutes(5), Duration.ofMinutes(2), true))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
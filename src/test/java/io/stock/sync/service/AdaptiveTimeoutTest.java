@@ -0,0 +1,30 @@
+package io.stock.sync.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveTimeoutTest {
+
+    @Test
+    void followsTheVendorsP99WithinBounds() {
+        AdaptiveTimeout timeout = new AdaptiveTimeout("VENDOR_FAST", Duration.ofMillis(200), Duration.ofSeconds(5));
+        assertThat(timeout.current()).isEqualTo(Duration.ofSeconds(5));
+
+        for (int i = 0; i < AdaptiveTimeout.MIN_SAMPLES - 1; i++) timeout.record(Duration.ofMillis(100).toNanos());
+        assertThat(timeout.current()).isEqualTo(Duration.ofSeconds(5));   // not enough samples yet
+
+        timeout.record(Duration.ofMillis(100).toNanos());
+        assertThat(timeout.current()).isEqualTo(Duration.ofMillis(300));
+
+        // very fast responses are floored at the minimum
+        for (int i = 0; i < AdaptiveTimeout.WINDOW; i++) timeout.record(Duration.ofMillis(10).toNanos());
+        assertThat(timeout.current()).isEqualTo(Duration.ofMillis(200));
+
+        // a slow tail raises it, up to the configured read timeout
+        for (int i = 0; i < 5; i++) timeout.record(Duration.ofSeconds(4).toNanos());
+        assertThat(timeout.current()).isEqualTo(Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,196 @@
+package io.stock.sync.service;
+
+import io.stock.sync.OwnDatabaseTest;
+import io.stock.sync.repository.ClusterRepository;
+import io.stock.sync.repository.ProductJdbcRepository;
+import io.stock.sync.repository.ProductRepository;
+import io.stock.sync.service.SyncMetrics.VendorResult;
+import io.stock.sync.service.dto.VendorProduct;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Several nodes, each with its own coordinator (and sync service), sharing one database. */
+@OwnDatabaseTest
+class ClusterCoordinatorTest {
+
+    @Autowired
+    ClusterRepository clusterRepository;
+
+    @Autowired
+    StockSnapshotCache snapshotCache;
+
+    @Autowired
+    ProductJdbcRepository productJdbcRepository;
+
+    @Autowired
+    ProductRepository productRepository;
+
+    @Autowired
+    StockOutRecorder stockOutRecorder;
+
+    @Autowired
+    StockHistoryService historyService;
+
+    @Autowired
+    ApplicationEventPublisher events;
+
+    @Autowired
+    SyncMetrics metrics;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    void shardsVendorsAndRebalancesWhenANodeJoins() {
+        ClusterCoordinator a = node("join-a", Duration.ofMinutes(1));
+        ClusterCoordinator b = node("join-b", Duration.ofMinutes(1));
+        List<String> vendors = IntStream.range(0, 40).mapToObj(i -> "JOIN_" + i).toList();
+        try {
+            a.heartbeat();
+            b.heartbeat();
+            a.heartbeat();   // sees b now
+            for (String v : vendors) {
+                assertThat(a.isAssigned(v) ^ b.isAssigned(v)).as(v).isTrue();
+                assertThat((a.isAssigned(v) ? a : b).acquire(v)).isTrue();
+                assertThat((a.isAssigned(v) ? b : a).acquire(v)).isFalse();
+            }
+            assertThat(vendors).anyMatch(a::isAssigned).anyMatch(b::isAssigned);
+            Map<String, Boolean> ownedByA = vendors.stream()
+                    .collect(Collectors.toMap(v -> v, a::isAssigned));
+            assertThat(List.of(a, b)).filteredOn(ClusterCoordinator::isLeader).hasSize(1);
+
+            ClusterCoordinator c = node("join-c", Duration.ofMinutes(1));
+            try {
+                c.heartbeat();
+                a.heartbeat();
+                b.heartbeat();
+                List<String> moved = vendors.stream().filter(c::isAssigned).toList();
+                assertThat(moved).isNotEmpty();
+                // rendezvous hashing: only vendors that moved to c change owner
+                vendors.stream().filter(v -> !moved.contains(v))
+                        .forEach(v -> assertThat(a.isAssigned(v)).as(v).isEqualTo(ownedByA.get(v)));
+
+                // the old owners still hold the leases until they hand them over
+                moved.forEach(v -> assertThat(c.acquire(v)).as(v).isFalse());
+                List<String> released = new ArrayList<>(a.rebalance(v -> false));
+                released.addAll(b.rebalance(v -> false));
+                assertThat(released).containsExactlyInAnyOrderElementsOf(moved);
+                moved.forEach(v -> assertThat(c.acquire(v)).as(v).isTrue());
+                assertThat(c.owner(moved.get(0))).isEqualTo("join-c");
+            } finally {
+                c.leave();
+            }
+        } finally {
+            a.leave();
+            b.leave();
+        }
+    }
+
+    @Test
+    void survivorTakesOverDeadNodesVendorsAndTheStaleNodeCannotCommit() throws Exception {
+        ClusterCoordinator a = node("fail-a", Duration.ofMillis(500));
+        ClusterCoordinator b = node("fail-b", Duration.ofMillis(500));
+        try {
+            a.heartbeat();
+            b.heartbeat();
+            a.heartbeat();
+            String vendor = IntStream.range(0, 100).mapToObj(i -> "FAIL_" + i)
+                    .filter(a::isAssigned).findFirst().orElseThrow();
+            assertThat(a.acquire(vendor)).isTrue();
+
+            // a stops heartbeating (e.g. a long GC pause); its node entry and lease run out
+            Thread.sleep(800);
+            b.heartbeat();
+            assertThat(b.liveNodes()).containsExactly("fail-b");
+            assertThat(b.acquire(vendor)).isTrue();
+
+            // a still believes it owns the vendor, but its sync rolls back at commit
+            VendorResult stale = syncService(a, vendor).syncVendor(stub(vendor, "P1"));
+            assertThat(stale.failed()).isTrue();
+            assertThat(productRepository.findBySkuAndVendor("P1", vendor)).isEmpty();
+
+            VendorResult fresh = syncService(b, vendor).syncVendor(stub(vendor, "P1"));
+            assertThat(fresh.failed()).isFalse();
+            assertThat(productRepository.findBySkuAndVendor("P1", vendor)).isPresent();
+        } finally {
+            a.leave();
+            b.leave();
+        }
+    }
+
+    @Test
+    void heartbeatForgetsLeasesTakenOverElsewhereAndDropsTheirSnapshots() {
+        String vendor = "LOST_1";
+        AtomicInteger forgotten = new AtomicInteger();
+        VendorClient client = new VendorClient() {
+            @Override
+            public String vendorName() { return vendor; }
+
+            @Override
+            public Stream<VendorProduct> stream() { return Stream.empty(); }
+
+            @Override
+            public void forgetDelivered() { forgotten.incrementAndGet(); }
+        };
+        ClusterCoordinator a = new ClusterCoordinator(clusterRepository, snapshotCache, () -> List.of(client), true,
+                "lost-a", Duration.ofMinutes(1), Duration.ofMinutes(1));
+        try {
+            a.heartbeat();
+            assertThat(a.acquire(vendor)).isTrue();
+            assertThat(forgotten).hasValue(1);
+            StockSnapshotCache.VendorSnapshot before = snapshotCache.forVendor(vendor);
+
+            // another node took the lease over while a was not looking (expiry, manual release)
+            clusterRepository.release("vendor:" + vendor, "lost-a");
+            OffsetDateTime now = clusterRepository.now();
+            assertThat(clusterRepository.tryAcquire("vendor:" + vendor, "lost-b", now, now.plusMinutes(1))).isTrue();
+
+            a.heartbeat();
+            assertThat(snapshotCache.forVendor(vendor)).isNotSameAs(before);
+
+            // regaining it is a takeover again: the snapshot is reloaded and the client forgets once more
+            clusterRepository.release("vendor:" + vendor, "lost-b");
+            StockSnapshotCache.VendorSnapshot reloaded = snapshotCache.forVendor(vendor);
+            assertThat(a.acquire(vendor)).isTrue();
+            assertThat(snapshotCache.forVendor(vendor)).isNotSameAs(reloaded);
+            assertThat(forgotten).hasValue(2);
+        } finally {
+            a.leave();
+        }
+    }
+
+    private ClusterCoordinator node(String id, Duration timeout) {
+        return new ClusterCoordinator(clusterRepository, snapshotCache, List::of, true, id, timeout, timeout);
+    }
+
+    private SyncService syncService(ClusterCoordinator cluster, String vendor) {
+        return new SyncService(() -> List.of(stub(vendor, "P1")), productJdbcRepository, null, stockOutRecorder,
+                snapshotCache, historyService, events, metrics, cluster, transactionManager, 1000, 1, false);
+    }
+
+    private static VendorClient stub(String vendor, String sku) {
+        return new VendorClient() {
+            @Override
+            public String vendorName() { return vendor; }
+
+            @Override
+            public Stream<VendorProduct> stream() {
+                return Stream.of(new VendorProduct(sku, "Item", 5, vendor));
+            }
+        };
+    }
+}
@@ -7,9 +7,13 @@ import org.junit.jupiter.api.io.TempDir;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class CsvVendorClientTest {
 
@@ -72,4 +76,153 @@ class CsvVendorClientTest {
         assertThat(products.get(0).sku()).isEqualTo("GOOD1");
         assertThat(products.get(0).stockQuantity()).isEqualTo(5);
     }
+
+    @Test
+    void incremental_skipsUnchangedFileAndEmitsOnlyChangedRows() throws IOException {
+        Path csv = tmp.resolve("stock.csv");
+        Files.writeString(csv, """
+            sku,name,stockQuantity
+            ABC123,Product A,10
+            XYZ456,Product B,0
+            """);
+        CsvVendorClient client = new CsvVendorClient("VENDOR_B", csv.toString(), CsvDigestIndex.inMemory());
+
+        assertThat(client.fetch()).hasSize(2);
+        client.onCommitted();
+
+        // same file again: skipped entirely
+        assertThat(client.fetch()).isEmpty();
+        client.onCommitted();
+
+        Files.writeString(csv, """
+            sku,name,stockQuantity
+            ABC123,Product A,10
+            XYZ456,Product B,4
+            NEW789,Product N,1
+            """);
+        assertThat(client.fetch()).extracting(VendorProduct::sku).containsExactly("XYZ456", "NEW789");
+    }
+
+    @Test
+    void incremental_uncommittedRowsAreEmittedAgain() throws IOException {
+        Path csv = tmp.resolve("stock.csv");
+        Files.writeString(csv, """
+            sku,name,stockQuantity
+            ABC123,Product A,10
+            """);
+        CsvVendorClient client = new CsvVendorClient("VENDOR_B", csv.toString(), CsvDigestIndex.inMemory());
+
+        assertThat(client.fetch()).hasSize(1);
+        // no onCommitted(): e.g. the vendor transaction rolled back
+        assertThat(client.fetch()).hasSize(1);
+    }
+
+    @Test
+    void incremental_persistedIndexSurvivesNewClient() throws IOException {
+        Path csv = tmp.resolve("stock.csv");
+        Path idx = tmp.resolve("index/VENDOR_B.idx");
+        Files.writeString(csv, """
+            sku,name,stockQuantity
+            ABC123,Product A,10
+            """);
+        CsvVendorClient first = new CsvVendorClient("VENDOR_B", csv.toString(), CsvDigestIndex.persistent(idx));
+        assertThat(first.fetch()).hasSize(1);
+        first.onCommitted();
+
+        CsvVendorClient restarted = new CsvVendorClient("VENDOR_B", csv.toString(), CsvDigestIndex.persistent(idx));
+        assertThat(restarted.fetch()).isEmpty();
+    }
+
+    @Test
+    void incremental_persistedIndexIsDroppedWhenTheDatabaseNoLongerMatches() throws IOException {
+        Path csv = tmp.resolve("stock.csv");
+        Path idx = tmp.resolve("index/VENDOR_B.idx");
+        Files.writeString(csv, """
+            sku,name,stockQuantity
+            ABC123,Product A,10
+            XYZ456,Product B,0
+            """);
+        CsvVendorClient first = new CsvVendorClient("VENDOR_B", csv.toString(), CsvDigestIndex.persistent(idx));
+        List<VendorProduct> delivered = first.fetch();
+        first.onCommitted();
+        Map<String, Long> stored = delivered.stream()
+                .collect(Collectors.toMap(VendorProduct::sku, CsvDigestIndex::digest));
+
+        // database still holds what was committed: the index is kept and the file skipped
+        CsvDigestIndex matching = CsvDigestIndex.persistent(idx);
+        assertThat(matching.verify(() -> stored)).isTrue();
+        assertThat(new CsvVendorClient("VENDOR_B", csv.toString(), matching).fetch()).isEmpty();
+
+        // e.g. the in-memory database started empty: the whole file is applied again
+        CsvDigestIndex reset = CsvDigestIndex.persistent(idx);
+        assertThat(reset.verify(Map::of)).isFalse();
+        assertThat(new CsvVendorClient("VENDOR_B", csv.toString(), reset).fetch()).hasSize(2);
+        assertThat(CsvDigestIndex.persistent(idx).fingerprint()).isNull();
+    }
+
+    @Test
+    void incremental_sameSizeAndTimeIsConfirmedWithTheCrc() throws IOException {
+        Path csv = tmp.resolve("stock.csv");
+        Files.writeString(csv, """
+            sku,name,stockQuantity
+            ABC123,Product A,10
+            """);
+        FileTime modified = Files.getLastModifiedTime(csv);
+        CsvDigestIndex index = CsvDigestIndex.inMemory();
+        CsvVendorClient client = new CsvVendorClient("VENDOR_B", csv.toString(), index);
+        assertThat(client.fetch()).hasSize(1);
+        client.onCommitted();
+
+        // same size, mtime put back: only the CRC tells the files apart
+        Files.writeString(csv, """
+            sku,name,stockQuantity
+            ABC123,Product A,20
+            """);
+        Files.setLastModifiedTime(csv, modified);
+
+        CsvVendorClient trusting = new CsvVendorClient("VENDOR_B", csv.toString(), index, CsvVendorClient.ParserMode.COMMONS, true);
+        assertThat(trusting.fetch()).isEmpty();
+        assertThat(client.fetch()).extracting(VendorProduct::stockQuantity).containsExactly(20);
+    }
+
+    @Test
+    void incremental_forgetDeliveredEmitsTheWholeFileAgain() throws IOException {
+        Path csv = tmp.resolve("stock.csv");
+        Path idx = tmp.resolve("index/VENDOR_B.idx");
+        Files.writeString(csv, """
+            sku,name,stockQuantity
+            ABC123,Product A,10
+            XYZ456,Product B,0
+            """);
+        CsvVendorClient client = new CsvVendorClient("VENDOR_B", csv.toString(), CsvDigestIndex.persistent(idx));
+        assertThat(client.fetch()).hasSize(2);
+        client.onCommitted();
+
+        // e.g. a push overwrote ABC123 in the meantime
+        client.forgetDelivered();
+        assertThat(client.fetch()).hasSize(2);
+        assertThat(new CsvVendorClient("VENDOR_B", csv.toString(), CsvDigestIndex.persistent(idx)).fetch()).hasSize(2);
+    }
+
+    @Test
+    void ofFile_malformedRowFailsTheStreamInsteadOfEndingIt() throws IOException {
+        Path csv = tmp.resolve("drop.csv");
+        Files.writeString(csv, """
+            sku,name,stockQuantity
+            GOOD1,Good Product,5
+            BAD99,Bad Product,notanint
+            """);
+
+        assertThatThrownBy(() -> CsvVendorClient.ofFile("VENDOR_C", csv, CsvVendorClient.ParserMode.COMMONS).fetch())
+                .isInstanceOf(VendorDataException.class);
+        assertThatThrownBy(() -> CsvVendorClient.ofFile("VENDOR_C", tmp.resolve("gone.csv"), CsvVendorClient.ParserMode.COMMONS).fetch())
+                .isInstanceOf(IllegalStateException.class);
+
+        Files.writeString(csv, """
+            sku,name,stockQuantity
+            GOOD1,Good Product,5
+            """);
+        assertThat(CsvVendorClient.ofFile("VENDOR_C", csv, CsvVendorClient.ParserMode.MAPPED).fetch())
+                .extracting(VendorProduct::sku).containsExactly("GOOD1");
+    }
 }
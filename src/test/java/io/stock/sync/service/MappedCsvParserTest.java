@@ -0,0 +1,98 @@
+package io.stock.sync.service;
+
+import io.stock.sync.service.dto.VendorProduct;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MappedCsvParserTest {
+
+    @TempDir
+    Path tmp;
+
+    // tiny chunks so even small files are split across many parallel tasks
+    private final MappedCsvParser parser = new MappedCsvParser(64, 4);
+
+    @Test
+    void matchesCommonsCsvOnLargeFile() throws IOException {
+        StringBuilder sb = new StringBuilder("sku,name,stockQuantity\r\n");
+        for (int i = 0; i < 5_000; i++) {
+            sb.append("SKU").append(i).append(", Product ").append(i).append(" ,").append(i % 17).append("\r\n");
+            if (i % 1000 == 0) sb.append("\r\n"); // blank lines are ignored
+        }
+        Path csv = tmp.resolve("big.csv");
+        Files.writeString(csv, sb);
+
+        List<VendorProduct> commons = new CsvVendorClient("V", csv.toString()).fetch();
+        AtomicBoolean complete = new AtomicBoolean();
+        List<VendorProduct> mapped = parse(csv, complete);
+
+        assertThat(mapped).hasSize(5_000).isEqualTo(commons);
+        assertThat(complete).isTrue();
+    }
+
+    @Test
+    void handlesQuotedFieldsLikeCommonsCsv() throws IOException {
+        Path csv = tmp.resolve("quoted.csv");
+        Files.writeString(csv, """
+            sku,name,stockQuantity
+            "Q1","Widget, large",3
+            Q2,"The ""best"" one" ,-4
+            Q3,plain,"7"
+            Q4,extra,+8,ignored
+            """);
+
+        List<VendorProduct> commons = new CsvVendorClient("V", csv.toString()).fetch();
+        List<VendorProduct> mapped = parse(csv, new AtomicBoolean());
+
+        assertThat(mapped).hasSize(4).isEqualTo(commons);
+        assertThat(mapped.get(1).name()).isEqualTo("The \"best\" one");
+    }
+
+    @Test
+    void largeQuantitiesAndLongFieldsMatchCommonsCsv() throws IOException {
+        String longName = "N".repeat(700);
+        Path csv = tmp.resolve("wide.csv");
+        Files.writeString(csv, "sku,name,stockQuantity\n"
+                + "L1," + longName + ",9999\n"
+                + "L2,short,10000\n"
+                + "L3,\"" + longName + "\",2147483647\n"
+                + "L4,neg,-2147483648\n");
+
+        List<VendorProduct> mapped = parse(csv, new AtomicBoolean());
+
+        assertThat(mapped).isEqualTo(new CsvVendorClient("V", csv.toString()).fetch());
+        assertThat(mapped).extracting(VendorProduct::stockQuantity).containsExactly(9999, 10000, Integer.MAX_VALUE, Integer.MIN_VALUE);
+        assertThat(mapped.get(2).name()).isEqualTo(longName);
+    }
+
+    @Test
+    void malformedRow_stopsWithRowsParsedSoFar() throws IOException {
+        StringBuilder sb = new StringBuilder("sku,name,stockQuantity\n");
+        for (int i = 0; i < 100; i++) sb.append("OK").append(i).append(",n,").append(i).append('\n');
+        sb.append("BAD,n,notanint\n");
+        for (int i = 0; i < 100; i++) sb.append("LATE").append(i).append(",n,1\n");
+        Path csv = tmp.resolve("bad.csv");
+        Files.writeString(csv, sb);
+
+        AtomicBoolean complete = new AtomicBoolean();
+        List<VendorProduct> mapped = parse(csv, complete);
+
+        assertThat(mapped).hasSize(100).isEqualTo(new CsvVendorClient("V", csv.toString()).fetch());
+        assertThat(complete).isFalse();
+    }
+
+    private List<VendorProduct> parse(Path csv, AtomicBoolean complete) throws IOException {
+        try (Stream<VendorProduct> rows = parser.parse(csv, "V", () -> complete.set(true))) {
+            return rows.toList();
+        }
+    }
+}
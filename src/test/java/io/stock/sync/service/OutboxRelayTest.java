@@ -0,0 +1,86 @@
+package io.stock.sync.service;
+
+import io.stock.sync.OwnDatabaseTest;
+import io.stock.sync.model.OutboxMessage;
+import io.stock.sync.model.Product;
+import io.stock.sync.repository.OutboxMessageRepository;
+import io.stock.sync.repository.ProductRepository;
+import io.stock.sync.service.dto.VendorProduct;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// own database, so relays of other cached test contexts cannot drain this outbox
+@OwnDatabaseTest(properties = {
+        "outbox.enabled=false",
+        "outbox.initial-backoff=1h"
+})
+class OutboxRelayTest {
+
+    @Autowired
+    SyncService syncService;
+
+    @Autowired
+    ProductRepository productRepository;
+
+    @Autowired
+    OutboxMessageRepository outboxRepository;
+
+    @Autowired
+    OutboxRelay relay;
+
+    @Autowired
+    RecordingSubscriber subscriber;
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        RecordingSubscriber recordingSubscriber() {
+            return new RecordingSubscriber();
+        }
+    }
+
+    /** Local stand-in for a real sink. */
+    static class RecordingSubscriber implements OutboxSubscriber {
+        final List<StockOutNotification> received = new CopyOnWriteArrayList<>();
+        volatile boolean failing;
+
+        @Override
+        public String name() { return "recording"; }
+
+        @Override
+        public void deliver(List<StockOutNotification> notifications) {
+            if (failing) throw new IllegalStateException("sink down");
+            received.addAll(notifications);
+        }
+    }
+
+    @Test
+    void stockOutsAreRelayedAfterCommitAndRetriedWithBackoff() {
+        productRepository.save(new Product("OB1", "Outboxed", 5, "VENDOR_OB"));
+        productRepository.save(new Product("OB2", "Outboxed too", 2, "VENDOR_OB"));
+
+        subscriber.failing = true;
+        syncService.processBatch(List.of(new VendorProduct("OB1", "Outboxed", 0, "VENDOR_OB")));
+        assertThat(relay.relayPending()).isZero();
+        OutboxMessage failed = outboxRepository.findAll().get(0);
+        assertThat(failed.getAttempts()).isEqualTo(1);
+        assertThat(failed.getLastError()).contains("sink down");
+
+        // the failed message is backing off; a new one is still delivered
+        subscriber.failing = false;
+        syncService.processBatch(List.of(new VendorProduct("OB2", "Outboxed too", 0, "VENDOR_OB")));
+        assertThat(relay.relayPending()).isEqualTo(1);
+        assertThat(subscriber.received)
+                .extracting(StockOutNotification::sku, StockOutNotification::previousQuantity)
+                .containsExactly(tuple("OB2", 2));
+        assertThat(outboxRepository.findAll()).extracting(OutboxMessage::getSku).containsExactly("OB1");
+    }
+}
@@ -0,0 +1,131 @@
+package io.stock.sync.service;
+
+import io.stock.sync.service.dto.VendorProduct;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PagedRestVendorClientTest {
+
+    private MockWebServer server;
+    private RestTemplate restTemplate;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        restTemplate = new RestTemplateBuilder()
+                .setConnectTimeout(Duration.ofSeconds(2))
+                .setReadTimeout(Duration.ofSeconds(2))
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    void pageStrategy_fetchesConcurrentlyUntilShortPage() {
+        // 7 items, page size 3: pages 0,1 full, page 2 short; page 3+ empty
+        dispatch(req -> {
+            int page = Integer.parseInt(req.getRequestUrl().queryParameter("page"));
+            assertThat(req.getRequestUrl().queryParameter("size")).isEqualTo("3");
+            return json(items(page * 3, Math.min(7, page * 3 + 3)));
+        });
+
+        List<VendorProduct> result = client(Pagination.Strategy.PAGE, 3, 4).fetch();
+
+        assertThat(result).extracting(VendorProduct::sku)
+                .containsExactly("S0", "S1", "S2", "S3", "S4", "S5", "S6");
+    }
+
+    @Test
+    void cursorStrategy_followsTokensFromObjectBody() {
+        dispatch(req -> {
+            String cursor = req.getRequestUrl().queryParameter("cursor");
+            if (cursor == null) return json("{\"items\":" + items(0, 2) + ",\"nextCursor\":\"c2\"}");
+            if (cursor.equals("c2")) return json("{\"meta\":{\"x\":1},\"items\":" + items(2, 3) + ",\"nextCursor\":null}");
+            return new MockResponse().setResponseCode(404);
+        });
+
+        List<VendorProduct> result = client(Pagination.Strategy.CURSOR, 2, 1).fetch();
+
+        assertThat(result).extracting(VendorProduct::sku).containsExactly("S0", "S1", "S2");
+    }
+
+    @Test
+    void nextLinkStrategy_followsLinkHeader() {
+        dispatch(req -> {
+            if (req.getPath().equals("/api/products")) {
+                return json(items(0, 2)).setHeader("Link", "</api/products?p=2>; rel=\"next\"");
+            }
+            return json(items(2, 4));
+        });
+
+        List<VendorProduct> result = client(Pagination.Strategy.NEXT_LINK, 2, 1).fetch();
+
+        assertThat(result).extracting(VendorProduct::sku).containsExactly("S0", "S1", "S2", "S3");
+        assertThat(result).extracting(VendorProduct::vendor).containsOnly("VENDOR_P");
+    }
+
+    @Test
+    void cursorStrategy_failsWhenTheChainRepeatsACursor() {
+        dispatch(req -> {
+            String cursor = req.getRequestUrl().queryParameter("cursor");
+            String next = cursor == null ? "c2" : cursor.equals("c2") ? "c3" : "c2";
+            return json("{\"items\":" + items(0, 2) + ",\"nextCursor\":\"" + next + "\"}");
+        });
+
+        PagedRestVendorClient client = client(Pagination.Strategy.CURSOR, 2, 1);
+
+        assertThatThrownBy(client::fetch)
+                .isInstanceOf(VendorDataException.class)
+                .hasMessageContaining("cursor=c2");
+        assertThat(server.getRequestCount()).isEqualTo(3);
+    }
+
+    private PagedRestVendorClient client(Pagination.Strategy strategy, int pageSize, int concurrency) {
+        Pagination pagination = new Pagination();
+        pagination.setStrategy(strategy);
+        pagination.setPageSize(pageSize);
+        pagination.setConcurrency(concurrency);
+        return new PagedRestVendorClient("VENDOR_P", server.url("/api/products").toString(), restTemplate, pagination);
+    }
+
+    private void dispatch(Function<RecordedRequest, MockResponse> handler) {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return handler.apply(request);
+            }
+        });
+    }
+
+    private static MockResponse json(String body) {
+        return new MockResponse().setResponseCode(200).setHeader("Content-Type", "application/json").setBody(body);
+    }
+
+    private static String items(int from, int to) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = from; i < to; i++) {
+            if (i > from) sb.append(',');
+            sb.append("{\"sku\":\"S").append(i).append("\",\"name\":\"P").append(i).append("\",\"stockQuantity\":").append(i).append('}');
+        }
+        return sb.append(']').toString();
+    }
+}
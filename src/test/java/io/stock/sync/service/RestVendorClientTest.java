@@ -3,15 +3,20 @@ package io.stock.sync.service;
 import io.stock.sync.service.dto.VendorProduct;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -102,4 +107,78 @@ class RestVendorClientTest {
 
         assertThat(result).isEmpty();
     }
+
+    @Test
+    void fetch_conditionalGzip_skipsWhenNotModified() throws Exception {
+        byte[] json = """
+            [ { "sku": "ABC123", "name": "Product A", "stockQuantity": 8 } ]
+            """.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream gz = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gz)) {
+            out.write(json);
+        }
+        server.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setHeader("Content-Type", "application/json")
+                .setHeader("Content-Encoding", "gzip")
+                .setHeader("ETag", "\"v1\"")
+                .setBody(new Buffer().write(gz.toByteArray())));
+        server.enqueue(new MockResponse().setResponseCode(304));
+
+        String url = server.url("/api/products").toString();
+        RestVendorClient client = new RestVendorClient("VENDOR_A", url, restTemplate);
+
+        assertThat(client.fetch()).extracting(VendorProduct::sku).containsExactly("ABC123");
+        client.onCommitted();
+        assertThat(client.fetch()).isEmpty();
+
+        RecordedRequest first = server.takeRequest();
+        assertThat(first.getHeader("Accept-Encoding")).contains("gzip");
+        assertThat(first.getHeader("If-None-Match")).isNull();
+        assertThat(server.takeRequest().getHeader("If-None-Match")).isEqualTo("\"v1\"");
+    }
+
+    @Test
+    void fetch_validatorsNotSentUntilCommitted() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            server.enqueue(new MockResponse()
+                    .setResponseCode(200)
+                    .setHeader("Content-Type", "application/json")
+                    .setHeader("ETag", "\"v1\"")
+                    .setBody("[]"));
+        }
+        String url = server.url("/api/products").toString();
+        RestVendorClient client = new RestVendorClient("VENDOR_A", url, restTemplate);
+
+        client.fetch();
+        client.fetch(); // previous sync never committed, so no validators
+
+        server.takeRequest();
+        assertThat(server.takeRequest().getHeader("If-None-Match")).isNull();
+    }
+
+    @Test
+    void fetch_truncatedPayload_keepsRowsReadSoFarAndRefetchesNextTime() throws Exception {
+        server.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setHeader("Content-Type", "application/json")
+                .setHeader("ETag", "\"v1\"")
+                .setBody("""
+                    [ { "sku": "ABC123", "name": "Product A", "stockQuantity": 8 },
+                      null,
+                      { "sku": "LMN789", "name": "Product C", "stockQuantity": 0 },
+                      { "sku": "TRUNC" """));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("[]"));
+
+        String url = server.url("/api/products").toString();
+        RestVendorClient client = new RestVendorClient("VENDOR_A", url, restTemplate);
+
+        assertThat(client.fetch()).extracting(VendorProduct::sku).containsExactly("ABC123", "LMN789");
+        client.onCommitted();
+        client.fetch();
+
+        server.takeRequest();
+        // incomplete payload: its ETag must not be used for the next request
+        assertThat(server.takeRequest().getHeader("If-None-Match")).isNull();
+    }
 }
@@ -0,0 +1,77 @@
+package io.stock.sync.service;
+
+import io.stock.sync.OwnDatabaseTest;
+import io.stock.sync.service.dto.VendorProduct;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// own database: the stock-out this test commits must not leak into tests that count all events
+@OwnDatabaseTest(properties = {
+        "history.compact-after=0s",
+        "history.compaction-enabled=false"
+})
+class StockHistoryServiceTest {
+
+    @Autowired
+    SyncService syncService;
+
+    @Autowired
+    StockHistoryService historyService;
+
+    @Test
+    void recordsEveryChangeAndKeepsThemAcrossCompaction() {
+        sync(5);
+        sync(5);   // no change, no history
+        sync(0);
+        sync(7);
+
+        assertThat(history())
+                .extracting(QuantityChange::oldQuantity, QuantityChange::newQuantity, QuantityChange::isRestock)
+                .containsExactly(tuple(null, 5, false), tuple(5, 0, false), tuple(0, 7, true));
+
+        List<QuantityChange> beforeCompaction = history();
+        assertThat(historyService.compact()).isGreaterThanOrEqualTo(3);
+        assertThat(history()).isEqualTo(beforeCompaction);
+
+        // a later change lands in the same day's block on the next compaction
+        sync(2);
+        historyService.compact();
+        assertThat(history()).extracting(QuantityChange::newQuantity).containsExactly(5, 0, 7, 2);
+    }
+
+    @Test
+    void codecRoundTripsNullsAndNegativeDeltas() {
+        Instant day = Instant.parse("2024-03-01T00:00:00Z");
+        List<QuantityChange> changes = List.of(
+                new QuantityChange(at("2024-03-01T00:00:00.001Z"), null, 1_000_000),
+                new QuantityChange(at("2024-03-01T08:30:00Z"), 1_000_000, 0),
+                new QuantityChange(at("2024-03-01T08:30:00Z"), 3, -2),   // gap in the chain
+                new QuantityChange(at("2024-03-01T23:59:59.999Z"), -2, Integer.MAX_VALUE));
+
+        byte[] payload = StockHistoryCodec.encode(changes, day);
+
+        assertThat(StockHistoryCodec.decode(payload, day)).isEqualTo(changes);
+        assertThat(payload.length).isLessThan(40);
+    }
+
+    private void sync(int qty) {
+        syncService.processBatch(List.of(new VendorProduct("H1", "Tracked", qty, "VENDOR_HIST")));
+    }
+
+    private List<QuantityChange> history() {
+        OffsetDateTime now = OffsetDateTime.now();
+        return historyService.history("VENDOR_HIST", "H1", now.minusDays(1), now.plusDays(1));
+    }
+
+    private static OffsetDateTime at(String iso) {
+        return OffsetDateTime.parse(iso).withOffsetSameInstant(ZoneOffset.UTC);
+    }
+}
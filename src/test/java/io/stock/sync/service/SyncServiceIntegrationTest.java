@@ -2,20 +2,33 @@ package io.stock.sync.service;
 
 import io.stock.sync.model.Product;
 import io.stock.sync.model.StockOutEvent;
+import io.stock.sync.repository.ProductJdbcRepository;
 import io.stock.sync.repository.ProductRepository;
 import io.stock.sync.repository.StockOutEventRepository;
 import io.stock.sync.service.SyncService;
 import io.stock.sync.service.dto.VendorProduct;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
-@SpringBootTest
+@SpringBootTest(properties = "sync.chunk-size=2")
 @Transactional
 class SyncServiceIntegrationTest {
 
@@ -28,6 +41,15 @@ class SyncServiceIntegrationTest {
     @Autowired
     StockOutEventRepository eventRepository;
 
+    @Autowired
+    StockSnapshotCache snapshotCache;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @SpyBean
+    ProductJdbcRepository productJdbcRepository;
+
     @Test
     void createsStockOutEventOnTransitionToZero() {
         // seed with positive stock
@@ -49,4 +71,130 @@ class SyncServiceIntegrationTest {
         Product updated = productRepository.findBySkuAndVendor("ZERO123", "VENDOR_A").orElseThrow();
         assertThat(updated.getStockQuantity()).isEqualTo(0);
     }
+
+    @Test
+    void bulkUpsertAcrossChunksMatchesRowByRowSemantics() {
+        productRepository.save(new Product("KEEP1", "Kept", 4, "VENDOR_C"));
+        productRepository.save(new Product("DROP1", "Dropped", 7, "VENDOR_C"));
+
+        // chunk size is 2: NEW1 is inserted then drops to zero inside the same chunk,
+        // DROP1 goes to zero in a later chunk, KEEP1 is updated twice
+        List<VendorProduct> batch = List.of(
+                new VendorProduct("NEW1", "New", 3, "VENDOR_C"),
+                new VendorProduct("NEW1", "New", 0, "VENDOR_C"),
+                new VendorProduct("KEEP1", "Kept v2", 6, "VENDOR_C"),
+                new VendorProduct("DROP1", "Dropped", 0, "VENDOR_C"),
+                new VendorProduct("KEEP1", "Kept v3", 2, "VENDOR_C"),
+                new VendorProduct("ZERO1", "Starts empty", 0, "VENDOR_C")
+        );
+        syncService.processBatch(batch);
+
+        assertThat(eventRepository.findAll())
+                .extracting(StockOutEvent::getSku, StockOutEvent::getPreviousQuantity)
+                .containsExactlyInAnyOrder(
+                        tuple("NEW1", 3),
+                        tuple("DROP1", 7));
+
+        assertThat(productRepository.findBySkuAndVendor("NEW1", "VENDOR_C").orElseThrow().getStockQuantity()).isZero();
+        Product kept = productRepository.findBySkuAndVendor("KEEP1", "VENDOR_C").orElseThrow();
+        assertThat(kept.getName()).isEqualTo("Kept v3");
+        assertThat(kept.getStockQuantity()).isEqualTo(2);
+        assertThat(productRepository.findBySkuAndVendor("ZERO1", "VENDOR_C")).isPresent();
+    }
+
+    @Test
+    void rowsBeyondTheChunkSizeAreWrittenFlushedAndClearedChunkByChunk() {
+        Product managed = productRepository.save(new Product("CH0", "Chunked", 1, "VENDOR_G"));
+        List<VendorProduct> batch = IntStream.range(0, 5)
+                .mapToObj(i -> new VendorProduct("CH" + i, "Chunked", 2, "VENDOR_G"))
+                .toList();
+
+        syncService.processBatch(batch);
+
+        // chunk size 2: five rows are three chunks, each written and then flushed and cleared
+        InOrder inOrder = inOrder(productJdbcRepository);
+        for (int chunk = 0; chunk < 3; chunk++) {
+            inOrder.verify(productJdbcRepository).insertAll(argThat(rows -> rows.size() <= 2), any());
+            inOrder.verify(productJdbcRepository).updateAll(argThat(rows -> rows.size() <= 2), any());
+            inOrder.verify(productJdbcRepository).flushAndClear();
+        }
+        verify(productJdbcRepository, times(3)).flushAndClear();
+        assertThat(entityManager.contains(managed)).isFalse();
+        assertThat(productRepository.findBySkuAndVendor("CH0", "VENDOR_G").orElseThrow().getStockQuantity()).isEqualTo(2);
+        assertThat(productRepository.findBySkuAndVendor("CH4", "VENDOR_G")).isPresent();
+    }
+
+    @Test
+    void unchangedRowsAreNotWritten() throws InterruptedException {
+        productRepository.save(new Product("SAME1", "Same", 5, "VENDOR_D"));
+        productRepository.save(new Product("SAME2", "Other", 1, "VENDOR_D"));
+        var seeded = productRepository.findBySkuAndVendor("SAME1", "VENDOR_D").orElseThrow().getUpdatedAt();
+        List<VendorProduct> batch = List.of(
+                new VendorProduct("SAME1", "Same", 7, "VENDOR_D"),
+                new VendorProduct("SAME2", "Other", 1, "VENDOR_D"));
+
+        // the first run writes SAME1 only
+        SyncStats first = syncService.ingestPushed("VENDOR_D", batch);
+        assertThat(first.updated()).isEqualTo(1);
+        assertThat(first.unchanged()).isEqualTo(1);
+        var written = productRepository.findBySkuAndVendor("SAME1", "VENDOR_D").orElseThrow().getUpdatedAt();
+        assertThat(written).isAfter(seeded);
+
+        // a replay a little later writes nothing: a write would move updated_at
+        Thread.sleep(5);
+        SyncStats replay = syncService.ingestPushed("VENDOR_D", batch);
+        assertThat(replay.updated()).isZero();
+        assertThat(replay.unchanged()).isEqualTo(2);
+        assertThat(productRepository.findBySkuAndVendor("SAME1", "VENDOR_D").orElseThrow().getUpdatedAt()).isEqualTo(written);
+        assertThat(productRepository.findBySkuAndVendor("SAME2", "VENDOR_D").orElseThrow().getStockQuantity()).isEqualTo(1);
+
+        // a name-only change is still a change
+        syncService.processBatch(List.of(new VendorProduct("SAME1", "Renamed", 7, "VENDOR_D")));
+        assertThat(productRepository.findBySkuAndVendor("SAME1", "VENDOR_D").orElseThrow().getName()).isEqualTo("Renamed");
+    }
+
+    @Test
+    void snapshotTracksWritesAndDetectsTransitions() {
+        syncService.processBatch(List.of(new VendorProduct("SNAP1", "Cached", 4, "VENDOR_E")));
+        StockSnapshotCache.VendorSnapshot snapshot = snapshotCache.forVendor("VENDOR_E");
+        // the transaction reads its own write, but the shared snapshot only changes on commit
+        assertThat(snapshotCache.lookup("VENDOR_E", snapshot, "SNAP1"))
+                .isEqualTo(new StockSnapshotCache.Stored(4, StockSnapshotCache.nameDigest("Cached")));
+        assertThat(snapshot.get("SNAP1")).isNull();
+
+        syncService.processBatch(List.of(new VendorProduct("SNAP1", "Cached", 0, "VENDOR_E")));
+
+        assertThat(eventRepository.findAll())
+                .extracting(StockOutEvent::getSku, StockOutEvent::getPreviousQuantity)
+                .containsExactly(tuple("SNAP1", 4));
+        assertThat(snapshotCache.lookup("VENDOR_E", snapshot, "SNAP1").stockQuantity()).isZero();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void snapshotChangesOnlyWhenTheSyncCommits() {
+        StockSnapshotCache.VendorSnapshot snapshot = snapshotCache.forVendor("VENDOR_F");
+        VendorClient failing = client("VENDOR_F", Stream.concat(
+                // a full chunk is written before the fetch breaks off
+                Stream.of(new VendorProduct("SNAP2", "Lost", 3, "VENDOR_F"), new VendorProduct("SNAP3", "Lost", 1, "VENDOR_F")),
+                Stream.generate(() -> { throw new IllegalStateException("connection reset"); })));
+        assertThat(syncService.syncVendor(failing).failed()).isTrue();
+        assertThat(snapshot.get("SNAP2")).isNull();
+        assertThat(productRepository.findBySkuAndVendor("SNAP2", "VENDOR_F")).isEmpty();
+
+        assertThat(syncService.syncVendor(client("VENDOR_F",
+                Stream.of(new VendorProduct("SNAP2", "Kept", 3, "VENDOR_F")))).failed()).isFalse();
+        assertThat(snapshotCache.forVendor("VENDOR_F")).isSameAs(snapshot);
+        assertThat(snapshot.get("SNAP2")).isEqualTo(new StockSnapshotCache.Stored(3, StockSnapshotCache.nameDigest("Kept")));
+    }
+
+    private static VendorClient client(String vendor, Stream<VendorProduct> rows) {
+        return new VendorClient() {
+            @Override
+            public String vendorName() { return vendor; }
+
+            @Override
+            public Stream<VendorProduct> stream() { return rows; }
+        };
+    }
 }
@@ -0,0 +1,181 @@
+package io.stock.sync.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.stock.sync.repository.ProductJdbcRepository;
+import io.stock.sync.repository.ProductRepository;
+import io.stock.sync.service.dto.VendorProduct;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class SyncServiceParallelTest {
+
+    @Autowired
+    ProductJdbcRepository productJdbcRepository;
+
+    @Autowired
+    ProductRepository productRepository;
+
+    @Autowired
+    StockOutRecorder stockOutRecorder;
+
+    @Autowired
+    StockSnapshotCache snapshotCache;
+
+    @Autowired
+    StockHistoryService historyService;
+
+    @Autowired
+    ApplicationEventPublisher events;
+
+    @Autowired
+    SyncMetrics metrics;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    ClusterCoordinator cluster;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    void vendorsRunConcurrentlyAndFailuresAreIsolated() {
+        // both fetches must be in flight at once to get past the latch
+        CountDownLatch bothFetching = new CountDownLatch(2);
+        AtomicBoolean overlapped = new AtomicBoolean(true);
+
+        VendorClient good = stub("PAR_GOOD", bothFetching, overlapped,
+                new VendorProduct("P1", "Good", 3, "PAR_GOOD"));
+        // null name violates NOT NULL, so this vendor's transaction rolls back after P1's chunk was written
+        VendorClient bad = stub("PAR_BAD", bothFetching, overlapped,
+                new VendorProduct("P1", "Fine", 1, "PAR_BAD"),
+                new VendorProduct("P2", null, 1, "PAR_BAD"));
+
+        SyncService service = new SyncService(() -> List.of(bad, good), productJdbcRepository, null,
+                stockOutRecorder, snapshotCache, historyService, events, metrics, cluster, transactionManager, 1, 2, false);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            executor.submit(() -> service.syncVendor(bad));
+            executor.submit(() -> service.syncVendor(good));
+        }
+
+        assertThat(overlapped).isTrue();
+        assertThat(productRepository.findBySkuAndVendor("P1", "PAR_GOOD")).isPresent();
+        assertThat(productRepository.findBySkuAndVendor("P1", "PAR_BAD")).isEmpty();
+        // the rolled-back write must not survive in the snapshot cache either
+        assertThat(snapshotCache.forVendor("PAR_BAD").get("P1")).isNull();
+        assertThat(snapshotCache.forVendor("PAR_GOOD").get("P1").stockQuantity()).isEqualTo(3);
+
+        // per-vendor metrics: the failure is tagged on the observation, the good vendor's rows are counted
+        assertThat(meterRegistry.get("sync.vendor").tags("vendor", "PAR_BAD").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.find("sync.vendor").tags("vendor", "PAR_BAD", "error", "none").timers()).isEmpty();
+        assertThat(meterRegistry.get("sync.vendor.rows").tags("vendor", "PAR_GOOD", "result", "inserted")
+                .counter().count()).isEqualTo(1);
+        // rows of the rolled-back vendor are not counted
+        assertThat(meterRegistry.find("sync.vendor.rows").tags("vendor", "PAR_BAD").counters()).isEmpty();
+        assertThat(meterRegistry.find("sync.vendor.rows_per_second").tags("vendor", "PAR_BAD").gauges()).isEmpty();
+        assertThat(meterRegistry.get("sync.vendor.stage").tags("vendor", "PAR_GOOD", "stage", "write")
+                .timer().count()).isEqualTo(1);
+
+        productRepository.delete(productRepository.findBySkuAndVendor("P1", "PAR_GOOD").orElseThrow());
+        snapshotCache.invalidate("PAR_GOOD");
+    }
+
+    @Test
+    void pushIsNotBlockedWhileTheVendorFetches() throws Exception {
+        CountDownLatch fetching = new CountDownLatch(1);
+        CountDownLatch fetched = new CountDownLatch(1);
+        VendorClient slow = new VendorClient() {
+            @Override
+            public String vendorName() { return "PAR_PUSH"; }
+
+            @Override
+            public Stream<VendorProduct> stream() {
+                fetching.countDown();
+                try {
+                    fetched.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return Stream.of(new VendorProduct("P1", "Polled", 4, "PAR_PUSH"));
+            }
+        };
+        SyncService service = new SyncService(() -> List.of(slow), productJdbcRepository, null,
+                stockOutRecorder, snapshotCache, historyService, events, metrics, cluster, transactionManager, 10, 2, false);
+
+        CompletableFuture<SyncMetrics.VendorResult> sync = CompletableFuture.supplyAsync(() -> service.syncVendor(slow));
+        assertThat(fetching.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<SyncStats> push = CompletableFuture.supplyAsync(() ->
+                service.ingestPushed("PAR_PUSH", List.of(new VendorProduct("P2", "Pushed", 1, "PAR_PUSH"))));
+        assertThat(push.get(5, TimeUnit.SECONDS).inserted()).isEqualTo(1);
+
+        fetched.countDown();
+        assertThat(sync.get(10, TimeUnit.SECONDS).failed()).isFalse();
+        assertThat(productRepository.findBySkuAndVendor("P1", "PAR_PUSH")).isPresent();
+
+        productRepository.deleteAll(productRepository.findAll().stream().filter(p -> p.getVendor().equals("PAR_PUSH")).toList());
+        snapshotCache.invalidate("PAR_PUSH");
+    }
+
+    @Test
+    void csvIndexIsForgottenWhenAnythingElseWritesTheVendor(@TempDir Path tmp) throws Exception {
+        Path csv = tmp.resolve("stock.csv");
+        Files.writeString(csv, "sku,name,stockQuantity\nP1,Listed,5\n");
+        CsvVendorClient listed = new CsvVendorClient("PAR_CSV", csv.toString(), CsvDigestIndex.inMemory());
+        SyncService service = new SyncService(() -> List.of(listed), productJdbcRepository, null,
+                stockOutRecorder, snapshotCache, historyService, events, metrics, cluster, transactionManager, 10, 2, false);
+        assertThat(service.syncVendor(listed).stats().inserted()).isEqualTo(1);
+
+        // a push changes P1; the unchanged file must still be applied again afterwards
+        service.ingestPushed("PAR_CSV", List.of(new VendorProduct("P1", "Listed", 0, "PAR_CSV")));
+        assertThat(service.syncVendor(listed).stats().updated()).isEqualTo(1);
+        assertThat(productRepository.findBySkuAndVendor("P1", "PAR_CSV").orElseThrow().getStockQuantity()).isEqualTo(5);
+        assertThat(service.syncVendor(listed).stats().rows()).isZero();
+
+        // so must a dropped file ingested through another client
+        Path dropped = tmp.resolve("drop.csv");
+        Files.writeString(dropped, "sku,name,stockQuantity\nP1,Listed,2\n");
+        service.syncVendor(CsvVendorClient.ofFile("PAR_CSV", dropped, CsvVendorClient.ParserMode.COMMONS));
+        assertThat(service.syncVendor(listed).stats().updated()).isEqualTo(1);
+        assertThat(productRepository.findBySkuAndVendor("P1", "PAR_CSV").orElseThrow().getStockQuantity()).isEqualTo(5);
+
+        productRepository.delete(productRepository.findBySkuAndVendor("P1", "PAR_CSV").orElseThrow());
+        snapshotCache.invalidate("PAR_CSV");
+    }
+
+    private static VendorClient stub(String name, CountDownLatch latch, AtomicBoolean overlapped, VendorProduct... rows) {
+        return new VendorClient() {
+            @Override
+            public String vendorName() { return name; }
+
+            @Override
+            public Stream<VendorProduct> stream() {
+                latch.countDown();
+                try {
+                    if (!latch.await(5, TimeUnit.SECONDS)) overlapped.set(false);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return Stream.of(rows);
+            }
+        };
+    }
+}
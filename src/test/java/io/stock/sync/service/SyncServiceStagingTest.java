@@ -0,0 +1,95 @@
+package io.stock.sync.service;
+
+import io.stock.sync.OwnDatabaseTest;
+import io.stock.sync.model.Product;
+import io.stock.sync.model.StockOutEvent;
+import io.stock.sync.repository.OutboxMessageRepository;
+import io.stock.sync.repository.ProductRepository;
+import io.stock.sync.repository.StockOutEventRepository;
+import io.stock.sync.service.dto.VendorProduct;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/** The "postgres" profile's schema and write path, on H2 in PostgreSQL mode. */
+@OwnDatabaseTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "sync.staging.enabled=true",
+        "sync.chunk-size=3"
+})
+class SyncServiceStagingTest {
+
+    @Autowired
+    SyncService syncService;
+
+    @Autowired
+    ProductRepository productRepository;
+
+    @Autowired
+    StockOutEventRepository eventRepository;
+
+    @Autowired
+    OutboxMessageRepository outboxRepository;
+
+    @Autowired
+    StockHistoryService historyService;
+
+    @Test
+    void mergesChunksAndDetectsStockOutsInTheDatabase() {
+        productRepository.save(new Product("KEEP", "Kept", 4, "STAGED"));
+        productRepository.save(new Product("DROP", "Dropped", 7, "STAGED"));
+        productRepository.save(new Product("BACK", "Restocked", 0, "STAGED"));
+        var keptAt = productRepository.findBySkuAndVendor("KEEP", "STAGED").orElseThrow().getUpdatedAt();
+
+        // chunk size 3: the second chunk repeats NEW, which only counts with its last row
+        SyncStats stats = syncService.ingestPushed("STAGED", List.of(
+                new VendorProduct("KEEP", "Kept", 4, "STAGED"),
+                new VendorProduct("DROP", "Dropped", 0, "STAGED"),
+                new VendorProduct("BACK", "Restocked \"v2\"", 3, "STAGED"),
+                new VendorProduct("NEW", "New", 5, "STAGED"),
+                new VendorProduct("NEW", "New", 2, "STAGED")));
+
+        assertThat(stats.inserted()).isEqualTo(1);
+        assertThat(stats.updated()).isEqualTo(2);
+        assertThat(productRepository.findBySkuAndVendor("KEEP", "STAGED").orElseThrow().getUpdatedAt()).isEqualTo(keptAt);
+        assertThat(productRepository.findBySkuAndVendor("DROP", "STAGED").orElseThrow().getStockQuantity()).isZero();
+        assertThat(productRepository.findBySkuAndVendor("BACK", "STAGED").orElseThrow().getName()).isEqualTo("Restocked \"v2\"");
+        assertThat(productRepository.findBySkuAndVendor("NEW", "STAGED").orElseThrow().getStockQuantity()).isEqualTo(2);
+
+        assertThat(eventRepository.findAll())
+                .extracting(StockOutEvent::getSku, StockOutEvent::getPreviousQuantity)
+                .containsExactly(tuple("DROP", 7));
+        assertThat(outboxRepository.count()).isEqualTo(1);
+        OffsetDateTime now = OffsetDateTime.now();
+        assertThat(historyService.history("STAGED", "NEW", now.minusMinutes(1), now.plusMinutes(1)))
+                .extracting(QuantityChange::newQuantity)
+                .containsExactly(2);
+
+        // the staging table is empty again after the commit, so a rerun changes nothing
+        SyncStats rerun = syncService.ingestPushed("STAGED", List.of(new VendorProduct("NEW", "New", 2, "STAGED")));
+        assertThat(rerun.inserted() + rerun.updated()).isZero();
+    }
+
+    @Test
+    void emptyNamesAreChangesAndNullNamesAreRejected() {
+        productRepository.save(new Product("NAMED", "Named", 4, "STAGED_NAMES"));
+
+        SyncStats blanked = syncService.ingestPushed("STAGED_NAMES", List.of(new VendorProduct("NAMED", "", 4, "STAGED_NAMES")));
+        assertThat(blanked.updated()).isEqualTo(1);
+        assertThat(productRepository.findBySkuAndVendor("NAMED", "STAGED_NAMES").orElseThrow().getName()).isEmpty();
+
+        // a NULL name is not silently "unchanged": it reaches the NOT NULL column and the chunk rolls back
+        assertThatThrownBy(() -> syncService.ingestPushed("STAGED_NAMES",
+                List.of(new VendorProduct("NAMED", null, 4, "STAGED_NAMES"))))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(productRepository.findBySkuAndVendor("NAMED", "STAGED_NAMES").orElseThrow().getName()).isEmpty();
+    }
+}
@@ -0,0 +1,101 @@
+package io.stock.sync.service;
+
+import io.stock.sync.service.VendorCircuitBreaker.State;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class VendorCircuitBreakerTest {
+
+    @Test
+    void opensAfterConsecutiveFailuresAndProbesWithGrowingPauses() {
+        MutableClock clock = new MutableClock();
+        VendorCircuitBreaker breaker = new VendorCircuitBreaker("VENDOR_CB", 3, Duration.ofSeconds(30), Duration.ofSeconds(50), clock);
+
+        breaker.acquire();
+        breaker.onFailure();
+        breaker.acquire();
+        breaker.onSuccess();   // resets the streak
+        for (int i = 0; i < 3; i++) {
+            breaker.acquire();
+            breaker.onFailure();
+        }
+        assertThat(breaker.state()).isEqualTo(State.OPEN);
+        assertThatThrownBy(breaker::acquire).isInstanceOf(VendorCircuitBreaker.OpenException.class);
+
+        // one probe after the pause; concurrent requests are still refused
+        clock.advance(Duration.ofSeconds(30));
+        breaker.acquire();
+        assertThat(breaker.state()).isEqualTo(State.HALF_OPEN);
+        assertThatThrownBy(breaker::acquire).isInstanceOf(VendorCircuitBreaker.OpenException.class);
+
+        // a failed probe doubles the pause, capped at the maximum
+        breaker.onFailure();
+        clock.advance(Duration.ofSeconds(49));
+        assertThatThrownBy(breaker::acquire).isInstanceOf(VendorCircuitBreaker.OpenException.class);
+        clock.advance(Duration.ofSeconds(1));
+        breaker.acquire();
+        breaker.onSuccess();
+        assertThat(breaker.state()).isEqualTo(State.CLOSED);
+        assertThat(breaker.isClosed()).isTrue();
+    }
+
+    @Test
+    void deadVendorIsNotCalledWhileOpen() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            server.start();
+            for (int i = 0; i < 3; i++) server.enqueue(new MockResponse().setResponseCode(503));
+
+            VendorCircuitBreaker breaker = new VendorCircuitBreaker("VENDOR_DEAD", 2, Duration.ofMinutes(1), Duration.ofMinutes(5));
+            RestTemplate restTemplate = new RestTemplateBuilder()
+                    .additionalInterceptors(new VendorHttpGuard(breaker, null))
+                    .build();
+            RestVendorClient client = new RestVendorClient("VENDOR_DEAD", server.url("/products").toString(), restTemplate,
+                    RestVendorClient.retryTemplate(5, Duration.ofMillis(10), Duration.ofMillis(10), breaker));
+
+            // retries stop as soon as the breaker opens, not after all five attempts
+            assertThat(client.fetch()).isEmpty();
+            assertThat(server.getRequestCount()).isEqualTo(2);
+            assertThat(breaker.state()).isEqualTo(State.OPEN);
+
+            long started = System.nanoTime();
+            assertThat(client.fetch()).isEmpty();
+            assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofMillis(500));
+            assertThat(server.getRequestCount()).isEqualTo(2);
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration d) {
+            now = now.plus(d);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package io.stock.sync.service;
+
+import io.micrometer.core.instrument.Metrics;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.http.client.InterceptingClientHttpRequestFactory;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class VendorConnectionLimitTest {
+
+    @Test
+    void holdsASlotUntilTheResponseIsClosed() throws Exception {
+        try (MockWebServer server = new MockWebServer();
+             HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build()) {
+            server.start();
+            for (int i = 0; i < 3; i++) server.enqueue(new MockResponse().setBody("[]"));
+            VendorConnectionLimit limit = new VendorConnectionLimit("VENDOR_POOL", 1, Duration.ofMillis(100));
+            InterceptingClientHttpRequestFactory requests =
+                    new InterceptingClientHttpRequestFactory(new JdkClientHttpRequestFactory(http), List.of(limit));
+            URI uri = server.url("/products").uri();
+
+            ClientHttpResponse first = requests.createRequest(uri, HttpMethod.GET).execute();
+            assertThat(Metrics.globalRegistry.get("sync.vendor.http.active").tag("vendor", "VENDOR_POOL").gauge().value())
+                    .isEqualTo(1.0);
+
+            ClientHttpRequest second = requests.createRequest(uri, HttpMethod.GET);
+            assertThatThrownBy(second::execute).isInstanceOf(ResourceAccessException.class)
+                    .hasMessageContaining("No free connection");
+
+            first.close();
+            try (ClientHttpResponse third = requests.createRequest(uri, HttpMethod.GET).execute()) {
+                assertThat(third.getStatusCode().is2xxSuccessful()).isTrue();
+            }
+            assertThat(Metrics.globalRegistry.get("sync.vendor.http.active").tag("vendor", "VENDOR_POOL").gauge().value())
+                    .isZero();
+            assertThat(server.getRequestCount()).isEqualTo(2);
+        }
+    }
+}